@@ -0,0 +1,123 @@
+package com.example.benchmarks;
+
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.annotation.RequestParam;
+import com.example.web.BindingPlan;
+import com.example.web.FrameworkConfig;
+import com.example.web.RouteTrie;
+
+/** Building handler arguments from path variables, request parameters and bodies. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BindingBenchmark {
+
+    public static void scalars(@RequestParam("id") long id, @RequestParam("q") String query,
+                               @RequestParam("page") int page, @RequestParam("active") boolean active,
+                               @RequestParam("from") LocalDate from, @RequestParam("ids") int[] ids) {
+    }
+
+    public static void form(Order order) {
+    }
+
+    public static void json(Order order) {
+    }
+
+    private final String[] pathValues = {"42"};
+    private BindingPlan scalarPlan;
+    private BindingPlan formPlan;
+    private BindingPlan jsonPlan;
+    private HttpServletRequest scalarRequest;
+    private HttpServletRequest formRequest;
+    private HttpServletRequest jsonRequest;
+    private HttpServletResponse response;
+
+    @Setup
+    public void setup() throws Exception {
+        FrameworkConfig config = new FrameworkConfig(Collections.emptyMap());
+        scalarPlan = plan("scalars", "/orders/{id}", "GET", config);
+        formPlan = plan("form", "/orders", "GET", config);
+        jsonPlan = plan("json", "/orders", "POST", config);
+
+        scalarRequest = Mocks.request(new MockRequest()
+                .param("q", "chaise en bois")
+                .param("page", "3")
+                .param("active", "on")
+                .param("from", "2024-01-31")
+                .param("ids", "1", "2", "3", "5", "8"));
+
+        MockRequest form = new MockRequest()
+                .param("id", "7")
+                .param("reference", "ORD-7")
+                .param("status", "PENDING")
+                .param("customer.name", "Rabe")
+                .param("customer.email", "rabe@example.com")
+                .param("customer.city", "Toamasina")
+                .param("tags", "web", "priority");
+        for (int i = 0; i < 5; i++) {
+            form.param("lines[" + i + "].sku", "SKU-" + i)
+                    .param("lines[" + i + "].quantity", Integer.toString(i + 1))
+                    .param("lines[" + i + "].unitPrice", "12.50");
+        }
+        formRequest = Mocks.request(form);
+
+        StringBuilder json = new StringBuilder("{\"id\":7,\"reference\":\"ORD-7\",\"status\":\"PENDING\","
+                + "\"customer\":{\"name\":\"Rabe\",\"email\":\"rabe@example.com\",\"city\":\"Toamasina\"},\"lines\":[");
+        for (int i = 0; i < 5; i++) {
+            if (i > 0) json.append(',');
+            json.append("{\"sku\":\"SKU-").append(i).append("\",\"quantity\":").append(i + 1)
+                    .append(",\"unitPrice\":12.50}");
+        }
+        json.append("],\"tags\":[\"web\",\"priority\"]}");
+        jsonRequest = Mocks.request(new MockRequest().method("POST")
+                .body("application/json", json.toString().getBytes(StandardCharsets.UTF_8)));
+
+        response = Mocks.response(new MockResponse());
+    }
+
+    private static BindingPlan plan(String name, String route, String httpMethod, FrameworkConfig config) {
+        for (Method method : BindingBenchmark.class.getMethods()) {
+            if (method.getName().equals(name)) {
+                return BindingPlan.of(method, RouteTrie.pathVariables(route), httpMethod, config);
+            }
+        }
+        throw new IllegalArgumentException(name);
+    }
+
+    @Benchmark
+    public Object[] scalarParameters() throws Exception {
+        return scalarPlan.bind(scalarRequest, response, pathValues);
+    }
+
+    @Benchmark
+    public Object[] nestedFormBean() throws Exception {
+        return formPlan.bind(formRequest, response, pathValues);
+    }
+
+    @Benchmark
+    public Object[] jsonBody() throws Exception {
+        return jsonPlan.bind(jsonRequest, response, pathValues);
+    }
+}
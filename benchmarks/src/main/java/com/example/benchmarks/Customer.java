@@ -0,0 +1,15 @@
+package com.example.benchmarks;
+
+public class Customer {
+
+    private String name;
+    private String email;
+    private String city;
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    public String getEmail() { return email; }
+    public void setEmail(String email) { this.email = email; }
+    public String getCity() { return city; }
+    public void setCity(String city) { this.city = city; }
+}
@@ -0,0 +1,104 @@
+package com.example.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.ServletContext;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.web.ControllerScanner;
+import com.example.web.FrontController;
+import com.example.web.RouteEntry;
+import com.example.web.RouteTable;
+
+/**
+ * A whole request through FrontController.service: routing, binding, invocation
+ * and rendering, against the routes of BenchController plus synthetic ones.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+
+    @Param({"10", "100", "1000"})
+    int routes;
+
+    private FrontController controller;
+
+    private final MockRequest staticState = new MockRequest();
+    private final MockRequest dynamicState = new MockRequest();
+    private final MockRequest postState = new MockRequest();
+    private final MockResponse responseState = new MockResponse();
+    private HttpServletRequest staticRequest;
+    private HttpServletRequest dynamicRequest;
+    private HttpServletRequest postRequest;
+    private HttpServletResponse response;
+
+    @Setup
+    public void setup() throws Exception {
+        Path root = Files.createTempDirectory("dispatch-bench");
+        ServletContext context = Mocks.context(new MockContext(root));
+
+        controller = new FrontController();
+        controller.init(Mocks.config(context,
+                Collections.singletonMap("log.file", root.resolve("framework.log").toString())));
+        List<RouteEntry> entries = new ArrayList<>(ControllerScanner.getRoutes());
+        entries.addAll(RouteMatchBenchmark.populate(Math.max(0, routes - entries.size())));
+        ControllerScanner.publish(RouteTable.of(entries));
+
+        staticRequest = Mocks.request(staticState.uri("/bench/ping").context(context));
+        dynamicRequest = Mocks.request(dynamicState.uri("/bench/orders/42").context(context));
+        byte[] json = ("{\"id\":7,\"reference\":\"ORD-7\",\"status\":\"PENDING\",\"customer\":{\"name\":\"Rabe\","
+                + "\"email\":\"rabe@example.com\",\"city\":\"Toamasina\"},\"lines\":[{\"sku\":\"SKU-1\",\"quantity\":2,"
+                + "\"unitPrice\":12.5},{\"sku\":\"SKU-2\",\"quantity\":1,\"unitPrice\":99.9}],\"tags\":[\"web\"]}")
+                .getBytes(StandardCharsets.UTF_8);
+        postRequest = Mocks.request(postState.method("POST").uri("/bench/orders")
+                .body("application/json", json).context(context));
+        response = Mocks.response(responseState);
+    }
+
+    @Benchmark
+    public long staticRoute() throws Exception {
+        return dispatch(staticState, staticRequest);
+    }
+
+    @Benchmark
+    public long dynamicRestRoute() throws Exception {
+        return dispatch(dynamicState, dynamicRequest);
+    }
+
+    @Benchmark
+    public long jsonBodyRoute() throws Exception {
+        return dispatch(postState, postRequest);
+    }
+
+    private long dispatch(MockRequest state, HttpServletRequest request) throws Exception {
+        state.reset();
+        responseState.reset();
+        controller.service((ServletRequest) request, (ServletResponse) response);
+        return responseState.getWritten();
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.benchmarks;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.util.JsonConverter;
+
+/** Serializing order graphs of growing size, to a String and streamed into the envelope. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+
+    @Param({"1", "20", "200"})
+    int lines;
+
+    private Order order;
+    private List<Order> orders;
+    private final CountingWriter out = new CountingWriter();
+
+    @Setup
+    public void setup() {
+        order = Order.sample(1, lines);
+        orders = new ArrayList<>();
+        for (int i = 0; i < 50; i++) orders.add(Order.sample(i, lines));
+    }
+
+    @Benchmark
+    public String toJson() {
+        return JsonConverter.toJson(order);
+    }
+
+    @Benchmark
+    public long envelopeList() throws IOException {
+        out.count = 0;
+        JsonConverter.writeEnvelope(orders, out);
+        return out.count;
+    }
+
+    /** A Writer that only counts, so the benchmark measures serialization rather than buffering. */
+    static final class CountingWriter extends Writer {
+        long count;
+
+        @Override
+        public void write(int c) { count++; }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) { count += length; }
+
+        @Override
+        public void write(String s, int offset, int length) { count += length; }
+
+        @Override
+        public void flush() { }
+
+        @Override
+        public void close() { }
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.benchmarks;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+
+/** State behind a mocked ServletContext whose real paths resolve under a directory. */
+public class MockContext {
+
+    private final Path root;
+    private final Map<String, Object> attributes = new HashMap<>();
+
+    public MockContext(Path root) {
+        this.root = root;
+    }
+
+    public String getRealPath(String path) {
+        return root.resolve(path.startsWith("/") ? path.substring(1) : path).toString();
+    }
+
+    public String getMimeType(String file) { return null; }
+    public String getContextPath() { return ""; }
+    public Object getAttribute(String name) { return attributes.get(name); }
+    public void setAttribute(String name, Object value) { attributes.put(name, value); }
+    public Enumeration<String> getInitParameterNames() { return Collections.emptyEnumeration(); }
+    public void log(String message) { }
+}
@@ -0,0 +1,38 @@
+package com.example.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.Collections;
+
+/** State behind a mocked multipart Part holding its content in memory. */
+public class MockPart {
+
+    private final String name;
+    private final String fileName;
+    private final String contentType;
+    private final byte[] content;
+
+    public MockPart(String name, String fileName, String contentType, byte[] content) {
+        this.name = name;
+        this.fileName = fileName;
+        this.contentType = contentType;
+        this.content = content;
+    }
+
+    public String getName() { return name; }
+    public String getSubmittedFileName() { return fileName; }
+    public String getContentType() { return contentType; }
+    public long getSize() { return content.length; }
+    public InputStream getInputStream() { return new ByteArrayInputStream(content); }
+    public String getHeader(String name) { return null; }
+    public Collection<String> getHeaderNames() { return Collections.emptyList(); }
+    public void delete() { }
+
+    public void write(String fileName) throws IOException {
+        Files.write(Paths.get(fileName), content);
+    }
+}
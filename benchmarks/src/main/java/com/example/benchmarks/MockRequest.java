@@ -0,0 +1,149 @@
+package com.example.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.ReadListener;
+import javax.servlet.RequestDispatcher;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.Part;
+
+/** State behind a mocked HttpServletRequest; see {@link Mocks#request}. */
+public class MockRequest {
+
+    private String method = "GET";
+    private String requestURI = "/";
+    private String queryString;
+    private String contentType;
+    private byte[] body = new byte[0];
+    private ServletContext servletContext;
+    private final Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private final Map<String, String[]> parameters = new LinkedHashMap<>();
+    private final Map<String, Object> attributes = new HashMap<>();
+    private final List<Part> parts = new ArrayList<>();
+
+    public MockRequest method(String method) { this.method = method; return this; }
+    public MockRequest uri(String uri) { this.requestURI = uri; return this; }
+    public MockRequest query(String query) { this.queryString = query; return this; }
+    public MockRequest header(String name, String value) { headers.put(name, value); return this; }
+    public MockRequest param(String name, String... values) { parameters.put(name, values); return this; }
+    public MockRequest part(Part part) { parts.add(part); return this; }
+    public MockRequest context(ServletContext context) { this.servletContext = context; return this; }
+
+    public MockRequest body(String contentType, byte[] body) {
+        this.contentType = contentType;
+        this.body = body;
+        return this;
+    }
+
+    /** Drops the attributes set while handling the previous invocation. */
+    public void reset() {
+        attributes.clear();
+    }
+
+    public String getMethod() { return method; }
+    public String getRequestURI() { return requestURI; }
+    public String getContextPath() { return ""; }
+    public String getServletPath() { return requestURI; }
+    public String getQueryString() { return queryString; }
+    public String getProtocol() { return "HTTP/1.1"; }
+    public String getScheme() { return "http"; }
+    public DispatcherType getDispatcherType() { return DispatcherType.REQUEST; }
+    public ServletContext getServletContext() { return servletContext; }
+    public RequestDispatcher getRequestDispatcher(String path) { return Mocks.dispatcher(); }
+    public Locale getLocale() { return Locale.ROOT; }
+
+    public String getHeader(String name) { return headers.get(name); }
+
+    public Enumeration<String> getHeaders(String name) {
+        String value = headers.get(name);
+        return value == null ? Collections.emptyEnumeration() : Collections.enumeration(List.of(value));
+    }
+
+    public Enumeration<String> getHeaderNames() { return Collections.enumeration(headers.keySet()); }
+
+    public long getDateHeader(String name) {
+        String value = headers.get(name);
+        if (value == null) return -1;
+        try {
+            return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(value);
+        }
+    }
+
+    public int getIntHeader(String name) {
+        String value = headers.get(name);
+        return value == null ? -1 : Integer.parseInt(value);
+    }
+
+    public String getParameter(String name) {
+        String[] values = parameters.get(name);
+        return values == null || values.length == 0 ? null : values[0];
+    }
+
+    public String[] getParameterValues(String name) { return parameters.get(name); }
+    public Map<String, String[]> getParameterMap() { return parameters; }
+    public Enumeration<String> getParameterNames() { return Collections.enumeration(parameters.keySet()); }
+
+    public Object getAttribute(String name) { return attributes.get(name); }
+    public void setAttribute(String name, Object value) { attributes.put(name, value); }
+    public void removeAttribute(String name) { attributes.remove(name); }
+    public Enumeration<String> getAttributeNames() { return Collections.enumeration(attributes.keySet()); }
+
+    public String getContentType() { return contentType; }
+    public int getContentLength() { return body.length; }
+    public long getContentLengthLong() { return body.length; }
+    public String getCharacterEncoding() { return "UTF-8"; }
+    public void setCharacterEncoding(String encoding) { }
+
+    public ServletInputStream getInputStream() {
+        ByteArrayInputStream in = new ByteArrayInputStream(body);
+        return new ServletInputStream() {
+            @Override
+            public int read() { return in.read(); }
+
+            @Override
+            public int read(byte[] b, int off, int len) { return in.read(b, off, len); }
+
+            @Override
+            public boolean isFinished() { return in.available() == 0; }
+
+            @Override
+            public boolean isReady() { return true; }
+
+            @Override
+            public void setReadListener(ReadListener listener) { }
+        };
+    }
+
+    public BufferedReader getReader() {
+        return new BufferedReader(new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8));
+    }
+
+    public Collection<Part> getParts() { return parts; }
+
+    public Part getPart(String name) {
+        for (Part part : parts) {
+            if (part.getName().equals(name)) return part;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.benchmarks;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+
+/**
+ * State behind a mocked HttpServletResponse; see {@link Mocks#response}. The
+ * body is discarded, only its length is kept.
+ */
+public class MockResponse {
+
+    private int status = 200;
+    private String contentType;
+    private String characterEncoding = "ISO-8859-1";
+    private final Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private long written;
+    private final ServletOutputStream out = new ServletOutputStream() {
+        @Override
+        public void write(int b) { written++; }
+
+        @Override
+        public void write(byte[] b, int off, int len) { written += len; }
+
+        @Override
+        public boolean isReady() { return true; }
+
+        @Override
+        public void setWriteListener(WriteListener listener) { }
+    };
+    private PrintWriter writer;
+
+    public void reset() {
+        status = 200;
+        contentType = null;
+        characterEncoding = "ISO-8859-1";
+        headers.clear();
+        written = 0;
+        writer = null;
+    }
+
+    public long getWritten() {
+        if (writer != null) writer.flush();
+        return written;
+    }
+
+    public ServletOutputStream getOutputStream() { return out; }
+
+    public PrintWriter getWriter() {
+        if (writer == null) {
+            OutputStream target = out;
+            writer = new PrintWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8));
+        }
+        return writer;
+    }
+
+    public void setStatus(int status) { this.status = status; }
+    public int getStatus() { return status; }
+    public void sendError(int status) { this.status = status; }
+    public void sendError(int status, String message) { this.status = status; }
+    public void sendRedirect(String location) { status = 302; headers.put("Location", location); }
+
+    public void setHeader(String name, String value) { headers.put(name, value); }
+    public void addHeader(String name, String value) { headers.merge(name, value, (a, b) -> a + ", " + b); }
+    public void setDateHeader(String name, long date) { headers.put(name, Long.toString(date)); }
+    public void addDateHeader(String name, long date) { setDateHeader(name, date); }
+    public void setIntHeader(String name, int value) { headers.put(name, Integer.toString(value)); }
+    public void addIntHeader(String name, int value) { setIntHeader(name, value); }
+    public boolean containsHeader(String name) { return headers.containsKey(name); }
+    public String getHeader(String name) { return headers.get(name); }
+    public Collection<String> getHeaderNames() { return headers.keySet(); }
+
+    public void setContentType(String contentType) { this.contentType = contentType; }
+    public String getContentType() { return contentType; }
+    public void setCharacterEncoding(String encoding) { this.characterEncoding = encoding; }
+    public String getCharacterEncoding() { return characterEncoding; }
+    public void setContentLength(int length) { }
+    public void setContentLengthLong(long length) { }
+    public boolean isCommitted() { return false; }
+    public void flushBuffer() { }
+    public void resetBuffer() { }
+}
@@ -0,0 +1,128 @@
+package com.example.benchmarks;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.servlet.RequestDispatcher;
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.Part;
+
+/**
+ * Servlet API stand-ins built with {@link Proxy}: every interface method is
+ * forwarded to the method of the same signature on a plain state object, and
+ * the ones it does not declare return null, zero or false.
+ */
+public class Mocks {
+
+    private static final ClassValue<Map<Method, Method>> TARGETS = new ClassValue<Map<Method, Method>>() {
+        @Override
+        protected Map<Method, Method> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+    private static final Method MISSING;
+
+    static {
+        try {
+            MISSING = Object.class.getMethod("hashCode");
+        } catch (NoSuchMethodException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    public static HttpServletRequest request(MockRequest state) {
+        return proxy(HttpServletRequest.class, state);
+    }
+
+    public static HttpServletResponse response(MockResponse state) {
+        return proxy(HttpServletResponse.class, state);
+    }
+
+    public static ServletContext context(MockContext state) {
+        return proxy(ServletContext.class, state);
+    }
+
+    public static ServletConfig config(ServletContext context, Map<String, String> initParameters) {
+        return proxy(ServletConfig.class, new Object() {
+            @SuppressWarnings("unused")
+            public ServletContext getServletContext() {
+                return context;
+            }
+
+            @SuppressWarnings("unused")
+            public String getServletName() {
+                return "FrontController";
+            }
+
+            @SuppressWarnings("unused")
+            public String getInitParameter(String name) {
+                return initParameters.get(name);
+            }
+
+            @SuppressWarnings("unused")
+            public Enumeration<String> getInitParameterNames() {
+                return Collections.enumeration(initParameters.keySet());
+            }
+        });
+    }
+
+    public static Part part(MockPart state) {
+        return proxy(Part.class, state);
+    }
+
+    /** A dispatcher that does nothing, standing in for JSP forwards. */
+    public static RequestDispatcher dispatcher() {
+        return proxy(RequestDispatcher.class, new Object());
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> T proxy(Class<T> type, Object target) {
+        return (T) Proxy.newProxyInstance(Mocks.class.getClassLoader(), new Class<?>[] {type},
+                (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class) {
+                        if (method.getName().equals("equals")) return proxy == args[0];
+                        if (method.getName().equals("hashCode")) return System.identityHashCode(proxy);
+                        return type.getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+                    }
+                    Method delegate = target(target.getClass(), method);
+                    if (delegate == MISSING) return defaultValue(method.getReturnType());
+                    try {
+                        return delegate.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private static Method target(Class<?> targetClass, Method method) {
+        return TARGETS.get(targetClass).computeIfAbsent(method, m -> {
+            try {
+                Method found = targetClass.getMethod(m.getName(), m.getParameterTypes());
+                found.setAccessible(true);
+                return found;
+            } catch (NoSuchMethodException e) {
+                return MISSING;
+            }
+        });
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) return null;
+        if (type == boolean.class) return false;
+        if (type == long.class) return 0L;
+        if (type == double.class) return 0d;
+        if (type == float.class) return 0f;
+        if (type == char.class) return '\0';
+        if (type == short.class) return (short) 0;
+        if (type == byte.class) return (byte) 0;
+        return 0;
+    }
+}
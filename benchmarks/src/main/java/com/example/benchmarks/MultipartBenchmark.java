@@ -0,0 +1,83 @@
+package com.example.benchmarks;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.util.MultipartHelper;
+import com.example.util.UploadedFile;
+
+/** Upload handling: streaming UploadedFile handles against the legacy in-memory map. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MultipartBenchmark {
+
+    @Param({"16384", "4194304"})
+    int size;
+
+    private Path root;
+    private Path target;
+    private final MockRequest state = new MockRequest();
+    private HttpServletRequest request;
+
+    @Setup
+    public void setup() throws Exception {
+        root = Files.createTempDirectory("multipart-bench");
+        target = root.resolve("received.bin");
+        byte[] content = new byte[size];
+        ThreadLocalRandom.current().nextBytes(content);
+
+        request = Mocks.request(state
+                .method("POST")
+                .uri("/upload")
+                .body("multipart/form-data; boundary=bench", new byte[0])
+                .part(Mocks.part(new MockPart("title", null, null, "report".getBytes())))
+                .part(Mocks.part(new MockPart("file", "report.bin", "application/octet-stream", content)))
+                .context(Mocks.context(new MockContext(root))));
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        try (var files = Files.walk(root)) {
+            files.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public long uploadedFileTransfer() throws Exception {
+        state.reset();
+        List<UploadedFile> files = MultipartHelper.files(request);
+        Files.deleteIfExists(target);
+        files.get(0).transferTo(target);
+        return files.get(0).getSize();
+    }
+
+    @Benchmark
+    public int saveOnTomcatMap() throws Exception {
+        state.reset();
+        Map<String, byte[]> files = MultipartHelper.saveOnTomcat(request);
+        return files.get("report.bin").length;
+    }
+}
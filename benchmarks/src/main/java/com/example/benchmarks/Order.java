@@ -0,0 +1,55 @@
+package com.example.benchmarks;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class Order {
+
+    public enum Status { PENDING, PAID, SHIPPED }
+
+    private long id;
+    private String reference;
+    private Status status;
+    private LocalDateTime createdAt;
+    private Customer customer;
+    private List<OrderLine> lines = new ArrayList<>();
+    private BigDecimal total;
+    private String[] tags;
+
+    /** An order of the given number of lines, the kind of graph a REST handler returns. */
+    public static Order sample(long id, int lineCount) {
+        Order order = new Order();
+        order.id = id;
+        order.reference = "ORD-" + id;
+        order.status = Status.PAID;
+        order.createdAt = LocalDateTime.of(2024, 3, 14, 15, 9, 26);
+        order.customer = new Customer();
+        order.customer.setName("Rakoto \"Jean\" Andriamanana");
+        order.customer.setEmail("jean@example.com");
+        order.customer.setCity("Antananarivo");
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < lineCount; i++) {
+            OrderLine line = new OrderLine();
+            line.setSku("SKU-" + (1000 + i));
+            line.setLabel("Article n°" + i + " — édition limitée");
+            line.setQuantity(1 + i % 5);
+            line.setUnitPrice(new BigDecimal("12.50").add(BigDecimal.valueOf(i)));
+            total = total.add(line.getUnitPrice().multiply(BigDecimal.valueOf(line.getQuantity())));
+            order.lines.add(line);
+        }
+        order.total = total;
+        order.tags = new String[] {"web", "priority"};
+        return order;
+    }
+
+    public long getId() { return id; }
+    public String getReference() { return reference; }
+    public Status getStatus() { return status; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public Customer getCustomer() { return customer; }
+    public List<OrderLine> getLines() { return lines; }
+    public BigDecimal getTotal() { return total; }
+    public String[] getTags() { return tags; }
+}
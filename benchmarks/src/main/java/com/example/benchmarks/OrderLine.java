@@ -0,0 +1,20 @@
+package com.example.benchmarks;
+
+import java.math.BigDecimal;
+
+public class OrderLine {
+
+    private String sku;
+    private String label;
+    private int quantity;
+    private BigDecimal unitPrice;
+
+    public String getSku() { return sku; }
+    public void setSku(String sku) { this.sku = sku; }
+    public String getLabel() { return label; }
+    public void setLabel(String label) { this.label = label; }
+    public int getQuantity() { return quantity; }
+    public void setQuantity(int quantity) { this.quantity = quantity; }
+    public BigDecimal getUnitPrice() { return unitPrice; }
+    public void setUnitPrice(BigDecimal unitPrice) { this.unitPrice = unitPrice; }
+}
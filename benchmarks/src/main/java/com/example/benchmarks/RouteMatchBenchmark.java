@@ -0,0 +1,89 @@
+package com.example.benchmarks;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.web.BindingPlan;
+import com.example.web.FrameworkConfig;
+import com.example.web.RouteEntry;
+import com.example.web.RouteInvoker;
+import com.example.web.RouteMatch;
+import com.example.web.RouteTable;
+import com.example.web.RouteTrie;
+
+/** Route lookup alone, for static and templated paths in tables of growing size. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouteMatchBenchmark {
+
+    @Param({"10", "100", "1000"})
+    int routes;
+
+    private RouteTable table;
+    private final String[] staticPaths = new String[16];
+    private final String[] dynamicPaths = new String[16];
+    private int next;
+
+    public static String handler() {
+        return "ok";
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        table = RouteTable.of(populate(routes));
+        for (int i = 0; i < 16; i++) {
+            int k = (i * 7919) % routes;
+            staticPaths[i] = "/api/resource" + (k - k % 2) + "/list";
+            dynamicPaths[i] = "/api/resource" + (k | 1) + "/" + (1000 + i) + "/items/" + i;
+        }
+        if (table.match(staticPaths[0], "GET").getEntry() == null) throw new IllegalStateException("static route missing");
+    }
+
+    /** Half static routes, half routes with two path variables. */
+    static List<RouteEntry> populate(int count) throws Exception {
+        List<RouteEntry> entries = new ArrayList<>();
+        Method method = RouteMatchBenchmark.class.getMethod("handler");
+        FrameworkConfig config = new FrameworkConfig(Collections.emptyMap());
+        for (int k = 0; k < count; k++) {
+            String route = k % 2 == 0 ? "/api/resource" + k + "/list" : "/api/resource" + k + "/{id}/items/{item}";
+            String[] variables = RouteTrie.pathVariables(route);
+            entries.add(new RouteEntry("GET", route, method, null, variables,
+                    RouteInvoker.bind(method, null), BindingPlan.of(method, variables, "GET", config)));
+        }
+        return entries;
+    }
+
+    @Benchmark
+    public RouteMatch matchStatic() {
+        return table.match(staticPaths[next++ & 15], "GET");
+    }
+
+    @Benchmark
+    public RouteMatch matchDynamic() {
+        return table.match(dynamicPaths[next++ & 15], "GET");
+    }
+
+    @Benchmark
+    public RouteMatch matchMissing() {
+        return table.match("/api/unknown/path", "GET");
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.benchmarks;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.web.FrameworkConfig;
+import com.example.web.StaticResourceHandler;
+
+/** Static files: cached small files, large copies, conditional GETs and ranges. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StaticFileBenchmark {
+
+    private Path root;
+    private StaticResourceHandler handler;
+    private final MockResponse responseState = new MockResponse();
+    private HttpServletResponse response;
+    private HttpServletRequest small;
+    private HttpServletRequest large;
+    private HttpServletRequest conditional;
+    private HttpServletRequest range;
+
+    @Setup
+    public void setup() throws Exception {
+        root = Files.createTempDirectory("static-bench");
+        Files.createDirectories(root.resolve("static"));
+        byte[] css = new byte[4 * 1024];
+        byte[] bin = new byte[1024 * 1024];
+        ThreadLocalRandom.current().nextBytes(bin);
+        Arrays.fill(css, (byte) 'a');
+        Files.write(root.resolve("static/app.css"), css);
+        Files.write(root.resolve("static/video.bin"), bin);
+
+        ServletContext context = Mocks.context(new MockContext(root));
+        handler = new StaticResourceHandler(context, new FrameworkConfig(Collections.emptyMap()));
+        response = Mocks.response(responseState);
+
+        small = Mocks.request(new MockRequest().uri("/static/app.css").context(context));
+        large = Mocks.request(new MockRequest().uri("/static/video.bin").context(context));
+
+        handler.serve(small, response, "/static/app.css");
+        String etag = responseState.getHeader("ETag");
+        conditional = Mocks.request(new MockRequest().uri("/static/app.css")
+                .header("If-None-Match", etag).context(context));
+        range = Mocks.request(new MockRequest().uri("/static/video.bin")
+                .header("Range", "bytes=65536-131071").context(context));
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        try (var files = Files.walk(root)) {
+            files.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public long smallCached() throws Exception {
+        return serve(small, "/static/app.css");
+    }
+
+    @Benchmark
+    public long largeFile() throws Exception {
+        return serve(large, "/static/video.bin");
+    }
+
+    @Benchmark
+    public long notModified() throws Exception {
+        return serve(conditional, "/static/app.css");
+    }
+
+    @Benchmark
+    public long byteRange() throws Exception {
+        return serve(range, "/static/video.bin");
+    }
+
+    private long serve(HttpServletRequest request, String path) throws Exception {
+        responseState.reset();
+        handler.serve(request, response, path);
+        return responseState.getWritten() + responseState.getStatus();
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.controller;
+
+import com.example.annotation.AnnotationController;
+import com.example.annotation.GetMethode;
+import com.example.annotation.PostMethode;
+import com.example.annotation.RESTapi;
+import com.example.annotation.RequestParam;
+import com.example.benchmarks.Order;
+
+/** Routes dispatched by {@code DispatchBenchmark} through the FrontController. */
+@AnnotationController("/bench")
+public class BenchController {
+
+    private final Order order = Order.sample(42, 20);
+
+    @GetMethode("/ping")
+    public String ping() {
+        return "pong";
+    }
+
+    @GetMethode("/orders/{id}")
+    @RESTapi
+    public Order order(@RequestParam("id") long id) {
+        return order;
+    }
+
+    @PostMethode("/orders")
+    @RESTapi
+    public Order create(Order order) {
+        return order;
+    }
+}
@@ -1,8 +1,8 @@
 @echo off
 setlocal EnableDelayedExpansion
 
-:: Définition de CATALINA_HOME et CATALINA_BASE
-set "CATALINA_HOME=C:\xampp\tomcat"
+:: Définition de CATALINA_HOME et CATALINA_BASE (la variable d'environnement est prioritaire)
+if not defined CATALINA_HOME set "CATALINA_HOME=C:\xampp\tomcat"
 set "CATALINA_BASE=%CATALINA_HOME%"
 
 :: Vérification de l'existence du répertoire Tomcat
@@ -18,6 +18,7 @@ set "SRC_DIR=.\src"
 set "WEBAPP_DIR=.\webapp"
 set "WAR_NAME=demo.war"
 set "JAVA_FILES_LIST=java_files.txt"
+set "PROCESSOR_DIR=.\build_processor"
 
 :: 1. Créer le dossier /build
 echo Suppression du répertoire %BUILD_DIR%...
@@ -47,14 +48,25 @@ for %%F in ("%JAVA_FILES_LIST%") do if %%~zF==0 (
     exit /b 1
 )
 
+echo Compilation du processeur d'annotations (index des routes)...
+if exist "%PROCESSOR_DIR%" rmdir /s /q "%PROCESSOR_DIR%"
+mkdir "%PROCESSOR_DIR%"
+javac -d "%PROCESSOR_DIR%" "%SRC_DIR%\main\java\com\example\processor\RouteIndexProcessor.java"
+if errorlevel 1 (
+    echo Erreur lors de la compilation du processeur d'annotations.
+    del "%JAVA_FILES_LIST%"
+    exit /b 1
+)
+
 echo Compilation des fichiers Java listés dans %JAVA_FILES_LIST%...
-javac -d "%BUILD_DIR%\WEB-INF\classes" -cp ".\lib\servlet-api.jar" @%JAVA_FILES_LIST%
+javac -parameters -encoding UTF-8 -d "%BUILD_DIR%\WEB-INF\classes" -cp ".\lib\servlet-api.jar" -processorpath "%PROCESSOR_DIR%" -processor com.example.processor.RouteIndexProcessor @%JAVA_FILES_LIST%
 if errorlevel 1 (
     echo Erreur lors de la compilation des fichiers Java.
     del "%JAVA_FILES_LIST%"
     exit /b 1
 )
 del "%JAVA_FILES_LIST%"
+rmdir /s /q "%PROCESSOR_DIR%"
 
 :: 4. Copier les fichiers de l'application web dans le build
 echo Copie des fichiers de l'application web...
@@ -0,0 +1,20 @@
+package com.example.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * Caches the rendered response of a GET handler. The key is the route, its path
+ * variables and the listed request parameters. Only 200 responses that set no
+ * cookie are stored.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Cacheable {
+    /** Seconds an entry stays fresh. */
+    long ttl() default 60;
+
+    int maxEntries() default 1000;
+
+    /** Request parameters that take part in the cache key. */
+    String[] params() default {};
+}
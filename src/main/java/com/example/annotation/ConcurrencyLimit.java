@@ -0,0 +1,34 @@
+package com.example.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * Caps the concurrent executions of a handler, or of all handlers of a
+ * controller together when placed on the class. Requests beyond the limit wait
+ * in a short bounded queue and are otherwise answered 503 with Retry-After.
+ * {@link EventStream} handlers are never limited: a stream would hold its
+ * permit for as long as the client stays connected.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface ConcurrencyLimit {
+    /** Maximum concurrent executions; the starting point when adaptive. */
+    int value();
+
+    /** Requests allowed to wait for a permit; 0 rejects as soon as the limit is reached. */
+    int queue() default 0;
+
+    /** Longest wait for a permit before rejecting. */
+    long maxWaitMs() default 50;
+
+    /** Seconds sent in Retry-After on rejection. */
+    int retryAfter() default 1;
+
+    /** Adjusts the limit from observed latency between minLimit and maxLimit. */
+    boolean adaptive() default false;
+
+    int minLimit() default 1;
+
+    /** Upper bound when adaptive; 0 means 4 x value. */
+    int maxLimit() default 0;
+}
@@ -0,0 +1,28 @@
+package com.example.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * Marks a @GetMethode handler as a Server-Sent Events endpoint. The handler
+ * receives an EventSink, typically subscribes it to an EventBroadcaster and
+ * returns; the connection stays open on Servlet async without holding a
+ * container thread.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface EventStream {
+
+    enum Overflow { DROP_OLDEST, DROP_NEWEST, DISCONNECT }
+
+    /** Events queued for a subscriber that is not keeping up. */
+    int queue() default 256;
+
+    /** What to do with a new event when the subscriber's queue is full. */
+    Overflow overflow() default Overflow.DROP_OLDEST;
+
+    /** Comment line sent after this long without events; 0 disables heartbeats. */
+    long heartbeatMs() default 15_000;
+
+    /** Closes the stream after this long; 0 keeps it open until the client leaves. */
+    long timeoutMs() default 0;
+}
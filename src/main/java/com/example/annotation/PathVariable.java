@@ -0,0 +1,14 @@
+package com.example.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * Binds a {name} segment of the route to the parameter, converted to its type
+ * (int, long, UUID, enums...). A value that does not convert answers 400.
+ * Without a value the parameter name is used, which needs -parameters.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.PARAMETER)
+public @interface PathVariable {
+    String value() default "";
+}
@@ -0,0 +1,419 @@
+package com.example.embedded;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.EventListener;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterRegistration;
+import javax.servlet.RequestDispatcher;
+import javax.servlet.Servlet;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletRegistration;
+import javax.servlet.SessionCookieConfig;
+import javax.servlet.SessionTrackingMode;
+import javax.servlet.descriptor.JspConfigDescriptor;
+
+import com.example.web.Log;
+
+/**
+ * ServletContext for a web application directory served by {@link EmbeddedServer}.
+ * Resources are plain files under that directory; the single servlet is the
+ * FrontController mapped to "/", and nothing can be registered at runtime.
+ */
+final class EmbeddedContext implements ServletContext {
+
+    private final File root;
+    private final String rootPath;
+    private final String contextPath;
+    private final Map<String, String> initParameters;
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+    private volatile Servlet servlet;
+    private int sessionTimeout = 30;
+    private String requestCharacterEncoding;
+    private String responseCharacterEncoding;
+
+    EmbeddedContext(File root, String contextPath, Map<String, String> initParameters) throws IOException {
+        this.root = root.getCanonicalFile();
+        this.rootPath = this.root.getPath();
+        this.contextPath = contextPath;
+        this.initParameters = initParameters;
+    }
+
+    void setServlet(Servlet servlet) {
+        this.servlet = servlet;
+    }
+
+    Servlet getServlet() {
+        return servlet;
+    }
+
+    /** The file behind a context-relative path, or null when the path leaves the web application. */
+    private File file(String path) {
+        if (path == null) return null;
+        File file = new File(root, path.startsWith("/") ? path.substring(1) : path);
+        try {
+            File canonical = file.getCanonicalFile();
+            String canonicalPath = canonical.getPath();
+            if (!canonicalPath.equals(rootPath) && !canonicalPath.startsWith(rootPath + File.separator)) return null;
+            return canonical;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public String getContextPath() {
+        return contextPath;
+    }
+
+    @Override
+    public String getRealPath(String path) {
+        File file = file(path);
+        return file == null ? null : file.getPath();
+    }
+
+    @Override
+    public URL getResource(String path) throws MalformedURLException {
+        File file = file(path);
+        return file == null || !file.exists() ? null : file.toURI().toURL();
+    }
+
+    @Override
+    public InputStream getResourceAsStream(String path) {
+        File file = file(path);
+        if (file == null || !file.isFile()) return null;
+        try {
+            return new FileInputStream(file);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public Set<String> getResourcePaths(String path) {
+        File dir = file(path);
+        File[] children = dir == null ? null : dir.listFiles();
+        if (children == null) return null;
+        String prefix = path.endsWith("/") ? path : path + "/";
+        Set<String> paths = new LinkedHashSet<>();
+        for (File child : children) {
+            paths.add(prefix + child.getName() + (child.isDirectory() ? "/" : ""));
+        }
+        return paths;
+    }
+
+    @Override
+    public String getMimeType(String file) {
+        String name = file.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".css")) return "text/css";
+        if (name.endsWith(".js") || name.endsWith(".mjs")) return "text/javascript";
+        if (name.endsWith(".json")) return "application/json";
+        if (name.endsWith(".svg")) return "image/svg+xml";
+        if (name.endsWith(".woff2")) return "font/woff2";
+        if (name.endsWith(".woff")) return "font/woff";
+        if (name.endsWith(".wasm")) return "application/wasm";
+        return URLConnection.getFileNameMap().getContentTypeFor(name);
+    }
+
+    @Override
+    public RequestDispatcher getRequestDispatcher(String path) {
+        return path == null || !path.startsWith("/") ? null : new EmbeddedDispatcher(this, path);
+    }
+
+    @Override
+    public RequestDispatcher getNamedDispatcher(String name) {
+        return null;
+    }
+
+    @Override
+    public ServletContext getContext(String uripath) {
+        return uripath != null && uripath.startsWith(contextPath) ? this : null;
+    }
+
+    // --------------------------------------------------------------------
+    // Parameters and attributes
+    // --------------------------------------------------------------------
+
+    @Override
+    public String getInitParameter(String name) {
+        return initParameters.get(name);
+    }
+
+    @Override
+    public Enumeration<String> getInitParameterNames() {
+        return Collections.enumeration(initParameters.keySet());
+    }
+
+    @Override
+    public boolean setInitParameter(String name, String value) {
+        return initParameters.putIfAbsent(name, value) == null;
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+        return Collections.enumeration(attributes.keySet());
+    }
+
+    @Override
+    public void setAttribute(String name, Object object) {
+        if (object == null) {
+            attributes.remove(name);
+        } else {
+            attributes.put(name, object);
+        }
+    }
+
+    @Override
+    public void removeAttribute(String name) {
+        attributes.remove(name);
+    }
+
+    // --------------------------------------------------------------------
+    // Server information and logging
+    // --------------------------------------------------------------------
+
+    @Override
+    public int getMajorVersion() {
+        return 4;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return 0;
+    }
+
+    @Override
+    public int getEffectiveMajorVersion() {
+        return 4;
+    }
+
+    @Override
+    public int getEffectiveMinorVersion() {
+        return 0;
+    }
+
+    @Override
+    public String getServerInfo() {
+        return "framework-embedded/1.0 (JDK HttpServer)";
+    }
+
+    @Override
+    public String getServletContextName() {
+        return root.getName();
+    }
+
+    @Override
+    public String getVirtualServerName() {
+        return "localhost";
+    }
+
+    @Override
+    public ClassLoader getClassLoader() {
+        return Thread.currentThread().getContextClassLoader();
+    }
+
+    @Override
+    public void log(String msg) {
+        Log.info(msg);
+    }
+
+    @Override
+    @Deprecated
+    public void log(Exception exception, String msg) {
+        Log.error(msg, exception);
+    }
+
+    @Override
+    public void log(String message, Throwable throwable) {
+        Log.error(message, throwable);
+    }
+
+    @Override
+    @Deprecated
+    public Servlet getServlet(String name) {
+        return null;
+    }
+
+    @Override
+    @Deprecated
+    public Enumeration<Servlet> getServlets() {
+        return Collections.emptyEnumeration();
+    }
+
+    @Override
+    @Deprecated
+    public Enumeration<String> getServletNames() {
+        return Collections.emptyEnumeration();
+    }
+
+    @Override
+    public int getSessionTimeout() {
+        return sessionTimeout;
+    }
+
+    @Override
+    public void setSessionTimeout(int sessionTimeout) {
+        this.sessionTimeout = sessionTimeout;
+    }
+
+    @Override
+    public String getRequestCharacterEncoding() {
+        return requestCharacterEncoding;
+    }
+
+    @Override
+    public void setRequestCharacterEncoding(String encoding) {
+        requestCharacterEncoding = encoding;
+    }
+
+    @Override
+    public String getResponseCharacterEncoding() {
+        return responseCharacterEncoding;
+    }
+
+    @Override
+    public void setResponseCharacterEncoding(String encoding) {
+        responseCharacterEncoding = encoding;
+    }
+
+    // --------------------------------------------------------------------
+    // Programmatic registration is not supported
+    // --------------------------------------------------------------------
+
+    private static UnsupportedOperationException unsupported() {
+        return new UnsupportedOperationException("Registration is not available in embedded mode");
+    }
+
+    @Override
+    public ServletRegistration.Dynamic addServlet(String servletName, String className) {
+        throw unsupported();
+    }
+
+    @Override
+    public ServletRegistration.Dynamic addServlet(String servletName, Servlet servlet) {
+        throw unsupported();
+    }
+
+    @Override
+    public ServletRegistration.Dynamic addServlet(String servletName, Class<? extends Servlet> servletClass) {
+        throw unsupported();
+    }
+
+    @Override
+    public ServletRegistration.Dynamic addJspFile(String servletName, String jspFile) {
+        throw unsupported();
+    }
+
+    @Override
+    public <T extends Servlet> T createServlet(Class<T> clazz) {
+        throw unsupported();
+    }
+
+    @Override
+    public ServletRegistration getServletRegistration(String servletName) {
+        return null;
+    }
+
+    @Override
+    public Map<String, ? extends ServletRegistration> getServletRegistrations() {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public FilterRegistration.Dynamic addFilter(String filterName, String className) {
+        throw unsupported();
+    }
+
+    @Override
+    public FilterRegistration.Dynamic addFilter(String filterName, Filter filter) {
+        throw unsupported();
+    }
+
+    @Override
+    public FilterRegistration.Dynamic addFilter(String filterName, Class<? extends Filter> filterClass) {
+        throw unsupported();
+    }
+
+    @Override
+    public <T extends Filter> T createFilter(Class<T> clazz) {
+        throw unsupported();
+    }
+
+    @Override
+    public FilterRegistration getFilterRegistration(String filterName) {
+        return null;
+    }
+
+    @Override
+    public Map<String, ? extends FilterRegistration> getFilterRegistrations() {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public SessionCookieConfig getSessionCookieConfig() {
+        return null;
+    }
+
+    @Override
+    public void setSessionTrackingModes(Set<SessionTrackingMode> sessionTrackingModes) {
+        throw unsupported();
+    }
+
+    @Override
+    public Set<SessionTrackingMode> getDefaultSessionTrackingModes() {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public Set<SessionTrackingMode> getEffectiveSessionTrackingModes() {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public void addListener(String className) {
+        throw unsupported();
+    }
+
+    @Override
+    public <T extends EventListener> void addListener(T t) {
+        throw unsupported();
+    }
+
+    @Override
+    public void addListener(Class<? extends EventListener> listenerClass) {
+        throw unsupported();
+    }
+
+    @Override
+    public <T extends EventListener> T createListener(Class<T> clazz) {
+        throw unsupported();
+    }
+
+    @Override
+    public JspConfigDescriptor getJspConfigDescriptor() {
+        return null;
+    }
+
+    @Override
+    public void declareRoles(String... roleNames) {
+        throw unsupported();
+    }
+}
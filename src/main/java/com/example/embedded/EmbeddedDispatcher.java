@@ -0,0 +1,106 @@
+package com.example.embedded;
+
+import java.io.IOException;
+import java.util.Locale;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.RequestDispatcher;
+import javax.servlet.Servlet;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Forwards and includes by running the FrontController again with the target
+ * path, as a container does for a servlet mapped to "/". JSP targets cannot be
+ * compiled here and answer 501.
+ */
+final class EmbeddedDispatcher implements RequestDispatcher {
+
+    private final EmbeddedContext context;
+    private final String path;
+    private final String queryString;
+
+    EmbeddedDispatcher(EmbeddedContext context, String target) {
+        this.context = context;
+        int query = target.indexOf('?');
+        this.path = query < 0 ? target : target.substring(0, query);
+        this.queryString = query < 0 ? null : target.substring(query + 1);
+    }
+
+    @Override
+    public void forward(ServletRequest request, ServletResponse response) throws ServletException, IOException {
+        response.resetBuffer();
+        HttpServletRequest http = (HttpServletRequest) request;
+        Dispatched target = new Dispatched(http, DispatcherType.FORWARD);
+        if (http.getAttribute(FORWARD_REQUEST_URI) == null) {
+            target.setAttribute(FORWARD_REQUEST_URI, http.getRequestURI());
+            target.setAttribute(FORWARD_CONTEXT_PATH, http.getContextPath());
+            target.setAttribute(FORWARD_SERVLET_PATH, http.getServletPath());
+            target.setAttribute(FORWARD_QUERY_STRING, http.getQueryString());
+        }
+        dispatch(target, response);
+    }
+
+    @Override
+    public void include(ServletRequest request, ServletResponse response) throws ServletException, IOException {
+        Dispatched target = new Dispatched((HttpServletRequest) request, DispatcherType.INCLUDE);
+        target.setAttribute(INCLUDE_REQUEST_URI, context.getContextPath() + path);
+        target.setAttribute(INCLUDE_CONTEXT_PATH, context.getContextPath());
+        target.setAttribute(INCLUDE_SERVLET_PATH, path);
+        target.setAttribute(INCLUDE_QUERY_STRING, queryString);
+        dispatch(target, response);
+    }
+
+    private void dispatch(HttpServletRequest request, ServletResponse response) throws ServletException, IOException {
+        String lower = path.toLowerCase(Locale.ROOT);
+        if (lower.endsWith(".jsp") || lower.endsWith(".jspx")) {
+            ((HttpServletResponse) response).sendError(HttpServletResponse.SC_NOT_IMPLEMENTED,
+                    "JSP views need a servlet container: " + path);
+            return;
+        }
+        Servlet servlet = context.getServlet();
+        if (servlet == null) throw new ServletException("No servlet to dispatch " + path + " to");
+        servlet.service(request, response);
+    }
+
+    private final class Dispatched extends HttpServletRequestWrapper {
+        private final DispatcherType type;
+
+        Dispatched(HttpServletRequest request, DispatcherType type) {
+            super(request);
+            this.type = type;
+        }
+
+        @Override
+        public DispatcherType getDispatcherType() {
+            return type;
+        }
+
+        @Override
+        public String getRequestURI() {
+            return type == DispatcherType.FORWARD ? context.getContextPath() + path : super.getRequestURI();
+        }
+
+        @Override
+        public StringBuffer getRequestURL() {
+            if (type != DispatcherType.FORWARD) return super.getRequestURL();
+            StringBuffer url = super.getRequestURL();
+            url.setLength(url.length() - super.getRequestURI().length());
+            return url.append(getRequestURI());
+        }
+
+        @Override
+        public String getServletPath() {
+            return type == DispatcherType.FORWARD ? path : super.getServletPath();
+        }
+
+        @Override
+        public String getQueryString() {
+            return type == DispatcherType.FORWARD && queryString != null ? queryString : super.getQueryString();
+        }
+    }
+}
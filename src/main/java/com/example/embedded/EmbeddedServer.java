@@ -0,0 +1,181 @@
+package com.example.embedded;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletResponse;
+
+import com.example.web.AsyncExecutors;
+import com.example.web.FrameworkConfig;
+import com.example.web.FrontController;
+import com.example.web.Log;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Runs the FrontController on the JDK's built-in HTTP server, without a servlet
+ * container:
+ * <pre>
+ * java -cp target/classes:lib/servlet-api.jar com.example.embedded.EmbeddedServer \
+ *      embedded.port=8080 embedded.executor=virtual metrics.enabled=true
+ * </pre>
+ * Every key=value argument (or --key=value) is passed to the framework as an
+ * init-param, so the usual settings apply. There is no async support, no
+ * sessions and no JSP: async handlers complete on the request thread and
+ * event streams answer 501.
+ */
+public class EmbeddedServer {
+
+    public static final String PORT = "embedded.port";
+    public static final String WEBAPP = "embedded.webapp";
+    public static final String CONTEXT_PATH = "embedded.contextPath";
+    public static final String EXECUTOR = "embedded.executor";
+    public static final String THREADS = "embedded.threads";
+    public static final String MAX_REQUEST_SIZE = "embedded.maxRequestSize";
+    public static final String TCP_NO_DELAY = "embedded.tcpNoDelay";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final FrontController servlet;
+    private final EmbeddedContext context;
+    private final long maxRequestSize;
+
+    private EmbeddedServer(HttpServer server, ExecutorService executor, FrontController servlet,
+                           EmbeddedContext context, long maxRequestSize) {
+        this.server = server;
+        this.executor = executor;
+        this.servlet = servlet;
+        this.context = context;
+        this.maxRequestSize = maxRequestSize;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> settings = new LinkedHashMap<>();
+        for (String arg : args) {
+            String setting = arg.startsWith("--") ? arg.substring(2) : arg;
+            int eq = setting.indexOf('=');
+            if (eq <= 0) throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            settings.put(setting.substring(0, eq), setting.substring(eq + 1));
+        }
+        EmbeddedServer server = start(settings);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop, "embedded-shutdown"));
+    }
+
+    /** Initializes the FrontController with the given settings and starts listening. */
+    public static EmbeddedServer start(Map<String, String> settings) throws IOException, ServletException {
+        long begin = System.nanoTime();
+        FrameworkConfig config = new FrameworkConfig(settings);
+        String contextPath = config.get(CONTEXT_PATH, "");
+        if (contextPath.equals("/")) contextPath = "";
+        if (!contextPath.isEmpty() && !contextPath.startsWith("/")) contextPath = "/" + contextPath;
+
+        EmbeddedContext context = new EmbeddedContext(new File(config.get(WEBAPP, "src/main/webapp")),
+                contextPath, new LinkedHashMap<>(settings));
+        FrontController servlet = new FrontController();
+        context.setServlet(servlet);
+        servlet.init(servletConfig(context));
+
+        // HttpServer writes headers and body separately; with Nagle's algorithm on,
+        // each keep-alive response then waits for the client's delayed ACK (~40 ms).
+        // The JDK reads this property once, so it must be set before the first server.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay",
+                    Boolean.toString(config.getBoolean(TCP_NO_DELAY, true)));
+        }
+
+        ExecutorService executor = executor(config);
+        HttpServer http = HttpServer.create(new InetSocketAddress(config.getInt(PORT, 8080)), 0);
+        http.setExecutor(executor);
+        EmbeddedServer server = new EmbeddedServer(http, executor, servlet, context,
+                config.getLong(MAX_REQUEST_SIZE, 64L * 1024 * 1024));
+        http.createContext(contextPath.isEmpty() ? "/" : contextPath, server::handle);
+        http.start();
+
+        Log.info("Embedded server listening on port " + server.getPort() + " (context \"" + contextPath
+                + "\") after " + (System.nanoTime() - begin) / 1_000_000 + " ms");
+        return server;
+    }
+
+    private static ServletConfig servletConfig(EmbeddedContext context) {
+        return new ServletConfig() {
+            @Override
+            public String getServletName() {
+                return "FrontController";
+            }
+
+            @Override
+            public ServletContext getServletContext() {
+                return context;
+            }
+
+            @Override
+            public String getInitParameter(String name) {
+                return null;
+            }
+
+            @Override
+            public Enumeration<String> getInitParameterNames() {
+                return Collections.emptyEnumeration();
+            }
+        };
+    }
+
+    /** A virtual thread per exchange with embedded.executor=virtual (JDK 21+), otherwise a fixed pool. */
+    private static ExecutorService executor(FrameworkConfig config) {
+        if ("virtual".equalsIgnoreCase(config.get(EXECUTOR, "fixed"))) {
+            ExecutorService virtual = AsyncExecutors.virtualThreads();
+            if (virtual != null) return virtual;
+            Log.warn("Virtual threads need JDK 21+; falling back to a fixed pool.");
+        }
+        return Executors.newFixedThreadPool(Math.max(1, config.getInt(THREADS, 200)),
+                AsyncExecutors.daemonThreads("http-"));
+    }
+
+    private void handle(HttpExchange exchange) {
+        ExchangeRequest request = new ExchangeRequest(exchange, context, maxRequestSize);
+        ExchangeResponse response = new ExchangeResponse(exchange, request.isHead());
+        try {
+            servlet.service((ServletRequest) request, (ServletResponse) response);
+        } catch (Throwable e) {
+            Log.error("Request failed: " + exchange.getRequestMethod() + " " + exchange.getRequestURI(), e);
+            if (!response.isCommitted()) {
+                try {
+                    response.reset();
+                    response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                } catch (IOException | IllegalStateException ignored) {
+                    // the client is gone
+                }
+            }
+        } finally {
+            try {
+                response.finish();
+            } catch (IOException ignored) {
+                // the client is gone
+            }
+            exchange.close();
+        }
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /** Stops accepting requests, gives running ones a second to finish and destroys the servlet. */
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+        servlet.destroy();
+    }
+}
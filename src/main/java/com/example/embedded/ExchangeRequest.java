@@ -0,0 +1,641 @@
+package com.example.embedded;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.DispatcherType;
+import javax.servlet.ReadListener;
+import javax.servlet.RequestDispatcher;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import javax.servlet.http.HttpUpgradeHandler;
+import javax.servlet.http.Part;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpsExchange;
+
+/**
+ * HttpServletRequest over an HttpExchange. Parameters come from the query
+ * string and, for POST forms and multipart requests, from the body, decoded on
+ * first use. There are no sessions and no async support, so the framework
+ * falls back to completing async handlers on the request thread.
+ */
+final class ExchangeRequest implements HttpServletRequest {
+
+    private final HttpExchange exchange;
+    private final EmbeddedContext context;
+    private final long maxBodySize;
+    private final String requestUri;
+    private final String queryString;
+    private final Map<String, Object> attributes = new HashMap<>();
+    private Map<String, String[]> parameters;
+    private List<Part> parts;
+    private String characterEncoding;
+    private ServletInputStream input;
+    private BufferedReader reader;
+    private boolean bodyConsumed;
+
+    ExchangeRequest(HttpExchange exchange, EmbeddedContext context, long maxBodySize) {
+        this.exchange = exchange;
+        this.context = context;
+        this.maxBodySize = maxBodySize;
+        this.requestUri = exchange.getRequestURI().getRawPath();
+        this.queryString = exchange.getRequestURI().getRawQuery();
+    }
+
+    boolean isHead() {
+        return "HEAD".equalsIgnoreCase(exchange.getRequestMethod());
+    }
+
+    // --------------------------------------------------------------------
+    // Request line and paths
+    // --------------------------------------------------------------------
+
+    @Override
+    public String getMethod() {
+        return exchange.getRequestMethod();
+    }
+
+    @Override
+    public String getRequestURI() {
+        return requestUri;
+    }
+
+    @Override
+    public StringBuffer getRequestURL() {
+        StringBuffer url = new StringBuffer(getScheme()).append("://").append(getServerName());
+        int port = getServerPort();
+        if (port != (isSecure() ? 443 : 80)) url.append(':').append(port);
+        return url.append(requestUri);
+    }
+
+    @Override
+    public String getQueryString() {
+        return queryString;
+    }
+
+    @Override
+    public String getContextPath() {
+        return context.getContextPath();
+    }
+
+    /** The servlet is mapped to "/", so the servlet path is everything after the context path. */
+    @Override
+    public String getServletPath() {
+        return decode(requestUri.substring(Math.min(requestUri.length(), getContextPath().length())),
+                StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String getPathInfo() {
+        return null;
+    }
+
+    @Override
+    public String getPathTranslated() {
+        return null;
+    }
+
+    @Override
+    public String getProtocol() {
+        return exchange.getProtocol();
+    }
+
+    @Override
+    public String getScheme() {
+        return isSecure() ? "https" : "http";
+    }
+
+    @Override
+    public boolean isSecure() {
+        return exchange instanceof HttpsExchange;
+    }
+
+    @Override
+    public String getServerName() {
+        String host = getHeader("Host");
+        if (host == null) return exchange.getLocalAddress().getHostString();
+        int colon = host.lastIndexOf(':');
+        return colon > host.lastIndexOf(']') ? host.substring(0, colon) : host;
+    }
+
+    @Override
+    public int getServerPort() {
+        String host = getHeader("Host");
+        int colon = host == null ? -1 : host.lastIndexOf(':');
+        if (colon > host.lastIndexOf(']')) {
+            try {
+                return Integer.parseInt(host.substring(colon + 1));
+            } catch (NumberFormatException ignored) {
+                // fall back to the local port
+            }
+        }
+        return exchange.getLocalAddress().getPort();
+    }
+
+    @Override
+    public String getRemoteAddr() {
+        InetSocketAddress remote = exchange.getRemoteAddress();
+        return remote.getAddress() == null ? remote.getHostString() : remote.getAddress().getHostAddress();
+    }
+
+    @Override
+    public String getRemoteHost() {
+        return getRemoteAddr();
+    }
+
+    @Override
+    public int getRemotePort() {
+        return exchange.getRemoteAddress().getPort();
+    }
+
+    @Override
+    public String getLocalName() {
+        return exchange.getLocalAddress().getHostString();
+    }
+
+    @Override
+    public String getLocalAddr() {
+        InetSocketAddress local = exchange.getLocalAddress();
+        return local.getAddress() == null ? local.getHostString() : local.getAddress().getHostAddress();
+    }
+
+    @Override
+    public int getLocalPort() {
+        return exchange.getLocalAddress().getPort();
+    }
+
+    // --------------------------------------------------------------------
+    // Headers
+    // --------------------------------------------------------------------
+
+    @Override
+    public String getHeader(String name) {
+        return exchange.getRequestHeaders().getFirst(name);
+    }
+
+    @Override
+    public Enumeration<String> getHeaders(String name) {
+        List<String> values = exchange.getRequestHeaders().get(name);
+        return Collections.enumeration(values == null ? Collections.emptyList() : values);
+    }
+
+    @Override
+    public Enumeration<String> getHeaderNames() {
+        return Collections.enumeration(exchange.getRequestHeaders().keySet());
+    }
+
+    @Override
+    public int getIntHeader(String name) {
+        String value = getHeader(name);
+        return value == null ? -1 : Integer.parseInt(value.trim());
+    }
+
+    @Override
+    public long getDateHeader(String name) {
+        String value = getHeader(name);
+        if (value == null) return -1;
+        try {
+            return ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Not a date header: " + name);
+        }
+    }
+
+    @Override
+    public Cookie[] getCookies() {
+        List<Cookie> cookies = new ArrayList<>();
+        for (String header : exchange.getRequestHeaders().getOrDefault("Cookie", Collections.emptyList())) {
+            for (String pair : header.split(";")) {
+                int eq = pair.indexOf('=');
+                if (eq <= 0) continue;
+                try {
+                    cookies.add(new Cookie(pair.substring(0, eq).trim(), pair.substring(eq + 1).trim()));
+                } catch (IllegalArgumentException ignored) {
+                    // not a valid cookie name
+                }
+            }
+        }
+        return cookies.isEmpty() ? null : cookies.toArray(new Cookie[0]);
+    }
+
+    @Override
+    public Locale getLocale() {
+        return getLocales().nextElement();
+    }
+
+    @Override
+    public Enumeration<Locale> getLocales() {
+        String header = getHeader("Accept-Language");
+        List<Locale> locales = new ArrayList<>();
+        if (header != null) {
+            for (Locale.LanguageRange range : Locale.LanguageRange.parse(header)) {
+                if (!range.getRange().equals("*")) locales.add(Locale.forLanguageTag(range.getRange()));
+            }
+        }
+        if (locales.isEmpty()) locales.add(Locale.getDefault());
+        return Collections.enumeration(locales);
+    }
+
+    // --------------------------------------------------------------------
+    // Body and parameters
+    // --------------------------------------------------------------------
+
+    @Override
+    public String getContentType() {
+        return getHeader("Content-Type");
+    }
+
+    @Override
+    public int getContentLength() {
+        long length = getContentLengthLong();
+        return length > Integer.MAX_VALUE ? -1 : (int) length;
+    }
+
+    @Override
+    public long getContentLengthLong() {
+        String value = getHeader("Content-Length");
+        if (value == null) return -1;
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    @Override
+    public String getCharacterEncoding() {
+        if (characterEncoding != null) return characterEncoding;
+        String type = getContentType();
+        if (type == null) return null;
+        int charset = type.toLowerCase(Locale.ROOT).indexOf("charset=");
+        if (charset < 0) return null;
+        String value = type.substring(charset + 8);
+        int end = value.indexOf(';');
+        return (end >= 0 ? value.substring(0, end) : value).replace("\"", "").trim();
+    }
+
+    @Override
+    public void setCharacterEncoding(String env) throws UnsupportedEncodingException {
+        if (!Charset.isSupported(env)) throw new UnsupportedEncodingException(env);
+        characterEncoding = env;
+    }
+
+    private Charset charset() {
+        String encoding = getCharacterEncoding();
+        return encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding);
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+        if (reader != null) throw new IllegalStateException("getReader() has already been called");
+        if (input == null) {
+            InputStream body = bodyConsumed ? new ByteArrayInputStream(new byte[0]) : exchange.getRequestBody();
+            input = new ServletInputStream() {
+                private boolean finished;
+
+                @Override
+                public int read() throws IOException {
+                    int b = body.read();
+                    if (b < 0) finished = true;
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    int n = body.read(b, off, len);
+                    if (n < 0) finished = true;
+                    return n;
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return finished;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new IllegalStateException("Non-blocking input needs a servlet container");
+                }
+            };
+        }
+        return input;
+    }
+
+    @Override
+    public BufferedReader getReader() {
+        if (reader == null) {
+            if (input != null) throw new IllegalStateException("getInputStream() has already been called");
+            reader = new BufferedReader(new InputStreamReader(getInputStreamUnchecked(), charset()));
+        }
+        return reader;
+    }
+
+    private ServletInputStream getInputStreamUnchecked() {
+        ServletInputStream stream = getInputStream();
+        input = null;
+        return stream;
+    }
+
+    /** The whole body, refused beyond the configured limit. */
+    private byte[] readBody() throws IOException {
+        bodyConsumed = true;
+        byte[] body = exchange.getRequestBody().readNBytes((int) Math.min(Integer.MAX_VALUE - 8, maxBodySize + 1));
+        if (body.length > maxBodySize) {
+            throw new IllegalStateException("Request body exceeds " + maxBodySize + " bytes");
+        }
+        return body;
+    }
+
+    private boolean hasContentType(String type) {
+        String contentType = getContentType();
+        return contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith(type);
+    }
+
+    private Map<String, String[]> parameters() {
+        if (parameters != null) return parameters;
+        Map<String, List<String>> values = new LinkedHashMap<>();
+        Charset charset = charset();
+        parseQuery(queryString, charset, values);
+        try {
+            if ("POST".equalsIgnoreCase(getMethod()) && !bodyConsumed && input == null && reader == null
+                    && hasContentType("application/x-www-form-urlencoded")) {
+                parseQuery(new String(readBody(), StandardCharsets.ISO_8859_1), charset, values);
+            } else if (hasContentType("multipart/form-data")) {
+                for (Part part : getParts()) {
+                    if (part.getSubmittedFileName() != null) continue;
+                    values.computeIfAbsent(part.getName(), k -> new ArrayList<>())
+                            .add(new String(((MultipartBody.BodyPart) part).getContent(), charset));
+                }
+            }
+        } catch (IOException | ServletException e) {
+            throw new IllegalStateException("Cannot read the request parameters", e);
+        }
+
+        Map<String, String[]> map = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> entry : values.entrySet()) {
+            map.put(entry.getKey(), entry.getValue().toArray(new String[0]));
+        }
+        parameters = Collections.unmodifiableMap(map);
+        return parameters;
+    }
+
+    private static void parseQuery(String query, Charset charset, Map<String, List<String>> values) {
+        if (query == null || query.isEmpty()) return;
+        for (String pair : query.split("&")) {
+            if (pair.isEmpty()) continue;
+            int eq = pair.indexOf('=');
+            String name = decode(eq < 0 ? pair : pair.substring(0, eq), charset);
+            String value = eq < 0 ? "" : decode(pair.substring(eq + 1), charset);
+            values.computeIfAbsent(name, k -> new ArrayList<>()).add(value);
+        }
+    }
+
+    private static String decode(String text, Charset charset) {
+        try {
+            return URLDecoder.decode(text, charset);
+        } catch (IllegalArgumentException e) {
+            return text;
+        }
+    }
+
+    @Override
+    public String getParameter(String name) {
+        String[] values = parameters().get(name);
+        return values == null || values.length == 0 ? null : values[0];
+    }
+
+    @Override
+    public Enumeration<String> getParameterNames() {
+        return Collections.enumeration(parameters().keySet());
+    }
+
+    @Override
+    public String[] getParameterValues(String name) {
+        String[] values = parameters().get(name);
+        return values == null ? null : values.clone();
+    }
+
+    @Override
+    public Map<String, String[]> getParameterMap() {
+        return parameters();
+    }
+
+    @Override
+    public Collection<Part> getParts() throws IOException, ServletException {
+        if (parts != null) return parts;
+        String contentType = getContentType();
+        if (!hasContentType("multipart/form-data")) throw new ServletException("Not a multipart/form-data request");
+        String boundary = MultipartBody.boundary(contentType);
+        if (boundary == null) throw new ServletException("Multipart request without a boundary");
+        if (bodyConsumed || input != null || reader != null) throw new IllegalStateException("Body already read");
+        parts = Collections.unmodifiableList(MultipartBody.parse(readBody(), boundary));
+        return parts;
+    }
+
+    @Override
+    public Part getPart(String name) throws IOException, ServletException {
+        for (Part part : getParts()) {
+            if (part.getName().equals(name)) return part;
+        }
+        return null;
+    }
+
+    // --------------------------------------------------------------------
+    // Attributes and dispatch
+    // --------------------------------------------------------------------
+
+    @Override
+    public Object getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+        return Collections.enumeration(new ArrayList<>(attributes.keySet()));
+    }
+
+    @Override
+    public void setAttribute(String name, Object o) {
+        if (o == null) {
+            attributes.remove(name);
+        } else {
+            attributes.put(name, o);
+        }
+    }
+
+    @Override
+    public void removeAttribute(String name) {
+        attributes.remove(name);
+    }
+
+    @Override
+    public RequestDispatcher getRequestDispatcher(String path) {
+        if (path == null) return null;
+        if (!path.startsWith("/")) {
+            String current = getServletPath();
+            path = current.substring(0, current.lastIndexOf('/') + 1) + path;
+        }
+        return context.getRequestDispatcher(path);
+    }
+
+    @Override
+    public ServletContext getServletContext() {
+        return context;
+    }
+
+    @Override
+    public DispatcherType getDispatcherType() {
+        return DispatcherType.REQUEST;
+    }
+
+    @Override
+    @Deprecated
+    public String getRealPath(String path) {
+        return context.getRealPath(path);
+    }
+
+    // --------------------------------------------------------------------
+    // Not available without a container
+    // --------------------------------------------------------------------
+
+    @Override
+    public boolean isAsyncSupported() {
+        return false;
+    }
+
+    @Override
+    public boolean isAsyncStarted() {
+        return false;
+    }
+
+    @Override
+    public AsyncContext startAsync() {
+        throw new IllegalStateException("Async requests need a servlet container");
+    }
+
+    @Override
+    public AsyncContext startAsync(ServletRequest servletRequest, ServletResponse servletResponse) {
+        throw new IllegalStateException("Async requests need a servlet container");
+    }
+
+    @Override
+    public AsyncContext getAsyncContext() {
+        throw new IllegalStateException("Async requests need a servlet container");
+    }
+
+    @Override
+    public HttpSession getSession(boolean create) {
+        if (create) throw new UnsupportedOperationException("Sessions are not available in embedded mode");
+        return null;
+    }
+
+    @Override
+    public HttpSession getSession() {
+        return getSession(true);
+    }
+
+    @Override
+    public String changeSessionId() {
+        throw new IllegalStateException("No session");
+    }
+
+    @Override
+    public String getRequestedSessionId() {
+        return null;
+    }
+
+    @Override
+    public boolean isRequestedSessionIdValid() {
+        return false;
+    }
+
+    @Override
+    public boolean isRequestedSessionIdFromCookie() {
+        return false;
+    }
+
+    @Override
+    public boolean isRequestedSessionIdFromURL() {
+        return false;
+    }
+
+    @Override
+    @Deprecated
+    public boolean isRequestedSessionIdFromUrl() {
+        return false;
+    }
+
+    @Override
+    public String getAuthType() {
+        return null;
+    }
+
+    @Override
+    public String getRemoteUser() {
+        return null;
+    }
+
+    @Override
+    public boolean isUserInRole(String role) {
+        return false;
+    }
+
+    @Override
+    public Principal getUserPrincipal() {
+        return null;
+    }
+
+    @Override
+    public boolean authenticate(HttpServletResponse response) {
+        return false;
+    }
+
+    @Override
+    public void login(String username, String password) throws ServletException {
+        throw new ServletException("Authentication is not available in embedded mode");
+    }
+
+    @Override
+    public void logout() {
+    }
+
+    @Override
+    public <T extends HttpUpgradeHandler> T upgrade(Class<T> handlerClass) throws ServletException {
+        throw new ServletException("Protocol upgrade is not available in embedded mode");
+    }
+}
@@ -0,0 +1,497 @@
+package com.example.embedded;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+
+/**
+ * HttpServletResponse over an HttpExchange. Output is held in a buffer until it
+ * overflows or is flushed, so small responses go out with an exact
+ * Content-Length and larger ones chunked, as in a servlet container.
+ */
+final class ExchangeResponse implements HttpServletResponse {
+
+    private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter.RFC_1123_DATE_TIME.withZone(ZoneOffset.UTC);
+
+    private final HttpExchange exchange;
+    private final boolean head;
+    private final Headers headers;
+    private final BufferedOutput output = new BufferedOutput();
+    private int status = SC_OK;
+    private String contentType;
+    private String characterEncoding;
+    private long contentLength = -1;
+    private Locale locale = Locale.getDefault();
+    private PrintWriter writer;
+    private ResponseWriter chars;
+    private boolean streamUsed;
+    private boolean committed;
+    private boolean suspended;
+
+    ExchangeResponse(HttpExchange exchange, boolean head) {
+        this.exchange = exchange;
+        this.head = head;
+        this.headers = exchange.getResponseHeaders();
+    }
+
+    /** Sends whatever is still buffered and ends the exchange's body. */
+    void finish() throws IOException {
+        try {
+            if (chars != null) chars.encode();
+            output.close();
+        } finally {
+            exchange.getResponseBody().close();
+        }
+    }
+
+    private final class BufferedOutput extends ServletOutputStream {
+        private byte[] buffer = new byte[8192];
+        private int count;
+        private OutputStream body;
+        private boolean noBody;
+        private boolean closed;
+
+        @Override
+        public void write(int b) throws IOException {
+            if (suspended || closed) return;
+            if (count == buffer.length) commit(false);
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (suspended || closed) return;
+            if (len <= buffer.length - count) {
+                System.arraycopy(b, off, buffer, count, len);
+                count += len;
+                return;
+            }
+            commit(false);
+            if (len < buffer.length) {
+                System.arraycopy(b, off, buffer, 0, len);
+                count = len;
+            } else if (!noBody) {
+                body.write(b, off, len);
+            }
+        }
+
+        /** Sends the headers on first use, then whatever is buffered. */
+        void commit(boolean complete) throws IOException {
+            if (!committed) {
+                committed = true;
+                if (contentType != null) headers.set("Content-Type", contentTypeHeader());
+
+                long length;
+                if (head || status == SC_NO_CONTENT || status == SC_NOT_MODIFIED || status < 200) {
+                    length = -1;
+                } else if (complete) {
+                    length = count == 0 ? -1 : count;
+                } else {
+                    length = contentLength >= 0 ? contentLength : 0;
+                }
+                exchange.sendResponseHeaders(status, length);
+                body = exchange.getResponseBody();
+                noBody = length == -1;
+            }
+            if (count > 0 && !noBody) body.write(buffer, 0, count);
+            count = 0;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (closed) return;
+            commit(false);
+            body.flush();
+        }
+
+        /** Closing completes the response, so a body written in one go keeps its exact length. */
+        @Override
+        public void close() throws IOException {
+            if (closed) return;
+            commit(true);
+            closed = true;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener listener) {
+            throw new IllegalStateException("Non-blocking output needs a servlet container");
+        }
+    }
+
+    /**
+     * The getWriter() target. Encoded bytes go into the response buffer; only an
+     * explicit flush commits, unlike an OutputStreamWriter, whose flush and close
+     * would always flush the stream and force a chunked response.
+     */
+    private final class ResponseWriter extends Writer {
+        private final OutputStreamWriter encoder;
+
+        ResponseWriter(Charset charset) {
+            encoder = new OutputStreamWriter(new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    output.write(b);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    output.write(b, off, len);
+                }
+            }, charset);
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            encoder.write(cbuf, off, len);
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            encoder.write(str, off, len);
+        }
+
+        /** Moves pending characters into the response buffer without committing. */
+        void encode() throws IOException {
+            encoder.flush();
+        }
+
+        @Override
+        public void flush() throws IOException {
+            encode();
+            output.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            encode();
+            output.close();
+        }
+    }
+
+    private String contentTypeHeader() {
+        if (characterEncoding == null || contentType.contains("charset=")) return contentType;
+        return contentType + ";charset=" + characterEncoding;
+    }
+
+    // --------------------------------------------------------------------
+    // Status and errors
+    // --------------------------------------------------------------------
+
+    @Override
+    public void setStatus(int sc) {
+        if (!committed) status = sc;
+    }
+
+    @Override
+    @Deprecated
+    public void setStatus(int sc, String sm) {
+        setStatus(sc);
+    }
+
+    @Override
+    public int getStatus() {
+        return status;
+    }
+
+    @Override
+    public void sendError(int sc, String msg) throws IOException {
+        if (committed) throw new IllegalStateException("Response already committed");
+        resetBuffer();
+        status = sc;
+        contentType = "text/html";
+        characterEncoding = "UTF-8";
+        String body = "<html><body><h1>HTTP " + sc + "</h1>"
+                + (msg == null ? "" : "<p>" + escape(msg) + "</p>") + "</body></html>";
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        output.write(bytes, 0, bytes.length);
+        suspended = true;
+    }
+
+    @Override
+    public void sendError(int sc) throws IOException {
+        sendError(sc, null);
+    }
+
+    @Override
+    public void sendRedirect(String location) throws IOException {
+        if (committed) throw new IllegalStateException("Response already committed");
+        resetBuffer();
+        status = SC_FOUND;
+        headers.set("Location", location);
+        suspended = true;
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    // --------------------------------------------------------------------
+    // Headers
+    // --------------------------------------------------------------------
+
+    @Override
+    public void setHeader(String name, String value) {
+        if (committed) return;
+        if (special(name, value)) return;
+        if (value == null) {
+            headers.remove(name);
+        } else {
+            headers.set(name, value);
+        }
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        if (committed || value == null) return;
+        if (special(name, value)) return;
+        headers.add(name, value);
+    }
+
+    /** Content-Type and Content-Length are tracked as properties rather than raw headers. */
+    private boolean special(String name, String value) {
+        if ("Content-Type".equalsIgnoreCase(name)) {
+            setContentType(value);
+            return true;
+        }
+        if ("Content-Length".equalsIgnoreCase(name)) {
+            setContentLengthLong(value == null ? -1 : Long.parseLong(value.trim()));
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void setDateHeader(String name, long date) {
+        setHeader(name, HTTP_DATE.format(Instant.ofEpochMilli(date)));
+    }
+
+    @Override
+    public void addDateHeader(String name, long date) {
+        addHeader(name, HTTP_DATE.format(Instant.ofEpochMilli(date)));
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+        setHeader(name, Integer.toString(value));
+    }
+
+    @Override
+    public void addIntHeader(String name, int value) {
+        addHeader(name, Integer.toString(value));
+    }
+
+    @Override
+    public boolean containsHeader(String name) {
+        return getHeader(name) != null;
+    }
+
+    @Override
+    public String getHeader(String name) {
+        if ("Content-Type".equalsIgnoreCase(name)) return contentType == null ? null : contentTypeHeader();
+        if ("Content-Length".equalsIgnoreCase(name)) return contentLength < 0 ? null : Long.toString(contentLength);
+        return headers.getFirst(name);
+    }
+
+    @Override
+    public Collection<String> getHeaders(String name) {
+        String special = "Content-Type".equalsIgnoreCase(name) || "Content-Length".equalsIgnoreCase(name)
+                ? getHeader(name) : null;
+        if (special != null) return Collections.singletonList(special);
+        List<String> values = headers.get(name);
+        return values == null ? Collections.emptyList() : new ArrayList<>(values);
+    }
+
+    @Override
+    public Collection<String> getHeaderNames() {
+        List<String> names = new ArrayList<>(headers.keySet());
+        if (contentType != null) names.add("Content-Type");
+        if (contentLength >= 0) names.add("Content-Length");
+        return names;
+    }
+
+    @Override
+    public void addCookie(Cookie cookie) {
+        StringBuilder header = new StringBuilder(cookie.getName()).append('=');
+        if (cookie.getValue() != null) header.append(cookie.getValue());
+        if (cookie.getMaxAge() >= 0) header.append("; Max-Age=").append(cookie.getMaxAge());
+        if (cookie.getPath() != null) header.append("; Path=").append(cookie.getPath());
+        if (cookie.getDomain() != null) header.append("; Domain=").append(cookie.getDomain());
+        if (cookie.getSecure()) header.append("; Secure");
+        if (cookie.isHttpOnly()) header.append("; HttpOnly");
+        addHeader("Set-Cookie", header.toString());
+    }
+
+    // --------------------------------------------------------------------
+    // Body
+    // --------------------------------------------------------------------
+
+    @Override
+    public void setContentType(String type) {
+        if (committed) return;
+        if (type == null) {
+            contentType = null;
+            return;
+        }
+        int charset = type.toLowerCase(Locale.ROOT).indexOf("charset=");
+        if (charset >= 0 && writer == null) {
+            String encoding = type.substring(charset + 8).trim();
+            int end = encoding.indexOf(';');
+            characterEncoding = (end >= 0 ? encoding.substring(0, end) : encoding).replace("\"", "").trim();
+            contentType = type.substring(0, charset).replaceAll("[;\\s]+$", "");
+        } else {
+            contentType = charset >= 0 ? type.substring(0, charset).replaceAll("[;\\s]+$", "") : type;
+        }
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType == null ? null : contentTypeHeader();
+    }
+
+    @Override
+    public void setCharacterEncoding(String charset) {
+        if (!committed && writer == null) characterEncoding = charset;
+    }
+
+    @Override
+    public String getCharacterEncoding() {
+        return characterEncoding == null ? StandardCharsets.ISO_8859_1.name() : characterEncoding;
+    }
+
+    @Override
+    public void setContentLength(int len) {
+        setContentLengthLong(len);
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+        if (!committed) contentLength = len;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+        if (writer != null) throw new IllegalStateException("getWriter() has already been called");
+        streamUsed = true;
+        return output;
+    }
+
+    @Override
+    public PrintWriter getWriter() {
+        if (writer == null) {
+            if (streamUsed) throw new IllegalStateException("getOutputStream() has already been called");
+            if (characterEncoding == null) characterEncoding = StandardCharsets.ISO_8859_1.name();
+            chars = new ResponseWriter(Charset.forName(characterEncoding));
+            writer = new PrintWriter(chars);
+        }
+        return writer;
+    }
+
+    @Override
+    public void setBufferSize(int size) {
+        if (committed || output.count > 0) throw new IllegalStateException("Content already written");
+        output.buffer = new byte[Math.max(512, size)];
+    }
+
+    @Override
+    public int getBufferSize() {
+        return output.buffer.length;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null) writer.flush();
+        output.flush();
+    }
+
+    @Override
+    public void resetBuffer() {
+        if (committed) throw new IllegalStateException("Response already committed");
+        if (chars != null) {
+            try {
+                chars.encode();
+            } catch (IOException ignored) {
+                // only moves characters into the buffer being discarded
+            }
+        }
+        output.count = 0;
+        suspended = false;
+    }
+
+    @Override
+    public boolean isCommitted() {
+        return committed;
+    }
+
+    @Override
+    public void reset() {
+        resetBuffer();
+        status = SC_OK;
+        contentType = null;
+        contentLength = -1;
+        for (Map.Entry<String, List<String>> header : new ArrayList<>(headers.entrySet())) {
+            headers.remove(header.getKey());
+        }
+    }
+
+    @Override
+    public void setLocale(Locale loc) {
+        if (!committed && loc != null) locale = loc;
+    }
+
+    @Override
+    public Locale getLocale() {
+        return locale;
+    }
+
+    // --------------------------------------------------------------------
+    // URL rewriting (no sessions, so URLs are returned unchanged)
+    // --------------------------------------------------------------------
+
+    @Override
+    public String encodeURL(String url) {
+        return url;
+    }
+
+    @Override
+    public String encodeRedirectURL(String url) {
+        return url;
+    }
+
+    @Override
+    @Deprecated
+    public String encodeUrl(String url) {
+        return url;
+    }
+
+    @Override
+    @Deprecated
+    public String encodeRedirectUrl(String url) {
+        return url;
+    }
+}
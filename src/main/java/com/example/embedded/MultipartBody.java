@@ -0,0 +1,178 @@
+package com.example.embedded;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.Part;
+
+/** Parses a buffered multipart/form-data body into Parts held in memory. */
+final class MultipartBody {
+
+    private MultipartBody() {
+    }
+
+    /** The boundary parameter of a multipart Content-Type, or null. */
+    static String boundary(String contentType) {
+        for (String param : contentType.split(";")) {
+            String trimmed = param.trim();
+            if (trimmed.toLowerCase(Locale.ROOT).startsWith("boundary=")) {
+                String value = trimmed.substring(9).trim();
+                if (value.length() > 1 && value.startsWith("\"") && value.endsWith("\"")) {
+                    value = value.substring(1, value.length() - 1);
+                }
+                return value.isEmpty() ? null : value;
+            }
+        }
+        return null;
+    }
+
+    static List<Part> parse(byte[] body, String boundary) throws ServletException {
+        byte[] delimiter = ("--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+        List<Part> parts = new ArrayList<>();
+
+        int pos = indexOf(body, delimiter, 0);
+        if (pos < 0) throw new ServletException("Multipart body without its boundary");
+        while (true) {
+            pos += delimiter.length;
+            if (pos + 1 < body.length && body[pos] == '-' && body[pos + 1] == '-') return parts;
+            pos = skipLine(body, pos);
+
+            int headersEnd = indexOf(body, new byte[] {'\r', '\n', '\r', '\n'}, pos);
+            if (headersEnd < 0) throw new ServletException("Malformed multipart headers");
+            Map<String, List<String>> headers = headers(new String(body, pos, headersEnd - pos,
+                    StandardCharsets.UTF_8));
+            int start = headersEnd + 4;
+
+            int next = indexOf(body, delimiter, start);
+            if (next < 0) throw new ServletException("Multipart body is truncated");
+            int end = next >= 2 && body[next - 2] == '\r' && body[next - 1] == '\n' ? next - 2 : next;
+            byte[] content = new byte[Math.max(0, end - start)];
+            System.arraycopy(body, start, content, 0, content.length);
+            parts.add(new BodyPart(headers, content));
+            pos = next;
+        }
+    }
+
+    private static int skipLine(byte[] body, int pos) {
+        while (pos < body.length && body[pos] != '\n') pos++;
+        return pos + 1;
+    }
+
+    private static int indexOf(byte[] data, byte[] pattern, int from) {
+        outer:
+        for (int i = from; i <= data.length - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (data[i + j] != pattern[j]) continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static Map<String, List<String>> headers(String block) {
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        for (String line : block.split("\r\n")) {
+            int colon = line.indexOf(':');
+            if (colon <= 0) continue;
+            headers.computeIfAbsent(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), k -> new ArrayList<>())
+                    .add(line.substring(colon + 1).trim());
+        }
+        return headers;
+    }
+
+    /** Value of a Content-Disposition parameter such as name or filename, or null. */
+    private static String dispositionParam(String disposition, String name) {
+        if (disposition == null) return null;
+        for (String param : disposition.split(";")) {
+            String trimmed = param.trim();
+            int eq = trimmed.indexOf('=');
+            if (eq <= 0 || !trimmed.substring(0, eq).trim().equalsIgnoreCase(name)) continue;
+            String value = trimmed.substring(eq + 1).trim();
+            if (value.length() > 1 && value.startsWith("\"") && value.endsWith("\"")) {
+                value = value.substring(1, value.length() - 1);
+            }
+            return value;
+        }
+        return null;
+    }
+
+    static final class BodyPart implements Part {
+        private final Map<String, List<String>> headers;
+        private final byte[] content;
+
+        BodyPart(Map<String, List<String>> headers, byte[] content) {
+            this.headers = headers;
+            this.content = content;
+        }
+
+        byte[] getContent() {
+            return content;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteArrayInputStream(content);
+        }
+
+        @Override
+        public String getContentType() {
+            return getHeader("Content-Type");
+        }
+
+        @Override
+        public String getName() {
+            return dispositionParam(getHeader("Content-Disposition"), "name");
+        }
+
+        @Override
+        public String getSubmittedFileName() {
+            return dispositionParam(getHeader("Content-Disposition"), "filename");
+        }
+
+        @Override
+        public long getSize() {
+            return content.length;
+        }
+
+        /** Relative names are resolved against java.io.tmpdir, standing in for the multipart location. */
+        @Override
+        public void write(String fileName) throws IOException {
+            File file = new File(fileName);
+            if (!file.isAbsolute()) file = new File(System.getProperty("java.io.tmpdir"), fileName);
+            Files.write(file.toPath(), content);
+        }
+
+        @Override
+        public void delete() {
+        }
+
+        @Override
+        public String getHeader(String name) {
+            List<String> values = headers.get(name.toLowerCase(Locale.ROOT));
+            return values == null || values.isEmpty() ? null : values.get(0);
+        }
+
+        @Override
+        public Collection<String> getHeaders(String name) {
+            List<String> values = headers.get(name.toLowerCase(Locale.ROOT));
+            return values == null ? Collections.emptyList() : Collections.unmodifiableList(values);
+        }
+
+        @Override
+        public Collection<String> getHeaderNames() {
+            return Collections.unmodifiableSet(headers.keySet());
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.processor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Writes the list of @AnnotationController classes to {@link #INDEX_RESOURCE} so
+ * the framework can register them at startup without scanning the classpath.
+ * Each line is a binary class name; the routes of each class follow it as
+ * comments for reference.
+ * <p>
+ * An incremental build only hands the processor the classes it recompiles, so
+ * the entries of an existing index are kept for classes that were not part of
+ * this compilation and still exist as controllers.
+ */
+@SupportedAnnotationTypes("com.example.annotation.AnnotationController")
+public class RouteIndexProcessor extends AbstractProcessor {
+
+    public static final String INDEX_RESOURCE = "META-INF/com.example/controllers.idx";
+
+    private static final String CONTROLLER = "com.example.annotation.AnnotationController";
+    private static final String[][] HTTP_ANNOTATIONS = {
+            {"com.example.annotation.GetMethode", "GET"},
+            {"com.example.annotation.PostMethode", "POST"},
+            {"com.example.annotation.PutMethode", "PUT"},
+            {"com.example.annotation.DeleteMethode", "DELETE"},
+            {"com.example.annotation.PatchMethode", "PATCH"},
+    };
+
+    private final TreeMap<String, StringBuilder> controllers = new TreeMap<>();
+    private final Set<String> compiled = new HashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        for (Element root : round.getRootElements()) {
+            if (root instanceof TypeElement) {
+                compiled.add(processingEnv.getElementUtils().getBinaryName((TypeElement) root).toString());
+            }
+        }
+        for (TypeElement annotation : annotations) {
+            for (Element element : round.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.CLASS) continue;
+                TypeElement type = (TypeElement) element;
+                String name = processingEnv.getElementUtils().getBinaryName(type).toString();
+                controllers.put(name, describeRoutes(type));
+            }
+        }
+
+        if (round.processingOver() && !controllers.isEmpty()) {
+            mergePreviousIndex();
+            writeIndex();
+        }
+        return false;
+    }
+
+    private StringBuilder describeRoutes(TypeElement type) {
+        String base = annotationValue(type, CONTROLLER);
+        StringBuilder routes = new StringBuilder();
+        for (Element member : type.getEnclosedElements()) {
+            if (member.getKind() != ElementKind.METHOD) continue;
+            for (String[] http : HTTP_ANNOTATIONS) {
+                String value = annotationValue(member, http[0]);
+                if (value != null) {
+                    routes.append("#   ").append(http[1]).append(' ').append(base).append(value)
+                          .append(" -> ").append(((ExecutableElement) member).getSimpleName()).append('\n');
+                }
+            }
+        }
+        return routes;
+    }
+
+    private static String annotationValue(Element element, String annotationType) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (!mirror.getAnnotationType().toString().equals(annotationType)) continue;
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                    : mirror.getElementValues().entrySet()) {
+                if (entry.getKey().getSimpleName().contentEquals("value")) {
+                    return String.valueOf(entry.getValue().getValue());
+                }
+            }
+            return "";
+        }
+        return null;
+    }
+
+    /** Keeps the entries of the index from an earlier build for controllers this compilation did not see. */
+    private void mergePreviousIndex() {
+        FileObject previous;
+        try {
+            previous = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", INDEX_RESOURCE);
+        } catch (IOException | IllegalArgumentException e) {
+            return;
+        }
+        try (Reader in = previous.openReader(true); BufferedReader reader = new BufferedReader(in)) {
+            StringBuilder routes = null;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("#")) {
+                    if (routes != null) routes.append(line).append('\n');
+                    continue;
+                }
+                String name = line.trim();
+                routes = null;
+                if (name.isEmpty() || compiled.contains(name) || controllers.containsKey(name)) continue;
+                TypeElement type = processingEnv.getElementUtils().getTypeElement(name.replace('$', '.'));
+                if (type != null && annotationValue(type, CONTROLLER) != null) {
+                    routes = new StringBuilder();
+                    controllers.put(name, routes);
+                }
+            }
+        } catch (IOException e) {
+            // no index from an earlier build
+        }
+    }
+
+    private void writeIndex() {
+        try {
+            FileObject resource = processingEnv.getFiler()
+                    .createResource(StandardLocation.CLASS_OUTPUT, "", INDEX_RESOURCE);
+            try (Writer out = resource.openWriter()) {
+                out.write("# Generated by " + getClass().getName() + "\n");
+                for (Map.Entry<String, StringBuilder> controller : controllers.entrySet()) {
+                    out.write(controller.getKey());
+                    out.write('\n');
+                    out.write(controller.getValue().toString());
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Cannot write " + INDEX_RESOURCE + ": " + e.getMessage());
+        }
+    }
+}
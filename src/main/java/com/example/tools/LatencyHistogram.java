@@ -0,0 +1,70 @@
+package com.example.tools;
+
+/**
+ * Log-linear latency histogram in nanoseconds: exact below 128 ns, then 64
+ * buckets per power of two, so any recorded value is reported within 1.6%.
+ * Not thread-safe; each load worker keeps its own and they are merged at the end.
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BUCKETS = 64;
+    private static final int LINEAR = 2 * SUB_BUCKETS;
+
+    private final long[] counts = new long[LINEAR + 57 * SUB_BUCKETS];
+    private long total;
+    private long sum;
+    private long max;
+
+    void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts[index(value)]++;
+        total++;
+        sum += value;
+        if (value > max) max = value;
+    }
+
+    void add(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) counts[i] += other.counts[i];
+        total += other.total;
+        sum += other.sum;
+        max = Math.max(max, other.max);
+    }
+
+    long count() {
+        return total;
+    }
+
+    long max() {
+        return max;
+    }
+
+    double mean() {
+        return total == 0 ? 0 : (double) sum / total;
+    }
+
+    /** The value below which the given fraction (0..1) of recorded values fall. */
+    long percentile(double fraction) {
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(fraction * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) return Math.min(max, highest(i));
+        }
+        return max;
+    }
+
+    private static int index(long value) {
+        if (value < LINEAR) return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - 6;
+        return LINEAR + (shift - 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    /** Largest value that falls into the bucket. */
+    private static long highest(int index) {
+        if (index < LINEAR) return index;
+        int shift = (index - LINEAR) / SUB_BUCKETS + 1;
+        long top = SUB_BUCKETS + (index - LINEAR) % SUB_BUCKETS;
+        return ((top + 1) << shift) - 1;
+    }
+}
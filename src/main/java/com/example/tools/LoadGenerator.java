@@ -0,0 +1,289 @@
+package com.example.tools;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import com.example.util.JsonConverter;
+import com.example.web.FrameworkConfig;
+
+/**
+ * Drives an application on localhost (Tomcat or the embedded server) and
+ * reports throughput and latency percentiles per route template:
+ * <pre>
+ * java -cp target/classes com.example.tools.LoadGenerator \
+ *      url=http://localhost:8080 rate=2000 connections=32 duration=30 json=run.json
+ * </pre>
+ * Load is open-loop: request i is due at start + i/rate whether or not earlier
+ * ones have returned, and its latency is measured from that due time. A stalled
+ * server therefore shows up in the percentiles instead of silently lowering the
+ * send rate (coordinated omission). With rate=0 each connection sends back to
+ * back, which measures peak throughput but not latency under a fixed load.
+ * <p>
+ * Requests come from log=FILE (see {@link Scenario#fromLog}) or, by default,
+ * from the GET routes listed on the application's JSON metrics endpoint, with
+ * path variables set by var.NAME=value arguments.
+ */
+public class LoadGenerator {
+
+    public static final String URL = "url";
+    public static final String LOG = "log";
+    public static final String ROUTES = "routes";
+    public static final String RATE = "rate";
+    public static final String CONNECTIONS = "connections";
+    public static final String DURATION = "duration";
+    public static final String WARMUP = "warmup";
+    public static final String TIMEOUT_MS = "timeoutMs";
+    public static final String JSON = "json";
+    public static final String VARIABLE_PREFIX = "var.";
+
+    private static final double[] PERCENTILES = {0.50, 0.90, 0.99, 0.999};
+
+    private final String base;
+    private final Scenario scenario;
+    private final double rate;
+    private final int connections;
+    private final long durationNanos;
+    private final long warmupNanos;
+    private final int timeoutMs;
+
+    LoadGenerator(String base, Scenario scenario, double rate, int connections, long durationNanos,
+                  long warmupNanos, int timeoutMs) {
+        this.base = base;
+        this.scenario = scenario;
+        this.rate = rate;
+        this.connections = connections;
+        this.durationNanos = durationNanos;
+        this.warmupNanos = warmupNanos;
+        this.timeoutMs = timeoutMs;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> settings = new LinkedHashMap<>();
+        for (String arg : args) {
+            String setting = arg.startsWith("--") ? arg.substring(2) : arg;
+            int eq = setting.indexOf('=');
+            if (eq <= 0) throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            settings.put(setting.substring(0, eq), setting.substring(eq + 1));
+        }
+        FrameworkConfig config = new FrameworkConfig(settings);
+
+        String base = config.get(URL, "http://localhost:8080").replaceAll("/+$", "");
+        URL url = new URL(base);
+        if (!InetAddress.getByName(url.getHost()).isLoopbackAddress()) {
+            throw new IllegalArgumentException("The load generator only targets localhost, not " + url.getHost());
+        }
+
+        int connections = Math.max(1, config.getInt(CONNECTIONS, 16));
+        System.setProperty("http.maxConnections", Integer.toString(connections));
+
+        List<String[]> routes;
+        try {
+            routes = Scenario.routes(new URL(base + config.get(ROUTES, "/metrics?format=json")));
+        } catch (IOException e) {
+            if (config.get(LOG, null) == null) throw e;
+            routes = Collections.emptyList();
+        }
+        Map<String, String> variables = new HashMap<>();
+        for (Map.Entry<String, String> setting : settings.entrySet()) {
+            if (setting.getKey().startsWith(VARIABLE_PREFIX)) {
+                variables.put(setting.getKey().substring(VARIABLE_PREFIX.length()), setting.getValue());
+            }
+        }
+        String log = config.get(LOG, null);
+        Scenario scenario = log != null ? Scenario.fromLog(new File(log), Scenario.templates(routes))
+                : Scenario.fromRoutes(routes, variables);
+
+        double rate = Double.parseDouble(config.get(RATE, "1000"));
+        LoadGenerator generator = new LoadGenerator(base, scenario, rate, connections,
+                TimeUnit.SECONDS.toNanos(config.getLong(DURATION, 30)),
+                TimeUnit.SECONDS.toNanos(config.getLong(WARMUP, 5)), config.getInt(TIMEOUT_MS, 10_000));
+
+        System.out.printf(Locale.ROOT, "%s: %d requests in the scenario, %s, %d connections, %ds + %ds warmup%n",
+                base, scenario.size(), rate > 0 ? rate + " req/s open-loop" : "closed-loop", connections,
+                config.getLong(DURATION, 30), config.getLong(WARMUP, 5));
+        Map<String, Object> report = generator.run();
+        print(report);
+
+        String json = config.get(JSON, null);
+        if (json != null) {
+            try (Writer out = new FileWriter(json, StandardCharsets.UTF_8)) {
+                JsonConverter.write(report, out);
+            }
+            System.out.println("Report written to " + json);
+        }
+    }
+
+    /** Per-route results gathered by one connection. */
+    private static final class Stats {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final Map<Integer, Long> statuses = new TreeMap<>();
+        long errors;
+        long bytes;
+
+        void add(Stats other) {
+            latency.add(other.latency);
+            other.statuses.forEach((status, count) -> statuses.merge(status, count, Long::sum));
+            errors += other.errors;
+            bytes += other.bytes;
+        }
+    }
+
+    Map<String, Object> run() throws InterruptedException {
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        long measureFrom = start + warmupNanos;
+        long end = measureFrom + durationNanos;
+        double interval = rate > 0 ? 1e9 / rate : 0;
+        AtomicLong sequence = new AtomicLong();
+
+        List<Map<String, Stats>> perWorker = new ArrayList<>();
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < connections; i++) {
+            Map<String, Stats> stats = new HashMap<>();
+            perWorker.add(stats);
+            Thread worker = new Thread(() -> work(stats, sequence, start, measureFrom, end, interval), "load-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) worker.join();
+        long measured = Math.max(durationNanos, System.nanoTime() - measureFrom);
+
+        Map<String, Stats> merged = new TreeMap<>();
+        for (Map<String, Stats> stats : perWorker) {
+            stats.forEach((route, s) -> merged.computeIfAbsent(route, k -> new Stats()).add(s));
+        }
+        Stats total = new Stats();
+        List<Map<String, Object>> routes = new ArrayList<>();
+        for (Map.Entry<String, Stats> entry : merged.entrySet()) {
+            total.add(entry.getValue());
+            Map<String, Object> route = summary(entry.getValue(), measured);
+            route.put("route", entry.getKey());
+            routes.add(route);
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("url", base);
+        report.put("targetRate", rate);
+        report.put("connections", connections);
+        report.put("durationSeconds", measured / 1e9);
+        report.put("total", summary(total, measured));
+        if (interval > 0) {
+            long due = (long) Math.ceil((end - start) / interval) - (long) Math.ceil((measureFrom - start) / interval);
+            report.put("unsent", Math.max(0, due - total.latency.count()));
+        }
+        report.put("routes", routes);
+        return report;
+    }
+
+    /**
+     * Sends requests until the run ends. A server too slow for the rate leaves a
+     * backlog of overdue requests; it is worked off for at most one timeout after
+     * the end, and what is left is reported as unsent.
+     */
+    private void work(Map<String, Stats> stats, AtomicLong sequence, long start, long measureFrom, long end,
+                      double interval) {
+        long giveUp = end + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (true) {
+            long i = sequence.getAndIncrement();
+            long due = interval > 0 ? start + (long) (i * interval) : Math.max(start, System.nanoTime());
+            if (due >= end || System.nanoTime() > giveUp) return;
+            for (long wait; (wait = due - System.nanoTime()) > 0; ) LockSupport.parkNanos(wait);
+
+            Scenario.Request request = scenario.get(i);
+            int status = -1;
+            long bytes = 0;
+            try {
+                HttpURLConnection connection = (HttpURLConnection) new URL(base + request.path).openConnection();
+                connection.setRequestMethod(request.method);
+                connection.setConnectTimeout(timeoutMs);
+                connection.setReadTimeout(timeoutMs);
+                connection.setInstanceFollowRedirects(false);
+                if (request.body != null) {
+                    connection.setDoOutput(true);
+                    connection.setFixedLengthStreamingMode(request.body.length);
+                    connection.setRequestProperty("Content-Type", request.contentType);
+                    try (OutputStream out = connection.getOutputStream()) {
+                        out.write(request.body);
+                    }
+                }
+                status = connection.getResponseCode();
+                bytes = Scenario.drain(status >= 400 ? connection.getErrorStream() : connection.getInputStream());
+            } catch (IOException e) {
+                // counted as an error below
+            }
+            long latency = System.nanoTime() - due;
+            if (due < measureFrom) continue;
+
+            Stats route = stats.computeIfAbsent(request.method + " " + request.template, k -> new Stats());
+            route.latency.record(latency);
+            route.bytes += bytes;
+            if (status < 0 || status >= 500) route.errors++;
+            if (status >= 0) route.statuses.merge(status, 1L, Long::sum);
+        }
+    }
+
+    private static Map<String, Object> summary(Stats stats, long measuredNanos) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        LatencyHistogram latency = stats.latency;
+        summary.put("requests", latency.count());
+        summary.put("errors", stats.errors);
+        summary.put("throughput", round(latency.count() * 1e9 / measuredNanos));
+        summary.put("bytes", stats.bytes);
+        Map<String, Object> millis = new LinkedHashMap<>();
+        millis.put("mean", round(latency.mean() / 1e6));
+        for (double p : PERCENTILES) millis.put(label(p), round(latency.percentile(p) / 1e6));
+        millis.put("max", round(latency.max() / 1e6));
+        summary.put("latencyMs", millis);
+        Map<String, Object> statuses = new LinkedHashMap<>();
+        stats.statuses.forEach((status, count) -> statuses.put(Integer.toString(status), count));
+        summary.put("status", statuses);
+        return summary;
+    }
+
+    private static String label(double percentile) {
+        String digits = String.format(Locale.ROOT, "%s", percentile * 100).replaceAll("\\.0$", "");
+        return "p" + digits;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void print(Map<String, Object> report) {
+        System.out.printf(Locale.ROOT, "%n%-40s %9s %7s %10s %9s %9s %9s %9s %9s%n",
+                "route", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        List<Map<String, Object>> rows = new ArrayList<>((List<Map<String, Object>>) report.get("routes"));
+        Map<String, Object> total = new LinkedHashMap<>((Map<String, Object>) report.get("total"));
+        total.put("route", "TOTAL");
+        rows.add(total);
+        Object unsent = report.get("unsent");
+        for (Map<String, Object> row : rows) {
+            Map<String, Object> ms = (Map<String, Object>) row.get("latencyMs");
+            System.out.printf(Locale.ROOT, "%-40s %9d %7d %10.1f %9.3f %9.3f %9.3f %9.3f %9.3f%n",
+                    row.get("route"), row.get("requests"), row.get("errors"), row.get("throughput"),
+                    ms.get("p50"), ms.get("p90"), ms.get("p99"), ms.get("p99.9"), ms.get("max"));
+        }
+        if (unsent != null && ((Number) unsent).longValue() > 0) {
+            System.out.println(unsent + " requests were never sent: the server could not keep up with the rate.");
+        }
+    }
+}
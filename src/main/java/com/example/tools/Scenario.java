@@ -0,0 +1,260 @@
+package com.example.tools;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.example.util.JsonConverter;
+
+/**
+ * The requests a load run cycles through, each tagged with the route template it
+ * is reported under. Built either from a recorded request log or from the GET
+ * routes the application lists on its JSON metrics endpoint.
+ */
+final class Scenario {
+
+    static final class Request {
+        final String method;
+        final String path;
+        final String contentType;
+        final byte[] body;
+        final String template;
+
+        Request(String method, String path, String contentType, byte[] body, String template) {
+            this.method = method;
+            this.path = path;
+            this.contentType = contentType;
+            this.body = body;
+            this.template = template;
+        }
+    }
+
+    private final List<Request> requests;
+
+    private Scenario(List<Request> requests) {
+        this.requests = requests;
+    }
+
+    Request get(long sequence) {
+        return requests.get((int) (sequence % requests.size()));
+    }
+
+    int size() {
+        return requests.size();
+    }
+
+    /**
+     * Reads a request log, one request per line, replayed in order:
+     * <pre>
+     * # method  path[?query]  [json|form|multipart|content-type  body]
+     * GET  /bench/orders/7?expand=lines
+     * POST /bench/orders  json  {"id":1,"lines":[]}
+     * POST /login  form  user=alice&amp;password=secret
+     * POST /upload  multipart  title=Report  file=@report.pdf
+     * PUT  /blobs/1  application/octet-stream  @blob.bin
+     * </pre>
+     * A body of @file is read from that file, relative to the log. Templates come
+     * from the routes when they are known, otherwise the path is its own template.
+     */
+    static Scenario fromLog(File log, List<String> templates) throws IOException {
+        File dir = log.getAbsoluteFile().getParentFile();
+        TemplateMatcher matcher = new TemplateMatcher(templates);
+        List<Request> requests = new ArrayList<>();
+        int number = 0;
+        for (String raw : Files.readAllLines(log.toPath(), StandardCharsets.UTF_8)) {
+            number++;
+            String line = raw.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] tokens = line.split("\\s+", 4);
+            if (tokens.length < 2) throw new IOException(log + ":" + number + ": expected a method and a path");
+            String method = tokens[0].toUpperCase(Locale.ROOT);
+            String path = tokens[1];
+            String contentType = null;
+            byte[] body = null;
+            if (tokens.length > 2) {
+                String kind = tokens[2];
+                String rest = tokens.length > 3 ? tokens[3] : "";
+                if (kind.equalsIgnoreCase("multipart")) {
+                    String boundary = "----loadgen" + Long.toHexString(Double.doubleToLongBits(Math.random()));
+                    contentType = "multipart/form-data; boundary=" + boundary;
+                    body = multipart(rest.isEmpty() ? new String[0] : rest.split("\\s+"), boundary, dir);
+                } else {
+                    contentType = kind.equalsIgnoreCase("json") ? "application/json"
+                            : kind.equalsIgnoreCase("form") ? "application/x-www-form-urlencoded" : kind;
+                    body = rest.startsWith("@") ? Files.readAllBytes(resolve(dir, rest.substring(1)).toPath())
+                            : rest.getBytes(StandardCharsets.UTF_8);
+                }
+            }
+            requests.add(new Request(method, path, contentType, body, matcher.match(path)));
+        }
+        if (requests.isEmpty()) throw new IOException(log + " has no requests");
+        return new Scenario(requests);
+    }
+
+    /**
+     * One GET per route, with path variables filled from the given values or with
+     * a sample accepted by their constraint. Other methods need a recorded log.
+     */
+    static Scenario fromRoutes(List<String[]> routes, Map<String, String> variables) {
+        List<Request> requests = new ArrayList<>();
+        for (String[] route : routes) {
+            if (!route[0].equals("GET")) continue;
+            requests.add(new Request("GET", fill(route[1], variables), null, null, route[1]));
+        }
+        if (requests.isEmpty()) throw new IllegalStateException("The application lists no GET routes");
+        return new Scenario(requests);
+    }
+
+    /** Method and template of each route on the application's JSON metrics endpoint. */
+    @SuppressWarnings("unchecked")
+    static List<String[]> routes(URL metrics) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) metrics.openConnection();
+        connection.setRequestProperty("Accept", "application/json");
+        if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+            throw new IOException(metrics + " answered " + connection.getResponseCode()
+                    + "; enable metrics or replay a request log instead");
+        }
+        Object json;
+        try (Reader in = new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8)) {
+            json = JsonConverter.read(in, Object.class);
+        }
+        List<String[]> routes = new ArrayList<>();
+        for (Object item : (List<Object>) ((Map<String, Object>) json).get("routes")) {
+            Map<String, Object> route = (Map<String, Object>) item;
+            String template = String.valueOf(route.get("route"));
+            if (template.startsWith("/")) routes.add(new String[] {String.valueOf(route.get("method")), template});
+        }
+        return routes;
+    }
+
+    private static String fill(String template, Map<String, String> variables) {
+        StringBuilder path = new StringBuilder();
+        for (String segment : template.substring(template.startsWith("/") ? 1 : 0).split("/", -1)) {
+            path.append('/');
+            if (!TemplateMatcher.isVariable(segment)) {
+                path.append(segment);
+                continue;
+            }
+            int colon = segment.indexOf(':');
+            String name = segment.substring(1, colon < 0 ? segment.length() - 1 : colon);
+            String constraint = colon < 0 ? "" : segment.substring(colon + 1, segment.length() - 1);
+            String value = variables.get(name);
+            path.append(value != null ? value : sample(constraint));
+        }
+        return path.toString();
+    }
+
+    private static String sample(String constraint) {
+        switch (constraint) {
+            case "alpha":
+            case "[a-zA-Z]+":
+                return "abc";
+            case "uuid":
+                return "00000000-0000-4000-8000-000000000001";
+            default:
+                return "1";
+        }
+    }
+
+    private static byte[] multipart(String[] fields, String boundary, File dir) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (String field : fields) {
+            int eq = field.indexOf('=');
+            if (eq <= 0) throw new IOException("Expected name=value or name=@file in multipart field: " + field);
+            String name = field.substring(0, eq);
+            String value = field.substring(eq + 1);
+            StringBuilder head = new StringBuilder("--").append(boundary).append("\r\n")
+                    .append("Content-Disposition: form-data; name=\"").append(name).append('"');
+            byte[] content;
+            if (value.startsWith("@")) {
+                File file = resolve(dir, value.substring(1));
+                head.append("; filename=\"").append(file.getName()).append("\"\r\n")
+                        .append("Content-Type: application/octet-stream");
+                content = Files.readAllBytes(file.toPath());
+            } else {
+                content = value.getBytes(StandardCharsets.UTF_8);
+            }
+            out.write(head.append("\r\n\r\n").toString().getBytes(StandardCharsets.UTF_8));
+            out.write(content);
+            out.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+        }
+        out.write(("--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+        return out.toByteArray();
+    }
+
+    private static File resolve(File dir, String name) {
+        File file = new File(name);
+        return file.isAbsolute() ? file : new File(dir, name);
+    }
+
+    /** Reads and discards a response body so its connection can be reused. */
+    static long drain(InputStream in) throws IOException {
+        if (in == null) return 0;
+        try (InputStream body = in) {
+            byte[] buffer = new byte[8192];
+            long total = 0;
+            for (int n; (n = body.read(buffer)) > 0; ) total += n;
+            return total;
+        }
+    }
+
+    /** Maps a concrete path to the route template it hits, static segments winning over variables. */
+    private static final class TemplateMatcher {
+        private final List<String[]> templates = new ArrayList<>();
+
+        TemplateMatcher(List<String> routes) {
+            for (String route : routes) templates.add(segments(route));
+            templates.sort(Comparator.comparingInt(TemplateMatcher::variables));
+        }
+
+        String match(String path) {
+            int query = path.indexOf('?');
+            String plain = query < 0 ? path : path.substring(0, query);
+            String[] segments = segments(plain);
+            for (String[] template : templates) {
+                if (template.length != segments.length) continue;
+                boolean matches = true;
+                for (int i = 0; i < segments.length && matches; i++) {
+                    matches = isVariable(template[i]) ? !segments[i].isEmpty() : template[i].equals(segments[i]);
+                }
+                if (matches) return "/" + String.join("/", template);
+            }
+            return plain;
+        }
+
+        private static String[] segments(String path) {
+            return path.substring(path.startsWith("/") ? 1 : 0).split("/", -1);
+        }
+
+        private static int variables(String[] template) {
+            int count = 0;
+            for (String segment : template) {
+                if (isVariable(segment)) count++;
+            }
+            return count;
+        }
+
+        static boolean isVariable(String segment) {
+            return segment.length() > 2 && segment.charAt(0) == '{' && segment.charAt(segment.length() - 1) == '}';
+        }
+    }
+
+    static List<String> templates(List<String[]> routes) {
+        List<String> templates = new ArrayList<>();
+        for (String[] route : routes) templates.add(route[1]);
+        return Collections.unmodifiableList(templates);
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-class field metadata shared by the form binder and the JSON/binary codecs.
+ * Built once per class and cached; accessors are MethodHandles, so binding and
+ * serialization never touch java.lang.reflect after the first use of a class.
+ */
+public class BeanInfo {
+
+    private static final ClassValue<BeanInfo> CACHE = new ClassValue<BeanInfo>() {
+        @Override
+        protected BeanInfo computeValue(Class<?> type) {
+            return new BeanInfo(type);
+        }
+    };
+
+    private final Class<?> type;
+    private final MethodHandle constructor;
+    private final BeanProperty[] properties;
+    private final Map<String, BeanProperty> byName;
+
+    public static BeanInfo of(Class<?> type) {
+        return CACHE.get(type);
+    }
+
+    private BeanInfo(Class<?> type) {
+        this.type = type;
+        this.constructor = findConstructor(type);
+
+        List<Class<?>> hierarchy = new ArrayList<>();
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) hierarchy.add(c);
+        Collections.reverse(hierarchy);
+
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        List<BeanProperty> list = new ArrayList<>();
+        Map<String, BeanProperty> map = new HashMap<>();
+        for (Class<?> c : hierarchy) {
+            for (Field field : c.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()) continue;
+                try {
+                    field.setAccessible(true);
+                } catch (RuntimeException e) {
+                    continue;
+                }
+
+                BeanProperty property = new BeanProperty(field, getter(lookup, field),
+                        Modifier.isFinal(modifiers) ? null : setter(lookup, field));
+                list.add(property);
+                map.put(property.getName(), property);
+            }
+        }
+        this.properties = list.toArray(new BeanProperty[0]);
+        this.byName = map;
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    public BeanProperty[] getProperties() {
+        return properties;
+    }
+
+    public BeanProperty getProperty(String name) {
+        return byName.get(name);
+    }
+
+    public boolean isInstantiable() {
+        return constructor != null;
+    }
+
+    /** A new instance through the no-arg constructor, or null when there is none or it fails. */
+    public Object newInstance() {
+        if (constructor == null) return null;
+        try {
+            return (Object) constructor.invokeExact();
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+
+    private static MethodHandle findConstructor(Class<?> type) {
+        if (type.isInterface() || type.isPrimitive() || type.isArray() || Modifier.isAbstract(type.getModifiers())) {
+            return null;
+        }
+        try {
+            Constructor<?> constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return MethodHandles.lookup().unreflectConstructor(constructor)
+                    .asType(MethodType.methodType(Object.class));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static MethodHandle getter(MethodHandles.Lookup lookup, Field field) {
+        try {
+            return lookup.unreflectGetter(field).asType(MethodType.methodType(Object.class, Object.class));
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    private static MethodHandle setter(MethodHandles.Lookup lookup, Field field) {
+        try {
+            return lookup.unreflectSetter(field).asType(MethodType.methodType(void.class, Object.class, Object.class));
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+}
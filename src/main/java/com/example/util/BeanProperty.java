@@ -0,0 +1,68 @@
+package com.example.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collection;
+
+public class BeanProperty {
+
+    private final String name;
+    private final Class<?> type;
+    private final Type genericType;
+    private final Class<?> elementType;
+    private final TypeConverter.Parser parser;
+    private final MethodHandle getter;
+    private final MethodHandle setter;
+
+    BeanProperty(Field field, MethodHandle getter, MethodHandle setter) {
+        this.name = field.getName();
+        this.type = field.getType();
+        this.genericType = field.getGenericType();
+        this.elementType = elementType(field.getType(), field.getGenericType());
+        this.parser = TypeConverter.parserFor(type);
+        this.getter = getter;
+        this.setter = setter;
+    }
+
+    public String getName() { return name; }
+    public Class<?> getType() { return type; }
+    public Type getGenericType() { return genericType; }
+
+    /** Component type of an array, or the type argument of a Collection; null otherwise. */
+    public Class<?> getElementType() { return elementType; }
+
+    /** Parser for scalar properties, null for beans, arrays and collections. */
+    public TypeConverter.Parser getParser() { return parser; }
+
+    public boolean isWritable() { return setter != null; }
+
+    public Object get(Object bean) {
+        try {
+            return (Object) getter.invokeExact(bean);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Cannot read " + name, e);
+        }
+    }
+
+    public void set(Object bean, Object value) {
+        if (setter == null || (value == null && type.isPrimitive())) return;
+        try {
+            setter.invokeExact(bean, value);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Cannot write " + name, e);
+        }
+    }
+
+    static Class<?> elementType(Class<?> type, Type genericType) {
+        if (type.isArray()) return type.getComponentType();
+        if (!Collection.class.isAssignableFrom(type)) return null;
+        if (genericType instanceof ParameterizedType) {
+            Type argument = ((ParameterizedType) genericType).getActualTypeArguments()[0];
+            if (argument instanceof Class) return (Class<?>) argument;
+            if (argument instanceof ParameterizedType) return (Class<?>) ((ParameterizedType) argument).getRawType();
+        }
+        return Object.class;
+    }
+}
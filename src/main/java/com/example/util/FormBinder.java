@@ -0,0 +1,194 @@
+package com.example.util;
+
+import javax.servlet.http.HttpServletRequest;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binds request parameters onto POJOs using the cached {@link BeanInfo} of each
+ * class. Names may walk into nested objects and indexed lists or arrays, e.g.
+ * "address.city" or "items[0].qty".
+ */
+public class FormBinder {
+
+    /** Upper bound on list/array indexes so a crafted name cannot allocate huge lists. */
+    private static final int MAX_INDEX = 10_000;
+
+    public static Object bind(Class<?> type, HttpServletRequest request) {
+        return bind(type, request.getParameterMap());
+    }
+
+    public static Object bind(Class<?> type, Map<String, String[]> parameters) {
+        BeanInfo info = BeanInfo.of(type);
+        Object bean = info.newInstance();
+        if (bean == null) return null;
+
+        for (Map.Entry<String, String[]> entry : parameters.entrySet()) {
+            String[] values = entry.getValue();
+            if (values != null && values.length > 0) {
+                bindPath(bean, info, entry.getKey(), values);
+            }
+        }
+        return bean;
+    }
+
+    public static Map<String, Object> toMap(HttpServletRequest request) {
+        Map<String, Object> data = new HashMap<>();
+
+        for (Map.Entry<String, String[]> entry : request.getParameterMap().entrySet()) {
+            String[] values = entry.getValue();
+            if (values == null) continue;
+
+            if (values.length == 1) {
+                data.put(entry.getKey(), values[0]);
+            } else {
+                data.put(entry.getKey(), values);
+            }
+        }
+
+        return data;
+    }
+
+    private static void bindPath(Object bean, BeanInfo info, String name, String[] values) {
+        int length = name.length();
+        int start = 0;
+
+        while (start < length) {
+            int end = start;
+            while (end < length && name.charAt(end) != '.' && name.charAt(end) != '[') end++;
+
+            BeanProperty property = info.getProperty(name.substring(start, end));
+            if (property == null) return;
+
+            int index = -1;
+            if (end < length && name.charAt(end) == '[') {
+                index = 0;
+                int i = end + 1;
+                for (; i < length && name.charAt(i) != ']'; i++) {
+                    int digit = name.charAt(i) - '0';
+                    if (digit < 0 || digit > 9) return;
+                    index = index * 10 + digit;
+                    if (index > MAX_INDEX) return;
+                }
+                if (i == length || i == end + 1) return;
+                end = i + 1;
+            }
+
+            boolean last = end == length;
+            if (!last && name.charAt(end) != '.') return;
+
+            if (index < 0) {
+                if (last) {
+                    setValue(bean, property, values);
+                    return;
+                }
+                Object child = property.get(bean);
+                if (child == null) {
+                    child = BeanInfo.of(property.getType()).newInstance();
+                    if (child == null) return;
+                    property.set(bean, child);
+                }
+                bean = child;
+                info = BeanInfo.of(property.getType());
+            } else {
+                Class<?> elementType = property.getElementType();
+                if (elementType == null) return;
+
+                if (last) {
+                    Object value = parse(values[0], elementType);
+                    if (value != TypeConverter.INVALID) setElement(bean, property, index, value);
+                    return;
+                }
+                Object element = getElement(bean, property, index);
+                if (element == null) {
+                    element = BeanInfo.of(elementType).newInstance();
+                    if (element == null) return;
+                    setElement(bean, property, index, element);
+                }
+                bean = element;
+                info = BeanInfo.of(elementType);
+            }
+            start = end + 1;
+        }
+    }
+
+    private static void setValue(Object bean, BeanProperty property, String[] values) {
+        TypeConverter.Parser parser = property.getParser();
+        if (parser != null) {
+            Object value = parser.parse(values[0]);
+            if (value != TypeConverter.INVALID) property.set(bean, value);
+            return;
+        }
+
+        Class<?> type = property.getType();
+        if (type.isArray()) {
+            property.set(bean, TypeConverter.toArray(values, type.getComponentType()));
+        } else if (property.getElementType() != null) {
+            Collection<Object> collection = newCollection(type);
+            if (collection == null) return;
+            for (String value : values) {
+                Object parsed = parse(value, property.getElementType());
+                if (parsed != TypeConverter.INVALID) collection.add(parsed);
+            }
+            property.set(bean, collection);
+        }
+    }
+
+    private static Object parse(String value, Class<?> type) {
+        TypeConverter.Parser parser = TypeConverter.parserFor(type);
+        return parser == null ? TypeConverter.INVALID : parser.parse(value);
+    }
+
+    private static Object getElement(Object bean, BeanProperty property, int index) {
+        Object container = property.get(bean);
+        if (container == null) return null;
+        if (container instanceof List) {
+            List<?> list = (List<?>) container;
+            return index < list.size() ? list.get(index) : null;
+        }
+        if (container.getClass().isArray()) {
+            return index < Array.getLength(container) ? Array.get(container, index) : null;
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void setElement(Object bean, BeanProperty property, int index, Object value) {
+        Class<?> type = property.getType();
+        Object container = property.get(bean);
+
+        if (type.isArray()) {
+            int size = container == null ? 0 : Array.getLength(container);
+            if (index >= size) {
+                Object grown = Array.newInstance(type.getComponentType(), index + 1);
+                if (container != null) System.arraycopy(container, 0, grown, 0, size);
+                container = grown;
+                property.set(bean, container);
+            }
+            Array.set(container, index, value);
+            return;
+        }
+
+        if (!(container instanceof List)) {
+            if (container != null || !type.isAssignableFrom(ArrayList.class)) return;
+            container = new ArrayList<>();
+            property.set(bean, container);
+        }
+        List<Object> list = (List<Object>) container;
+        while (list.size() <= index) list.add(null);
+        list.set(index, value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Collection<Object> newCollection(Class<?> type) {
+        if (type.isAssignableFrom(ArrayList.class)) return new ArrayList<>();
+        if (type.isAssignableFrom(LinkedHashSet.class)) return new LinkedHashSet<>();
+        Object instance = BeanInfo.of(type).newInstance();
+        return instance instanceof Collection ? (Collection<Object>) instance : null;
+    }
+}
@@ -1,57 +1,339 @@
 package com.example.util;
 
-import java.lang.reflect.Field;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.reflect.Array;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
+/**
+ * Streams values as JSON. Each class gets a serializer built once and cached;
+ * beans are written field by field through their {@link BeanInfo} accessors.
+ * Reading binds straight from the token stream into the target type through the
+ * same metadata, without an intermediate tree.
+ */
 public class JsonConverter {
 
+    @FunctionalInterface
+    interface Serializer {
+        void write(Object value, JsonWriter out) throws IOException;
+    }
+
+    private static final ClassValue<Serializer> SERIALIZERS = new ClassValue<Serializer>() {
+        @Override
+        protected Serializer computeValue(Class<?> type) {
+            return createSerializer(type);
+        }
+    };
+
+    private static final String ENVELOPE_OK = "{\"status\":\"success\",\"code\":200,\"message\":\"OK\",\"data\":";
+
     public static String toJson(Object obj) {
-        if (obj == null) return "null";
+        StringWriter out = new StringWriter();
+        try {
+            write(obj, new JsonWriter(out));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return out.toString();
+    }
+
+    public static void write(Object obj, Writer out) throws IOException {
+        write(obj, new JsonWriter(out));
+    }
+
+    /** Writes the standard REST envelope around the data without building a map. */
+    public static void writeEnvelope(Object data, Writer out) throws IOException {
+        JsonWriter json = new JsonWriter(out);
+        beginEnvelope(json);
+        write(data, json);
+        json.writeRaw('}');
+    }
+
+    /** Opens the standard envelope up to its data value; a single '}' closes it. */
+    public static void beginEnvelope(JsonWriter out) throws IOException {
+        out.writeRaw(ENVELOPE_OK);
+    }
+
+    static void write(Object obj, JsonWriter out) throws IOException {
+        if (obj == null) {
+            out.writeNull();
+            return;
+        }
+        SERIALIZERS.get(obj.getClass()).write(obj, out);
+    }
+
+    private static Serializer createSerializer(Class<?> type) {
+        if (CharSequence.class.isAssignableFrom(type)) return (v, out) -> out.writeString((CharSequence) v);
+        if (type == Character.class || type == UUID.class) return (v, out) -> out.writeString(v.toString());
+        if (type == Boolean.class || type == Integer.class || type == Long.class
+                || type == Short.class || type == Byte.class || type == BigDecimal.class
+                || Number.class.isAssignableFrom(type) && type != Double.class && type != Float.class) {
+            return (v, out) -> out.writeRaw(v.toString());
+        }
+        if (type == Double.class || type == Float.class) {
+            return (v, out) -> {
+                double d = ((Number) v).doubleValue();
+                if (Double.isNaN(d) || Double.isInfinite(d)) out.writeNull();
+                else out.writeRaw(v.toString());
+            };
+        }
+        if (type.isEnum() || (type.getSuperclass() != null && type.getSuperclass().isEnum())) {
+            return (v, out) -> out.writeString(((Enum<?>) v).name());
+        }
+        if (TemporalAccessor.class.isAssignableFrom(type)) return (v, out) -> out.writeString(v.toString());
+        if (Date.class.isAssignableFrom(type)) {
+            return (v, out) -> out.writeString(((Date) v).toInstant().toString());
+        }
+        if (Calendar.class.isAssignableFrom(type)) {
+            return (v, out) -> out.writeString(((Calendar) v).toInstant().toString());
+        }
+        if (Map.class.isAssignableFrom(type)) return JsonConverter::writeMap;
+        if (Iterable.class.isAssignableFrom(type)) return JsonConverter::writeIterable;
+        if (type == byte[].class) {
+            return (v, out) -> out.writeString(Base64.getEncoder().encodeToString((byte[]) v));
+        }
+        if (type == int[].class) {
+            return (v, out) -> {
+                int[] array = (int[]) v;
+                out.writeRaw('[');
+                for (int i = 0; i < array.length; i++) {
+                    if (i > 0) out.writeRaw(',');
+                    out.writeRaw(Integer.toString(array[i]));
+                }
+                out.writeRaw(']');
+            };
+        }
+        if (type == long[].class) {
+            return (v, out) -> {
+                long[] array = (long[]) v;
+                out.writeRaw('[');
+                for (int i = 0; i < array.length; i++) {
+                    if (i > 0) out.writeRaw(',');
+                    out.writeRaw(Long.toString(array[i]));
+                }
+                out.writeRaw(']');
+            };
+        }
+        if (type.isArray()) {
+            return type.getComponentType().isPrimitive() ? JsonConverter::writePrimitiveArray
+                    : JsonConverter::writeObjectArray;
+        }
+        return beanSerializer(BeanInfo.of(type));
+    }
 
-        if (obj instanceof String) return "\"" + obj + "\"";
-        if (obj instanceof Number || obj instanceof Boolean) return obj.toString();
-        if (obj instanceof Map) return mapToJson((Map<?, ?>) obj);
-        if (obj instanceof List) return listToJson((List<?>) obj);
+    private static void writeMap(Object value, JsonWriter out) throws IOException {
+        out.writeRaw('{');
+        boolean first = true;
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+            if (!first) out.writeRaw(',');
+            first = false;
+            out.writeName(String.valueOf(entry.getKey()));
+            write(entry.getValue(), out);
+        }
+        out.writeRaw('}');
+    }
 
-        return pojoToJson(obj);
+    private static void writeIterable(Object value, JsonWriter out) throws IOException {
+        out.writeRaw('[');
+        boolean first = true;
+        for (Object item : (Iterable<?>) value) {
+            if (!first) out.writeRaw(',');
+            first = false;
+            write(item, out);
+        }
+        out.writeRaw(']');
     }
 
-    private static String mapToJson(Map<?, ?> map) {
-        StringBuilder sb = new StringBuilder("{");
-        int i = 0;
-        for (Map.Entry<?, ?> entry : map.entrySet()) {
-            if (i++ > 0) sb.append(",");
-            sb.append("\"").append(entry.getKey()).append("\":").append(toJson(entry.getValue()));
+    private static void writeObjectArray(Object value, JsonWriter out) throws IOException {
+        Object[] array = (Object[]) value;
+        out.writeRaw('[');
+        for (int i = 0; i < array.length; i++) {
+            if (i > 0) out.writeRaw(',');
+            write(array[i], out);
         }
-        sb.append("}");
-        return sb.toString();
+        out.writeRaw(']');
     }
 
-    private static String listToJson(List<?> list) {
-        StringBuilder sb = new StringBuilder("[");
-        for (int i = 0; i < list.size(); i++) {
-            if (i > 0) sb.append(",");
-            sb.append(toJson(list.get(i)));
+    private static void writePrimitiveArray(Object value, JsonWriter out) throws IOException {
+        int length = Array.getLength(value);
+        out.writeRaw('[');
+        for (int i = 0; i < length; i++) {
+            if (i > 0) out.writeRaw(',');
+            write(Array.get(value, i), out);
         }
-        sb.append("]");
-        return sb.toString();
+        out.writeRaw(']');
     }
 
-    private static String pojoToJson(Object obj) {
-        StringBuilder sb = new StringBuilder("{");
-        Field[] fields = obj.getClass().getDeclaredFields();
-        for (int i = 0; i < fields.length; i++) {
-            fields[i].setAccessible(true);
+    private static Serializer beanSerializer(BeanInfo info) {
+        BeanProperty[] properties = info.getProperties();
+        String[] names = new String[properties.length];
+        for (int i = 0; i < properties.length; i++) {
+            StringWriter name = new StringWriter();
             try {
-                Object value = fields[i].get(obj);
-                if (i > 0) sb.append(",");
-                sb.append("\"").append(fields[i].getName()).append("\":").append(toJson(value));
-            } catch (IllegalAccessException e) {
-                e.printStackTrace();
+                new JsonWriter(name).writeName(properties[i].getName());
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            names[i] = (i > 0 ? "," : "") + name;
+        }
+
+        return (v, out) -> {
+            out.writeRaw('{');
+            for (int i = 0; i < properties.length; i++) {
+                out.writeRaw(names[i]);
+                write(properties[i].get(v), out);
+            }
+            out.writeRaw('}');
+        };
+    }
+
+    /** Reads exactly one JSON value of the given type from the reader. */
+    public static Object read(Reader in, Type type) throws IOException {
+        JsonReader reader = new JsonReader(in);
+        Object value = read(reader, rawType(type), type);
+        reader.end();
+        return value;
+    }
+
+    public static Object read(JsonReader in, Class<?> type, Type genericType) throws IOException {
+        int c = in.peek();
+        if (c == 'n') {
+            in.readNull();
+            return TypeConverter.defaultValue(type);
+        }
+
+        if (type == Object.class) return readNatural(in);
+        if (Map.class.isAssignableFrom(type)) return readMap(in, type, typeArgument(genericType, 1));
+        if (Collection.class.isAssignableFrom(type)) return readCollection(in, type, typeArgument(genericType, 0));
+        if (type.isArray()) {
+            Class<?> component = type.getComponentType();
+            List<Object> items = readList(in, component, component);
+            Object array = Array.newInstance(component, items.size());
+            for (int i = 0; i < items.size(); i++) Array.set(array, i, items.get(i));
+            return array;
+        }
+
+        TypeConverter.Parser parser = TypeConverter.parserFor(type);
+        if (parser != null) {
+            String text;
+            if (c == '"') text = in.readString();
+            else if (c == 't' || c == 'f') text = String.valueOf(in.readBoolean());
+            else if (c == '-' || (c >= '0' && c <= '9')) text = in.readNumber();
+            else throw in.error("Expected a value for " + type.getSimpleName(), c);
+
+            Object value = parser.parse(text);
+            if (value == TypeConverter.INVALID) {
+                throw new JsonException("Invalid " + type.getSimpleName() + " value '" + text + "'");
             }
+            return value;
+        }
+
+        return readBean(in, BeanInfo.of(type));
+    }
+
+    private static Object readBean(JsonReader in, BeanInfo info) throws IOException {
+        Object bean = info.newInstance();
+        if (bean == null) throw new JsonException("Cannot instantiate " + info.getType().getSimpleName());
+
+        in.beginObject();
+        for (boolean first = true; ; first = false) {
+            String name = in.nextName(first);
+            if (name == null) return bean;
+
+            BeanProperty property = info.getProperty(name);
+            if (property == null || !property.isWritable()) {
+                in.skipValue();
+            } else {
+                property.set(bean, read(in, property.getType(), property.getGenericType()));
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object readMap(JsonReader in, Class<?> type, Type valueType) throws IOException {
+        Map<String, Object> map = type.isAssignableFrom(LinkedHashMap.class) ? new LinkedHashMap<>()
+                : (Map<String, Object>) BeanInfo.of(type).newInstance();
+        if (map == null) throw new JsonException("Cannot instantiate " + type.getSimpleName());
+
+        Class<?> rawValueType = rawType(valueType);
+        in.beginObject();
+        for (boolean first = true; ; first = false) {
+            String name = in.nextName(first);
+            if (name == null) return map;
+            map.put(name, read(in, rawValueType, valueType));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object readCollection(JsonReader in, Class<?> type, Type elementType) throws IOException {
+        Collection<Object> collection;
+        if (type.isAssignableFrom(ArrayList.class)) collection = new ArrayList<>();
+        else if (type.isAssignableFrom(LinkedHashSet.class)) collection = new LinkedHashSet<>();
+        else collection = (Collection<Object>) BeanInfo.of(type).newInstance();
+        if (collection == null) throw new JsonException("Cannot instantiate " + type.getSimpleName());
+
+        collection.addAll(readList(in, rawType(elementType), elementType));
+        return collection;
+    }
+
+    private static List<Object> readList(JsonReader in, Class<?> type, Type genericType) throws IOException {
+        List<Object> items = new ArrayList<>();
+        in.beginArray();
+        for (boolean first = true; in.hasNextElement(first); first = false) {
+            items.add(read(in, type, genericType));
         }
-        sb.append("}");
-        return sb.toString();
+        return items;
+    }
+
+    /** Maps, lists, strings, booleans, Long or Double for untyped targets. */
+    private static Object readNatural(JsonReader in) throws IOException {
+        int c = in.peek();
+        switch (c) {
+            case '{':
+                return readMap(in, LinkedHashMap.class, Object.class);
+            case '[':
+                return readList(in, Object.class, Object.class);
+            case '"':
+                return in.readString();
+            case 't':
+            case 'f':
+                return in.readBoolean();
+            case 'n':
+                in.readNull();
+                return null;
+            default:
+                String number = in.readNumber();
+                Object integral = TypeConverter.parserFor(Long.class).parse(number);
+                return integral != TypeConverter.INVALID ? integral : Double.parseDouble(number);
+        }
+    }
+
+    private static Type typeArgument(Type type, int index) {
+        if (type instanceof ParameterizedType) {
+            Type[] arguments = ((ParameterizedType) type).getActualTypeArguments();
+            if (index < arguments.length) return arguments[index];
+        }
+        return Object.class;
+    }
+
+    private static Class<?> rawType(Type type) {
+        if (type instanceof Class) return (Class<?>) type;
+        if (type instanceof ParameterizedType) return (Class<?>) ((ParameterizedType) type).getRawType();
+        return Object.class;
     }
 }
@@ -0,0 +1,255 @@
+package com.example.util;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Pull tokenizer over a Reader with its own small buffer. It never reads more
+ * of the input than the value being parsed needs and builds no token tree.
+ */
+public class JsonReader {
+
+    private static final int MAX_DEPTH = 512;
+
+    private final Reader in;
+    private final char[] buffer = new char[4096];
+    private final StringBuilder text = new StringBuilder();
+    private int position;
+    private int limit;
+    private int depth;
+
+    public JsonReader(Reader in) {
+        this.in = in;
+    }
+
+    /** Next non-whitespace character without consuming it, or -1 at end of input. */
+    public int peek() throws IOException {
+        while (true) {
+            if (position == limit && !fill()) return -1;
+            char c = buffer[position];
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') return c;
+            position++;
+        }
+    }
+
+    public void expect(char expected) throws IOException {
+        int c = peek();
+        if (c != expected) throw error("Expected '" + expected + "'", c);
+        position++;
+    }
+
+    /** Consumes the character if it is next, after whitespace. */
+    public boolean consume(char expected) throws IOException {
+        if (peek() != expected) return false;
+        position++;
+        return true;
+    }
+
+    public void beginObject() throws IOException {
+        enter();
+        expect('{');
+    }
+
+    /**
+     * Reads the next member name of the current object, or returns null after
+     * consuming the closing brace.
+     */
+    public String nextName(boolean first) throws IOException {
+        if (consume('}')) {
+            depth--;
+            return null;
+        }
+        if (!first) expect(',');
+        String name = readString();
+        expect(':');
+        return name;
+    }
+
+    public void beginArray() throws IOException {
+        enter();
+        expect('[');
+    }
+
+    /** True when another element follows, false after consuming the closing bracket. */
+    public boolean hasNextElement(boolean first) throws IOException {
+        if (consume(']')) {
+            depth--;
+            return false;
+        }
+        if (!first) expect(',');
+        return true;
+    }
+
+    public String readString() throws IOException {
+        expect('"');
+        text.setLength(0);
+        while (true) {
+            if (position == limit && !fill()) throw new JsonException("Unterminated string");
+            int start = position;
+            while (position < limit) {
+                char c = buffer[position];
+                if (c == '"' || c == '\\') break;
+                if (c < 0x20) throw new JsonException("Control character in string");
+                position++;
+            }
+            text.append(buffer, start, position - start);
+            if (position == limit) continue;
+
+            char c = buffer[position++];
+            if (c == '"') return text.toString();
+            text.append(readEscape());
+        }
+    }
+
+    private char readEscape() throws IOException {
+        char c = nextRaw();
+        switch (c) {
+            case '"': return '"';
+            case '\\': return '\\';
+            case '/': return '/';
+            case 'b': return '\b';
+            case 'f': return '\f';
+            case 'n': return '\n';
+            case 'r': return '\r';
+            case 't': return '\t';
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(nextRaw(), 16);
+                    if (digit < 0) throw new JsonException("Invalid unicode escape");
+                    value = (value << 4) | digit;
+                }
+                return (char) value;
+            default:
+                throw new JsonException("Invalid escape '\\" + c + "'");
+        }
+    }
+
+    /** The raw text of a number token, validated against the JSON grammar. */
+    public String readNumber() throws IOException {
+        peek();
+        text.setLength(0);
+        while (true) {
+            if (position == limit && !fill()) break;
+            char c = buffer[position];
+            if ((c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E') {
+                text.append(c);
+                position++;
+            } else {
+                break;
+            }
+        }
+        if (!isJsonNumber(text)) throw new JsonException("Invalid number '" + text + "'");
+        return text.toString();
+    }
+
+    public boolean readBoolean() throws IOException {
+        int c = peek();
+        if (c == 't') {
+            literal("true");
+            return true;
+        }
+        if (c == 'f') {
+            literal("false");
+            return false;
+        }
+        throw error("Expected boolean", c);
+    }
+
+    public void readNull() throws IOException {
+        literal("null");
+    }
+
+    /** Skips over the next value of any type, including nested containers. */
+    public void skipValue() throws IOException {
+        int c = peek();
+        switch (c) {
+            case '{':
+                beginObject();
+                for (boolean first = true; nextName(first) != null; first = false) skipValue();
+                break;
+            case '[':
+                beginArray();
+                for (boolean first = true; hasNextElement(first); first = false) skipValue();
+                break;
+            case '"':
+                readString();
+                break;
+            case 't':
+            case 'f':
+                readBoolean();
+                break;
+            case 'n':
+                readNull();
+                break;
+            default:
+                readNumber();
+        }
+    }
+
+    /** Fails unless only whitespace remains. */
+    public void end() throws IOException {
+        int c = peek();
+        if (c != -1) throw error("Unexpected trailing content", c);
+    }
+
+    public JsonException error(String message, int found) {
+        return new JsonException(message + (found < 0 ? " at end of input" : " but found '" + (char) found + "'"));
+    }
+
+    private void enter() throws JsonException {
+        if (++depth > MAX_DEPTH) throw new JsonException("Nesting deeper than " + MAX_DEPTH);
+    }
+
+    private void literal(String word) throws IOException {
+        peek();
+        for (int i = 0; i < word.length(); i++) {
+            if (nextRaw() != word.charAt(i)) throw new JsonException("Expected '" + word + "'");
+        }
+    }
+
+    private char nextRaw() throws IOException {
+        if (position == limit && !fill()) throw new JsonException("Unexpected end of input");
+        return buffer[position++];
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read(buffer, 0, buffer.length);
+        if (n <= 0) return false;
+        position = 0;
+        limit = n;
+        return true;
+    }
+
+    private static boolean isJsonNumber(CharSequence s) {
+        int length = s.length();
+        int i = 0;
+        if (i < length && s.charAt(i) == '-') i++;
+        if (i == length) return false;
+        if (s.charAt(i) == '0') {
+            i++;
+        } else if (s.charAt(i) >= '1' && s.charAt(i) <= '9') {
+            while (i < length && isDigit(s.charAt(i))) i++;
+        } else {
+            return false;
+        }
+        if (i < length && s.charAt(i) == '.') {
+            i++;
+            int start = i;
+            while (i < length && isDigit(s.charAt(i))) i++;
+            if (i == start) return false;
+        }
+        if (i < length && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+            i++;
+            if (i < length && (s.charAt(i) == '+' || s.charAt(i) == '-')) i++;
+            int start = i;
+            while (i < length && isDigit(s.charAt(i))) i++;
+            if (i == start) return false;
+        }
+        return i == length;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
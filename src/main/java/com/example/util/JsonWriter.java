@@ -0,0 +1,89 @@
+package com.example.util;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Low-level JSON token writer. Strings are escaped while being copied in runs
+ * straight to the underlying writer, so no intermediate strings are built.
+ */
+public class JsonWriter {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Writer out;
+    private final char[] escape = {'\\', 'u', '0', '0', '0', '0'};
+
+    public JsonWriter(Writer out) {
+        this.out = out;
+    }
+
+    public Writer getWriter() {
+        return out;
+    }
+
+    public void writeValue(Object value) throws IOException {
+        JsonConverter.write(value, this);
+    }
+
+    public void writeRaw(String s) throws IOException {
+        out.write(s);
+    }
+
+    public void writeRaw(char c) throws IOException {
+        out.write(c);
+    }
+
+    public void writeNull() throws IOException {
+        out.write("null");
+    }
+
+    public void writeName(String name) throws IOException {
+        writeString(name);
+        out.write(':');
+    }
+
+    public void writeString(CharSequence s) throws IOException {
+        out.write('"');
+        int length = s.length();
+        int run = 0;
+        String str = s instanceof String ? (String) s : null;
+
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            String replacement = null;
+            if (c == '"') replacement = "\\\"";
+            else if (c == '\\') replacement = "\\\\";
+            else if (c >= 0x20 && c != '\u2028' && c != '\u2029') continue;
+            else if (c == '\n') replacement = "\\n";
+            else if (c == '\r') replacement = "\\r";
+            else if (c == '\t') replacement = "\\t";
+            else if (c == '\b') replacement = "\\b";
+            else if (c == '\f') replacement = "\\f";
+
+            flushRun(s, str, run, i);
+            run = i + 1;
+            if (replacement != null) {
+                out.write(replacement);
+            } else {
+                escape[2] = HEX[(c >> 12) & 0xF];
+                escape[3] = HEX[(c >> 8) & 0xF];
+                escape[4] = HEX[(c >> 4) & 0xF];
+                escape[5] = HEX[c & 0xF];
+                out.write(escape, 0, 6);
+            }
+        }
+        flushRun(s, str, run, length);
+        out.write('"');
+    }
+
+    private void flushRun(CharSequence s, String str, int from, int to) throws IOException {
+        if (to <= from) return;
+        if (str != null) out.write(str, from, to - from);
+        else out.append(s, from, to);
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+}
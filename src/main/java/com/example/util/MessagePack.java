@@ -0,0 +1,445 @@
+package com.example.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Array;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * MessagePack counterpart of {@link JsonConverter}, for clients that ask for
+ * application/msgpack. Values map the way they do in JSON, through the same
+ * {@link BeanInfo} metadata and the same envelope, except that numbers stay
+ * binary (BigDecimal as a double), byte[] is binary data instead of Base64, and
+ * NaN and infinities are kept.
+ */
+public class MessagePack {
+
+    public static final String MEDIA_TYPE = "application/msgpack";
+
+    @FunctionalInterface
+    interface Serializer {
+        void write(Object value, MessagePackWriter out) throws IOException;
+    }
+
+    private static final ClassValue<Serializer> SERIALIZERS = new ClassValue<Serializer>() {
+        @Override
+        protected Serializer computeValue(Class<?> type) {
+            return createSerializer(type);
+        }
+    };
+
+    private static final byte[] ENVELOPE_OK = envelopeOk();
+
+    private static byte[] envelopeOk() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        MessagePackWriter out = new MessagePackWriter(bytes);
+        try {
+            out.writeMapHeader(4);
+            out.writeString("status");
+            out.writeString("success");
+            out.writeString("code");
+            out.writeLong(200);
+            out.writeString("message");
+            out.writeString("OK");
+            out.writeString("data");
+            out.flush();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Whether the Accept header asks for MessagePack (application/msgpack or
+     * application/x-msgpack) at least as strongly as for JSON.
+     */
+    public static boolean isAccepted(String accept) {
+        if (accept == null || !accept.contains("msgpack")) return false;
+        double msgpack = 0;
+        double json = 0;
+        for (String range : accept.split(",")) {
+            String[] tokens = range.split(";");
+            String type = tokens[0].trim().toLowerCase(Locale.ROOT);
+            double q = 1;
+            for (int i = 1; i < tokens.length; i++) {
+                String param = tokens[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        q = Double.parseDouble(param.substring(2));
+                    } catch (NumberFormatException ignored) {
+                        q = 0;
+                    }
+                }
+            }
+            if (type.equals(MEDIA_TYPE) || type.equals("application/x-msgpack")) msgpack = Math.max(msgpack, q);
+            else if (type.equals("application/json")) json = Math.max(json, q);
+        }
+        return msgpack > 0 && msgpack >= json;
+    }
+
+    /** Whether a request Content-Type is MessagePack. */
+    public static boolean isMessagePack(String contentType) {
+        if (contentType == null) return false;
+        String type = contentType.toLowerCase(Locale.ROOT);
+        int end = type.indexOf(';');
+        if (end >= 0) type = type.substring(0, end);
+        type = type.trim();
+        return type.equals(MEDIA_TYPE) || type.equals("application/x-msgpack") || type.endsWith("+msgpack");
+    }
+
+    public static byte[] toBytes(Object obj) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            write(obj, bytes);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static void write(Object obj, OutputStream out) throws IOException {
+        MessagePackWriter writer = new MessagePackWriter(out);
+        write(obj, writer);
+        writer.flushBuffer();
+    }
+
+    /** Writes the standard REST envelope around the data, as {@link JsonConverter#writeEnvelope} does. */
+    public static void writeEnvelope(Object data, OutputStream out) throws IOException {
+        MessagePackWriter writer = new MessagePackWriter(out);
+        writer.writeRaw(ENVELOPE_OK);
+        write(data, writer);
+        writer.flushBuffer();
+    }
+
+    static void write(Object obj, MessagePackWriter out) throws IOException {
+        if (obj == null) {
+            out.writeNil();
+            return;
+        }
+        SERIALIZERS.get(obj.getClass()).write(obj, out);
+    }
+
+    private static Serializer createSerializer(Class<?> type) {
+        if (CharSequence.class.isAssignableFrom(type)) return (v, out) -> out.writeString((CharSequence) v);
+        if (type == Character.class || type == UUID.class) return (v, out) -> out.writeString(v.toString());
+        if (type == Boolean.class) return (v, out) -> out.writeBoolean((Boolean) v);
+        if (type == Integer.class || type == Long.class || type == Short.class || type == Byte.class) {
+            return (v, out) -> out.writeLong(((Number) v).longValue());
+        }
+        if (type == Double.class) return (v, out) -> out.writeDouble((Double) v);
+        if (type == Float.class) return (v, out) -> out.writeFloat((Float) v);
+        if (type == BigInteger.class) {
+            return (v, out) -> {
+                BigInteger value = (BigInteger) v;
+                if (value.bitLength() < 64) out.writeLong(value.longValue());
+                else out.writeString(value.toString());
+            };
+        }
+        if (Number.class.isAssignableFrom(type)) {
+            return (v, out) -> {
+                Number value = (Number) v;
+                if (value instanceof BigDecimal && ((BigDecimal) value).scale() <= 0
+                        && ((BigDecimal) value).abs().compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) <= 0) {
+                    out.writeLong(value.longValue());
+                } else {
+                    out.writeDouble(value.doubleValue());
+                }
+            };
+        }
+        if (type.isEnum() || (type.getSuperclass() != null && type.getSuperclass().isEnum())) {
+            return (v, out) -> out.writeString(((Enum<?>) v).name());
+        }
+        if (TemporalAccessor.class.isAssignableFrom(type)) return (v, out) -> out.writeString(v.toString());
+        if (Date.class.isAssignableFrom(type)) {
+            return (v, out) -> out.writeString(((Date) v).toInstant().toString());
+        }
+        if (Calendar.class.isAssignableFrom(type)) {
+            return (v, out) -> out.writeString(((Calendar) v).toInstant().toString());
+        }
+        if (Map.class.isAssignableFrom(type)) return MessagePack::writeMap;
+        if (Collection.class.isAssignableFrom(type)) return MessagePack::writeCollection;
+        if (Iterable.class.isAssignableFrom(type)) {
+            return (v, out) -> {
+                List<Object> items = new ArrayList<>();
+                for (Object item : (Iterable<?>) v) items.add(item);
+                writeCollection(items, out);
+            };
+        }
+        if (type == byte[].class) return (v, out) -> out.writeBinary((byte[]) v);
+        if (type == int[].class) {
+            return (v, out) -> {
+                int[] array = (int[]) v;
+                out.writeArrayHeader(array.length);
+                for (int item : array) out.writeLong(item);
+            };
+        }
+        if (type == long[].class) {
+            return (v, out) -> {
+                long[] array = (long[]) v;
+                out.writeArrayHeader(array.length);
+                for (long item : array) out.writeLong(item);
+            };
+        }
+        if (type == double[].class) {
+            return (v, out) -> {
+                double[] array = (double[]) v;
+                out.writeArrayHeader(array.length);
+                for (double item : array) out.writeDouble(item);
+            };
+        }
+        if (type.isArray()) {
+            return type.getComponentType().isPrimitive() ? MessagePack::writePrimitiveArray
+                    : MessagePack::writeObjectArray;
+        }
+        return beanSerializer(BeanInfo.of(type));
+    }
+
+    private static void writeMap(Object value, MessagePackWriter out) throws IOException {
+        Map<?, ?> map = (Map<?, ?>) value;
+        out.writeMapHeader(map.size());
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            out.writeString(String.valueOf(entry.getKey()));
+            write(entry.getValue(), out);
+        }
+    }
+
+    private static void writeCollection(Object value, MessagePackWriter out) throws IOException {
+        Collection<?> items = (Collection<?>) value;
+        out.writeArrayHeader(items.size());
+        for (Object item : items) write(item, out);
+    }
+
+    private static void writeObjectArray(Object value, MessagePackWriter out) throws IOException {
+        Object[] array = (Object[]) value;
+        out.writeArrayHeader(array.length);
+        for (Object item : array) write(item, out);
+    }
+
+    private static void writePrimitiveArray(Object value, MessagePackWriter out) throws IOException {
+        int length = Array.getLength(value);
+        out.writeArrayHeader(length);
+        for (int i = 0; i < length; i++) write(Array.get(value, i), out);
+    }
+
+    private static Serializer beanSerializer(BeanInfo info) {
+        BeanProperty[] properties = info.getProperties();
+        byte[][] names = new byte[properties.length][];
+        for (int i = 0; i < properties.length; i++) {
+            ByteArrayOutputStream name = new ByteArrayOutputStream();
+            MessagePackWriter writer = new MessagePackWriter(name);
+            try {
+                writer.writeString(properties[i].getName());
+                writer.flush();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            names[i] = name.toByteArray();
+        }
+
+        return (v, out) -> {
+            out.writeMapHeader(properties.length);
+            for (int i = 0; i < properties.length; i++) {
+                out.writeRaw(names[i]);
+                write(properties[i].get(v), out);
+            }
+        };
+    }
+
+    /** Reads exactly one MessagePack value of the given type from the stream. */
+    public static Object read(InputStream in, Type type) throws IOException {
+        return read(in, type, Long.MAX_VALUE);
+    }
+
+    /** Like {@link #read(InputStream, Type)}, for input of at most maxLength bytes, e.g. a bounded request body. */
+    public static Object read(InputStream in, Type type, long maxLength) throws IOException {
+        MessagePackReader reader = new MessagePackReader(in, maxLength);
+        Object value = read(reader, rawType(type), type);
+        reader.end();
+        return value;
+    }
+
+    public static Object read(MessagePackReader in, Class<?> type, Type genericType) throws IOException {
+        MessagePackReader.Kind kind = in.peek();
+        if (kind == MessagePackReader.Kind.NIL) {
+            in.readNil();
+            return TypeConverter.defaultValue(type);
+        }
+
+        if (type == Object.class) return readNatural(in);
+        if (Map.class.isAssignableFrom(type)) return readMap(in, type, typeArgument(genericType, 1));
+        if (Collection.class.isAssignableFrom(type)) return readCollection(in, type, typeArgument(genericType, 0));
+        if (type == byte[].class && kind == MessagePackReader.Kind.BINARY) return in.readBinary();
+        if (type.isArray()) {
+            Class<?> component = type.getComponentType();
+            List<Object> items = readList(in, component, component);
+            Object array = Array.newInstance(component, items.size());
+            for (int i = 0; i < items.size(); i++) Array.set(array, i, items.get(i));
+            return array;
+        }
+
+        TypeConverter.Parser parser = TypeConverter.parserFor(type);
+        if (parser != null) return readScalar(in, kind, type, parser);
+
+        if (kind != MessagePackReader.Kind.MAP) {
+            throw new MessagePackException("Expected a map for " + type.getSimpleName());
+        }
+        return readBean(in, BeanInfo.of(type));
+    }
+
+    /** Binary numbers go straight into numeric targets; anything else through the usual text parser. */
+    private static Object readScalar(MessagePackReader in, MessagePackReader.Kind kind, Class<?> type,
+                                     TypeConverter.Parser parser) throws IOException {
+        String text;
+        switch (kind) {
+            case INTEGER:
+                long integral = in.readLong();
+                if (type == long.class || type == Long.class) return integral;
+                if ((type == int.class || type == Integer.class)
+                        && integral >= Integer.MIN_VALUE && integral <= Integer.MAX_VALUE) {
+                    return (int) integral;
+                }
+                if (type == double.class || type == Double.class) return (double) integral;
+                text = Long.toString(integral);
+                break;
+            case FLOAT:
+                double d = in.readDouble();
+                if (type == double.class || type == Double.class) return d;
+                if (type == BigDecimal.class && !Double.isNaN(d) && !Double.isInfinite(d)) {
+                    return BigDecimal.valueOf(d);
+                }
+                text = Double.toString(d);
+                break;
+            case BOOLEAN:
+                boolean b = in.readBoolean();
+                if (type == boolean.class || type == Boolean.class) return b;
+                text = Boolean.toString(b);
+                break;
+            case STRING:
+                text = in.readString();
+                if (type == String.class) return text;
+                break;
+            default:
+                throw new MessagePackException("Expected a value for " + type.getSimpleName());
+        }
+        Object value = parser.parse(text);
+        if (value == TypeConverter.INVALID) {
+            throw new MessagePackException("Invalid " + type.getSimpleName() + " value '" + text + "'");
+        }
+        return value;
+    }
+
+    private static Object readBean(MessagePackReader in, BeanInfo info) throws IOException {
+        Object bean = info.newInstance();
+        if (bean == null) throw new MessagePackException("Cannot instantiate " + info.getType().getSimpleName());
+
+        for (int i = in.readMapHeader(); i > 0; i--) {
+            String name = readKey(in);
+            BeanProperty property = info.getProperty(name);
+            if (property == null || !property.isWritable()) {
+                in.skipValue();
+            } else {
+                property.set(bean, read(in, property.getType(), property.getGenericType()));
+            }
+        }
+        in.endContainer();
+        return bean;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object readMap(MessagePackReader in, Class<?> type, Type valueType) throws IOException {
+        Map<String, Object> map = type.isAssignableFrom(LinkedHashMap.class) ? new LinkedHashMap<>()
+                : (Map<String, Object>) BeanInfo.of(type).newInstance();
+        if (map == null) throw new MessagePackException("Cannot instantiate " + type.getSimpleName());
+
+        Class<?> rawValueType = rawType(valueType);
+        for (int i = in.readMapHeader(); i > 0; i--) {
+            String name = readKey(in);
+            map.put(name, read(in, rawValueType, valueType));
+        }
+        in.endContainer();
+        return map;
+    }
+
+    /** Map keys are strings in JSON; other scalar keys are accepted by their text. */
+    private static String readKey(MessagePackReader in) throws IOException {
+        if (in.peek() == MessagePackReader.Kind.STRING) return in.readString();
+        Object key = readNatural(in);
+        if (key instanceof Map || key instanceof List) throw new MessagePackException("Unsupported map key");
+        return String.valueOf(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object readCollection(MessagePackReader in, Class<?> type, Type elementType) throws IOException {
+        Collection<Object> collection;
+        if (type.isAssignableFrom(ArrayList.class)) collection = new ArrayList<>();
+        else if (type.isAssignableFrom(LinkedHashSet.class)) collection = new LinkedHashSet<>();
+        else collection = (Collection<Object>) BeanInfo.of(type).newInstance();
+        if (collection == null) throw new MessagePackException("Cannot instantiate " + type.getSimpleName());
+
+        collection.addAll(readList(in, rawType(elementType), elementType));
+        return collection;
+    }
+
+    private static List<Object> readList(MessagePackReader in, Class<?> type, Type genericType) throws IOException {
+        int size = in.readArrayHeader();
+        List<Object> items = new ArrayList<>(Math.min(size, 1024));
+        for (int i = 0; i < size; i++) items.add(read(in, type, genericType));
+        in.endContainer();
+        return items;
+    }
+
+    /** Maps, lists, strings, booleans, Long, Double or byte[] for untyped targets. */
+    private static Object readNatural(MessagePackReader in) throws IOException {
+        switch (in.peek()) {
+            case MAP:
+                return readMap(in, LinkedHashMap.class, Object.class);
+            case ARRAY:
+                return readList(in, Object.class, Object.class);
+            case STRING:
+                return in.readString();
+            case BOOLEAN:
+                return in.readBoolean();
+            case NIL:
+                in.readNil();
+                return null;
+            case FLOAT:
+                return in.readDouble();
+            case BINARY:
+                return in.readBinary();
+            case INTEGER:
+                return in.readLong();
+            default:
+                throw new MessagePackException("MessagePack extension types are not supported");
+        }
+    }
+
+    private static Type typeArgument(Type type, int index) {
+        if (type instanceof ParameterizedType) {
+            Type[] arguments = ((ParameterizedType) type).getActualTypeArguments();
+            if (index < arguments.length) return arguments[index];
+        }
+        return Object.class;
+    }
+
+    private static Class<?> rawType(Type type) {
+        if (type instanceof Class) return (Class<?>) type;
+        if (type instanceof ParameterizedType) return (Class<?>) ((ParameterizedType) type).getRawType();
+        return Object.class;
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.util;
+
+import java.io.IOException;
+
+public class MessagePackException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public MessagePackException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,281 @@
+package com.example.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Pull reader for MessagePack over an InputStream with its own small buffer.
+ * Like {@link JsonReader} it builds no tree; containers are read as a header
+ * followed by their elements.
+ */
+public class MessagePackReader {
+
+    public enum Kind { NIL, BOOLEAN, INTEGER, FLOAT, STRING, BINARY, ARRAY, MAP, EXTENSION }
+
+    private static final int MAX_DEPTH = 512;
+    private static final int CHUNK = 64 * 1024;
+
+    private final InputStream in;
+    private final long maxLength;
+    private final byte[] buffer = new byte[4096];
+    private int position;
+    private int limit;
+    private int depth;
+
+    public MessagePackReader(InputStream in) {
+        this(in, Long.MAX_VALUE);
+    }
+
+    /** A reader that rejects strings and binary data declared longer than maxLength, e.g. the body limit. */
+    public MessagePackReader(InputStream in, long maxLength) {
+        this.in = in;
+        this.maxLength = maxLength;
+    }
+
+    /** Kind of the next value without consuming it. */
+    public Kind peek() throws IOException {
+        int b = peekByte();
+        if (b < 0) throw new MessagePackException("Unexpected end of input");
+        if (b <= 0x7f || b >= 0xe0) return Kind.INTEGER;
+        if (b <= 0x8f) return Kind.MAP;
+        if (b <= 0x9f) return Kind.ARRAY;
+        if (b <= 0xbf) return Kind.STRING;
+        switch (b) {
+            case 0xc0:
+                return Kind.NIL;
+            case 0xc2:
+            case 0xc3:
+                return Kind.BOOLEAN;
+            case 0xc4:
+            case 0xc5:
+            case 0xc6:
+                return Kind.BINARY;
+            case 0xca:
+            case 0xcb:
+                return Kind.FLOAT;
+            case 0xcc: case 0xcd: case 0xce: case 0xcf:
+            case 0xd0: case 0xd1: case 0xd2: case 0xd3:
+                return Kind.INTEGER;
+            case 0xd9:
+            case 0xda:
+            case 0xdb:
+                return Kind.STRING;
+            case 0xdc:
+            case 0xdd:
+                return Kind.ARRAY;
+            case 0xde:
+            case 0xdf:
+                return Kind.MAP;
+            case 0xc1:
+                throw new MessagePackException("Invalid MessagePack byte 0xc1");
+            default:
+                return Kind.EXTENSION;
+        }
+    }
+
+    public void readNil() throws IOException {
+        if (readByte() != 0xc0) throw new MessagePackException("Expected nil");
+    }
+
+    public boolean readBoolean() throws IOException {
+        int b = readByte();
+        if (b == 0xc3) return true;
+        if (b == 0xc2) return false;
+        throw new MessagePackException("Expected a boolean");
+    }
+
+    public long readLong() throws IOException {
+        int b = readByte();
+        if (b <= 0x7f) return b;
+        if (b >= 0xe0) return (byte) b;
+        switch (b) {
+            case 0xcc:
+                return readByte();
+            case 0xcd:
+                return readUnsigned(2);
+            case 0xce:
+                return readUnsigned(4);
+            case 0xcf:
+                long value = readUnsigned(8);
+                if (value < 0) throw new MessagePackException("Integer exceeds the long range");
+                return value;
+            case 0xd0:
+                return (byte) readByte();
+            case 0xd1:
+                return (short) readUnsigned(2);
+            case 0xd2:
+                return (int) readUnsigned(4);
+            case 0xd3:
+                return readUnsigned(8);
+            default:
+                throw new MessagePackException("Expected an integer");
+        }
+    }
+
+    public double readDouble() throws IOException {
+        int b = readByte();
+        if (b == 0xca) return Float.intBitsToFloat((int) readUnsigned(4));
+        if (b == 0xcb) return Double.longBitsToDouble(readUnsigned(8));
+        throw new MessagePackException("Expected a float");
+    }
+
+    public String readString() throws IOException {
+        int b = readByte();
+        int length;
+        if (b >= 0xa0 && b <= 0xbf) length = b & 0x1f;
+        else if (b == 0xd9) length = readByte();
+        else if (b == 0xda) length = (int) readUnsigned(2);
+        else if (b == 0xdb) length = size(readUnsigned(4));
+        else throw new MessagePackException("Expected a string");
+        return new String(readBytes(length), StandardCharsets.UTF_8);
+    }
+
+    public byte[] readBinary() throws IOException {
+        int b = readByte();
+        int length;
+        if (b == 0xc4) length = readByte();
+        else if (b == 0xc5) length = (int) readUnsigned(2);
+        else if (b == 0xc6) length = size(readUnsigned(4));
+        else throw new MessagePackException("Expected binary data");
+        return readBytes(length);
+    }
+
+    /** Element count of the array that follows; the elements are read next. */
+    public int readArrayHeader() throws IOException {
+        int b = readByte();
+        int size;
+        if (b >= 0x90 && b <= 0x9f) size = b & 0x0f;
+        else if (b == 0xdc) size = (int) readUnsigned(2);
+        else if (b == 0xdd) size = size(readUnsigned(4));
+        else throw new MessagePackException("Expected an array");
+        enter();
+        return size;
+    }
+
+    /** Entry count of the map that follows; keys and values are read next, alternately. */
+    public int readMapHeader() throws IOException {
+        int b = readByte();
+        int size;
+        if (b >= 0x80 && b <= 0x8f) size = b & 0x0f;
+        else if (b == 0xde) size = (int) readUnsigned(2);
+        else if (b == 0xdf) size = size(readUnsigned(4));
+        else throw new MessagePackException("Expected a map");
+        enter();
+        return size;
+    }
+
+    /** Marks the end of the array or map whose header was read last. */
+    public void endContainer() {
+        depth--;
+    }
+
+    public void skipValue() throws IOException {
+        switch (peek()) {
+            case ARRAY:
+                for (int i = readArrayHeader(); i > 0; i--) skipValue();
+                endContainer();
+                return;
+            case MAP:
+                for (int i = readMapHeader() * 2; i > 0; i--) skipValue();
+                endContainer();
+                return;
+            case EXTENSION:
+                skip(extensionLength());
+                return;
+            case STRING:
+                readString();
+                return;
+            case BINARY:
+                readBinary();
+                return;
+            case FLOAT:
+                readDouble();
+                return;
+            case BOOLEAN:
+                readBoolean();
+                return;
+            case NIL:
+                readNil();
+                return;
+            default:
+                readLong();
+        }
+    }
+
+    /** Fails unless the whole input has been consumed. */
+    public void end() throws IOException {
+        if (peekByte() >= 0) throw new MessagePackException("Unexpected data after the value");
+    }
+
+    private int extensionLength() throws IOException {
+        int b = readByte();
+        int length;
+        switch (b) {
+            case 0xd4: length = 1; break;
+            case 0xd5: length = 2; break;
+            case 0xd6: length = 4; break;
+            case 0xd7: length = 8; break;
+            case 0xd8: length = 16; break;
+            case 0xc7: length = readByte(); break;
+            case 0xc8: length = (int) readUnsigned(2); break;
+            case 0xc9: length = size(readUnsigned(4)); break;
+            default: throw new MessagePackException("Expected an extension");
+        }
+        return length + 1;
+    }
+
+    private void enter() throws MessagePackException {
+        if (++depth > MAX_DEPTH) throw new MessagePackException("Nesting deeper than " + MAX_DEPTH);
+    }
+
+    private static int size(long value) throws MessagePackException {
+        if (value > Integer.MAX_VALUE - 8) throw new MessagePackException("Length " + value + " is too large");
+        return (int) value;
+    }
+
+    private int peekByte() throws IOException {
+        if (position == limit && !fill()) return -1;
+        return buffer[position] & 0xff;
+    }
+
+    private int readByte() throws IOException {
+        if (position == limit && !fill()) throw new MessagePackException("Unexpected end of input");
+        return buffer[position++] & 0xff;
+    }
+
+    private long readUnsigned(int bytes) throws IOException {
+        long value = 0;
+        for (int i = 0; i < bytes; i++) value = (value << 8) | readByte();
+        return value;
+    }
+
+    /** Grows the array as the data arrives, so a forged length costs no more than the bytes actually sent. */
+    private byte[] readBytes(int length) throws IOException {
+        if (length > maxLength) throw new MessagePackException("Length " + length + " exceeds " + maxLength + " bytes");
+        byte[] bytes = new byte[Math.min(length, CHUNK)];
+        int copied = 0;
+        while (copied < length) {
+            if (copied == bytes.length) bytes = Arrays.copyOf(bytes, (int) Math.min(length, 2L * bytes.length));
+            if (position == limit && !fill()) throw new MessagePackException("Unexpected end of input");
+            int n = Math.min(bytes.length - copied, limit - position);
+            System.arraycopy(buffer, position, bytes, copied, n);
+            position += n;
+            copied += n;
+        }
+        return bytes;
+    }
+
+    private void skip(int length) throws IOException {
+        for (int i = 0; i < length; i++) readByte();
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read(buffer, 0, buffer.length);
+        if (n <= 0) return false;
+        position = 0;
+        limit = n;
+        return true;
+    }
+}
@@ -0,0 +1,250 @@
+package com.example.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Low-level MessagePack writer with its own buffer. Integers use their
+ * smallest encoding; strings are UTF-8 encoded straight into the buffer.
+ */
+public class MessagePackWriter {
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[8192];
+    private int count;
+
+    public MessagePackWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    public void writeValue(Object value) throws IOException {
+        MessagePack.write(value, this);
+    }
+
+    public void writeNil() throws IOException {
+        ensure(1);
+        buffer[count++] = (byte) 0xc0;
+    }
+
+    public void writeBoolean(boolean value) throws IOException {
+        ensure(1);
+        buffer[count++] = (byte) (value ? 0xc3 : 0xc2);
+    }
+
+    public void writeLong(long value) throws IOException {
+        ensure(9);
+        if (value >= -32 && value < 128) {
+            buffer[count++] = (byte) value;
+        } else if (value >= 0) {
+            if (value < 0x100) {
+                buffer[count++] = (byte) 0xcc;
+                buffer[count++] = (byte) value;
+            } else if (value < 0x10000) {
+                buffer[count++] = (byte) 0xcd;
+                putShort((int) value);
+            } else if (value < 0x100000000L) {
+                buffer[count++] = (byte) 0xce;
+                putInt((int) value);
+            } else {
+                buffer[count++] = (byte) 0xcf;
+                putLong(value);
+            }
+        } else if (value >= Byte.MIN_VALUE) {
+            buffer[count++] = (byte) 0xd0;
+            buffer[count++] = (byte) value;
+        } else if (value >= Short.MIN_VALUE) {
+            buffer[count++] = (byte) 0xd1;
+            putShort((int) value);
+        } else if (value >= Integer.MIN_VALUE) {
+            buffer[count++] = (byte) 0xd2;
+            putInt((int) value);
+        } else {
+            buffer[count++] = (byte) 0xd3;
+            putLong(value);
+        }
+    }
+
+    public void writeDouble(double value) throws IOException {
+        ensure(9);
+        buffer[count++] = (byte) 0xcb;
+        putLong(Double.doubleToRawLongBits(value));
+    }
+
+    public void writeFloat(float value) throws IOException {
+        ensure(5);
+        buffer[count++] = (byte) 0xca;
+        putInt(Float.floatToRawIntBits(value));
+    }
+
+    /** Encodes the string as UTF-8, reserving the header for the worst case and fixing it up after. */
+    public void writeString(CharSequence s) throws IOException {
+        int length = s.length();
+        if (length <= 31 && isAscii(s, length)) {
+            ensure(1 + length);
+            buffer[count++] = (byte) (0xa0 | length);
+            for (int i = 0; i < length; i++) buffer[count++] = (byte) s.charAt(i);
+            return;
+        }
+        int maxBytes = length * 3;
+        if (maxBytes + 5 > buffer.length) {
+            byte[] bytes = s.toString().getBytes(StandardCharsets.UTF_8);
+            writeStringHeader(bytes.length);
+            writeRaw(bytes, 0, bytes.length);
+            return;
+        }
+        ensure(maxBytes + 5);
+        int header = maxBytes <= 0xff ? 2 : maxBytes <= 0xffff ? 3 : 5;
+        int start = count;
+        int position = start + header;
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                buffer[position++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xc0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int code = Character.toCodePoint(c, s.charAt(++i));
+                buffer[position++] = (byte) (0xf0 | (code >> 18));
+                buffer[position++] = (byte) (0x80 | ((code >> 12) & 0x3f));
+                buffer[position++] = (byte) (0x80 | ((code >> 6) & 0x3f));
+                buffer[position++] = (byte) (0x80 | (code & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                buffer[position++] = '?';
+            } else {
+                buffer[position++] = (byte) (0xe0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                buffer[position++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        int bytes = position - start - header;
+        count = start;
+        if (header == 2) {
+            buffer[count++] = (byte) 0xd9;
+            buffer[count++] = (byte) bytes;
+        } else if (header == 3) {
+            buffer[count++] = (byte) 0xda;
+            putShort(bytes);
+        } else {
+            buffer[count++] = (byte) 0xdb;
+            putInt(bytes);
+        }
+        count = position;
+    }
+
+    private static boolean isAscii(CharSequence s, int length) {
+        for (int i = 0; i < length; i++) {
+            if (s.charAt(i) >= 0x80) return false;
+        }
+        return true;
+    }
+
+    private void writeStringHeader(int bytes) throws IOException {
+        ensure(5);
+        if (bytes <= 31) {
+            buffer[count++] = (byte) (0xa0 | bytes);
+        } else if (bytes <= 0xff) {
+            buffer[count++] = (byte) 0xd9;
+            buffer[count++] = (byte) bytes;
+        } else if (bytes <= 0xffff) {
+            buffer[count++] = (byte) 0xda;
+            putShort(bytes);
+        } else {
+            buffer[count++] = (byte) 0xdb;
+            putInt(bytes);
+        }
+    }
+
+    public void writeBinary(byte[] bytes) throws IOException {
+        ensure(5);
+        if (bytes.length <= 0xff) {
+            buffer[count++] = (byte) 0xc4;
+            buffer[count++] = (byte) bytes.length;
+        } else if (bytes.length <= 0xffff) {
+            buffer[count++] = (byte) 0xc5;
+            putShort(bytes.length);
+        } else {
+            buffer[count++] = (byte) 0xc6;
+            putInt(bytes.length);
+        }
+        writeRaw(bytes, 0, bytes.length);
+    }
+
+    public void writeArrayHeader(int size) throws IOException {
+        ensure(5);
+        if (size <= 15) {
+            buffer[count++] = (byte) (0x90 | size);
+        } else if (size <= 0xffff) {
+            buffer[count++] = (byte) 0xdc;
+            putShort(size);
+        } else {
+            buffer[count++] = (byte) 0xdd;
+            putInt(size);
+        }
+    }
+
+    public void writeMapHeader(int size) throws IOException {
+        ensure(5);
+        if (size <= 15) {
+            buffer[count++] = (byte) (0x80 | size);
+        } else if (size <= 0xffff) {
+            buffer[count++] = (byte) 0xde;
+            putShort(size);
+        } else {
+            buffer[count++] = (byte) 0xdf;
+            putInt(size);
+        }
+    }
+
+    /** Already encoded bytes, such as a pre-encoded property name. */
+    public void writeRaw(byte[] bytes, int offset, int length) throws IOException {
+        if (length > buffer.length - count) {
+            flushBuffer();
+            if (length > buffer.length) {
+                out.write(bytes, offset, length);
+                return;
+            }
+        }
+        System.arraycopy(bytes, offset, buffer, count, length);
+        count += length;
+    }
+
+    public void writeRaw(byte[] bytes) throws IOException {
+        writeRaw(bytes, 0, bytes.length);
+    }
+
+    /** Hands buffered bytes to the stream without flushing it. */
+    public void flushBuffer() throws IOException {
+        if (count > 0) {
+            out.write(buffer, 0, count);
+            count = 0;
+        }
+    }
+
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.length - count < bytes) flushBuffer();
+    }
+
+    private void putShort(int value) {
+        buffer[count++] = (byte) (value >>> 8);
+        buffer[count++] = (byte) value;
+    }
+
+    private void putInt(int value) {
+        buffer[count++] = (byte) (value >>> 24);
+        buffer[count++] = (byte) (value >>> 16);
+        buffer[count++] = (byte) (value >>> 8);
+        buffer[count++] = (byte) value;
+    }
+
+    private void putLong(long value) {
+        putInt((int) (value >>> 32));
+        putInt((int) value);
+    }
+}
@@ -5,43 +5,79 @@ import javax.servlet.http.Part;
 import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 public class MultipartHelper {
 
-        public static Map<String, byte[]> saveOnTomcat(HttpServletRequest request) throws Exception {
-            Map<String, byte[]> files = new HashMap<>();
+    private static final String FILES_ATTRIBUTE = "__files__";
 
+    public static boolean isMultipart(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        return contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith("multipart/");
+    }
+
+    /** File parts of the request, parsed on first call; empty for non-multipart requests. */
+    public static List<UploadedFile> files(HttpServletRequest request) throws Exception {
+        if (!isMultipart(request)) return Collections.emptyList();
+
+        List<UploadedFile> files = new ArrayList<>();
+        for (Part part : request.getParts()) {
+            if (part.getSubmittedFileName() != null) files.add(new UploadedFile(part));
+        }
+        return files;
+    }
+
+    /** The file sent in the named field, or null. */
+    public static UploadedFile file(HttpServletRequest request, String name) throws Exception {
+        if (!isMultipart(request)) return null;
+        Part part = request.getPart(name);
+        return part == null || part.getSubmittedFileName() == null ? null : new UploadedFile(part);
+    }
+
+    /**
+     * Copies every uploaded file to WEB-INF/uploads and returns their contents by
+     * file name. Kept for handlers taking Map&lt;String, byte[]&gt;; it loads whole
+     * files into memory, so prefer {@link UploadedFile}.
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, byte[]> saveOnTomcat(HttpServletRequest request) throws Exception {
+        Object saved = request.getAttribute(FILES_ATTRIBUTE);
+        if (saved != null) return (Map<String, byte[]>) saved;
+
+        Map<String, byte[]> files = new HashMap<>();
+        if (isMultipart(request)) {
             String uploadDir = request.getServletContext().getRealPath("/WEB-INF/uploads");
             File dir = new File(uploadDir);
             if (!dir.exists()) dir.mkdirs();
 
             for (Part part : request.getParts()) {
                 if (part.getSubmittedFileName() != null) {
-                    String filename = part.getSubmittedFileName();
+                    String filename = safeFileName(part.getSubmittedFileName());
                     File target = new File(dir, filename);
 
                     try (InputStream in = part.getInputStream()) {
                         Files.copy(in, target.toPath(), StandardCopyOption.REPLACE_EXISTING);
                     }
 
-                    byte[] fileBytes = Files.readAllBytes(target.toPath());
-                    files.put(filename, fileBytes);
+                    files.put(filename, Files.readAllBytes(target.toPath()));
                 }
             }
-
-            return files;
         }
 
+        request.setAttribute(FILES_ATTRIBUTE, files);
+        return files;
+    }
 
-    private static byte[] readAllBytes(InputStream is) throws IOException {
-        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-        byte[] data = new byte[4096];
-        int nRead;
-        while ((nRead = is.read(data)) != -1) {
-            buffer.write(data, 0, nRead);
-        }
-        return buffer.toByteArray();
+    /** Last segment of a client-supplied name, so it cannot escape the target directory. */
+    public static String safeFileName(String submitted) {
+        if (submitted == null) return "upload";
+        String name = submitted.substring(Math.max(submitted.lastIndexOf('/'), submitted.lastIndexOf('\\')) + 1).trim();
+        if (name.isEmpty() || name.equals(".") || name.equals("..")) return "upload";
+        return name;
     }
 }
@@ -0,0 +1,25 @@
+package com.example.util;
+
+import java.io.IOException;
+
+/**
+ * Receives the rows of a streamed REST result one at a time. A @RESTapi handler
+ * returns a {@link Source} that pushes its rows into the sink, e.g.
+ * <pre>
+ * return (RowSink.Source&lt;Order&gt;) sink -&gt; {
+ *     for (Order order : orderDao.findAll()) sink.write(order);
+ * };
+ * </pre>
+ * Each row is serialized as soon as it is written; write throws once the client
+ * has gone away, which should end the source.
+ */
+@FunctionalInterface
+public interface RowSink<T> {
+
+    void write(T row) throws IOException;
+
+    @FunctionalInterface
+    interface Source<T> {
+        void produce(RowSink<T> sink) throws Exception;
+    }
+}
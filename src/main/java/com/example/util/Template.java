@@ -0,0 +1,503 @@
+package com.example.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A template compiled once into a tree of nodes and rendered any number of
+ * times. Syntax:
+ * <pre>
+ * {{ order.customer.name }}          HTML-escaped value
+ * {{{ body }}}                       raw value
+ * {{#each orders as order, i}} ... {{/each}}
+ * {{#if order.paid}} ... {{#else}} ... {{/if}}    also {{#if !expr}}
+ * {{> partials/header.tpl}}          include, sharing the current variables
+ * {{-- comment --}}
+ * </pre>
+ * Paths read map keys, bean fields (through {@link BeanInfo}), list and array
+ * indexes, and size/length of collections. Missing values render as nothing.
+ */
+public final class Template {
+
+    /** Resolves included templates by name. */
+    @FunctionalInterface
+    public interface Loader {
+        Template load(String name) throws IOException;
+    }
+
+    private static final int MAX_INCLUDE_DEPTH = 32;
+    private static final ThreadLocal<Output> OUTPUT = ThreadLocal.withInitial(Output::new);
+
+    private final String name;
+    private final Node[] nodes;
+
+    private Template(String name, Node[] nodes) {
+        this.name = name;
+        this.nodes = nodes;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public static Template compile(String name, String source) throws TemplateException {
+        Parser parser = new Parser(name, source);
+        Node[] nodes = parser.parseUntil(null);
+        return new Template(name, nodes);
+    }
+
+    /** Writes the template to out, buffering through a per-thread char buffer. */
+    public void render(Map<String, ?> data, Writer out, Loader loader) throws IOException {
+        Output output = OUTPUT.get();
+        if (output.target != null) output = new Output();
+        output.target = out;
+        try {
+            render(new Context(data, output, loader));
+            output.flush();
+        } finally {
+            output.target = null;
+            output.length = 0;
+        }
+    }
+
+    private void render(Context context) throws IOException {
+        for (Node node : nodes) node.render(context);
+    }
+
+    // --------------------------------------------------------------------
+    // Rendering
+    // --------------------------------------------------------------------
+
+    private static final class Output {
+        final char[] buffer = new char[8192];
+        int length;
+        Writer target;
+
+        void write(char[] text) throws IOException {
+            if (text.length > buffer.length - length) {
+                flush();
+                if (text.length > buffer.length) {
+                    target.write(text);
+                    return;
+                }
+            }
+            System.arraycopy(text, 0, buffer, length, text.length);
+            length += text.length;
+        }
+
+        void write(String text, boolean escape) throws IOException {
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (escape) {
+                    switch (c) {
+                        case '&': append("&amp;"); continue;
+                        case '<': append("&lt;"); continue;
+                        case '>': append("&gt;"); continue;
+                        case '"': append("&quot;"); continue;
+                        case '\'': append("&#39;"); continue;
+                        default:
+                    }
+                }
+                if (length == buffer.length) flush();
+                buffer[length++] = c;
+            }
+        }
+
+        private void append(String entity) throws IOException {
+            if (buffer.length - length < entity.length()) flush();
+            entity.getChars(0, entity.length(), buffer, length);
+            length += entity.length();
+        }
+
+        void flush() throws IOException {
+            if (length > 0) target.write(buffer, 0, length);
+            length = 0;
+        }
+    }
+
+    /** Data map plus the loop variables in scope, innermost last. */
+    private static final class Context {
+        final Map<String, ?> data;
+        final Output out;
+        final Loader loader;
+        String[] names = new String[8];
+        Object[] values = new Object[8];
+        int depth;
+        int includes;
+
+        Context(Map<String, ?> data, Output out, Loader loader) {
+            this.data = data;
+            this.out = out;
+            this.loader = loader;
+        }
+
+        void push(String name, Object value) {
+            if (depth == names.length) {
+                names = Arrays.copyOf(names, depth * 2);
+                values = Arrays.copyOf(values, depth * 2);
+            }
+            names[depth] = name;
+            values[depth++] = value;
+        }
+
+        void set(int slot, Object value) {
+            values[slot] = value;
+        }
+
+        void pop(int count) {
+            while (count-- > 0) {
+                values[--depth] = null;
+            }
+        }
+
+        Object variable(String name) {
+            for (int i = depth - 1; i >= 0; i--) {
+                if (names[i].equals(name)) return values[i];
+            }
+            return data == null ? null : data.get(name);
+        }
+    }
+
+    private interface Node {
+        void render(Context context) throws IOException;
+    }
+
+    private static final class Text implements Node {
+        private final char[] text;
+
+        Text(String text) {
+            this.text = text.toCharArray();
+        }
+
+        @Override
+        public void render(Context context) throws IOException {
+            context.out.write(text);
+        }
+    }
+
+    private static final class Value implements Node {
+        private final Path path;
+        private final boolean escape;
+
+        Value(Path path, boolean escape) {
+            this.path = path;
+            this.escape = escape;
+        }
+
+        @Override
+        public void render(Context context) throws IOException {
+            Object value = path.resolve(context);
+            if (value != null) context.out.write(value.toString(), escape);
+        }
+    }
+
+    private static final class Each implements Node {
+        private final Path source;
+        private final String item;
+        private final String index;
+        private final Node[] body;
+        private final Node[] empty;
+
+        Each(Path source, String item, String index, Node[] body, Node[] empty) {
+            this.source = source;
+            this.item = item;
+            this.index = index;
+            this.body = body;
+            this.empty = empty;
+        }
+
+        @Override
+        public void render(Context context) throws IOException {
+            Object value = source.resolve(context);
+            int slot = context.depth;
+            context.push(item, null);
+            if (index != null) context.push(index, null);
+            int count = 0;
+            try {
+                if (value != null && value.getClass().isArray()) {
+                    int length = Array.getLength(value);
+                    for (; count < length; count++) iteration(context, slot, Array.get(value, count), count);
+                } else {
+                    Iterator<?> items = iterator(value);
+                    while (items != null && items.hasNext()) iteration(context, slot, items.next(), count++);
+                }
+            } finally {
+                context.pop(index != null ? 2 : 1);
+            }
+            if (count == 0) {
+                for (Node node : empty) node.render(context);
+            }
+        }
+
+        private void iteration(Context context, int slot, Object value, int position) throws IOException {
+            context.set(slot, value);
+            if (index != null) context.set(slot + 1, position);
+            for (Node node : body) node.render(context);
+        }
+
+        private static Iterator<?> iterator(Object value) {
+            if (value instanceof Iterable) return ((Iterable<?>) value).iterator();
+            if (value instanceof Map) return ((Map<?, ?>) value).entrySet().iterator();
+            if (value instanceof Iterator) return (Iterator<?>) value;
+            return null;
+        }
+    }
+
+    private static final class If implements Node {
+        private final Path condition;
+        private final boolean negated;
+        private final Node[] then;
+        private final Node[] otherwise;
+
+        If(Path condition, boolean negated, Node[] then, Node[] otherwise) {
+            this.condition = condition;
+            this.negated = negated;
+            this.then = then;
+            this.otherwise = otherwise;
+        }
+
+        @Override
+        public void render(Context context) throws IOException {
+            Node[] branch = truthy(condition.resolve(context)) != negated ? then : otherwise;
+            for (Node node : branch) node.render(context);
+        }
+
+        private static boolean truthy(Object value) {
+            if (value == null) return false;
+            if (value instanceof Boolean) return (Boolean) value;
+            if (value instanceof CharSequence) return ((CharSequence) value).length() > 0;
+            if (value instanceof Collection) return !((Collection<?>) value).isEmpty();
+            if (value instanceof Map) return !((Map<?, ?>) value).isEmpty();
+            if (value.getClass().isArray()) return Array.getLength(value) > 0;
+            if (value instanceof Number) return ((Number) value).doubleValue() != 0;
+            return true;
+        }
+    }
+
+    private static final class Include implements Node {
+        private final String template;
+        private final String caller;
+        private final int line;
+
+        Include(String template, String caller, int line) {
+            this.template = template;
+            this.caller = caller;
+            this.line = line;
+        }
+
+        @Override
+        public void render(Context context) throws IOException {
+            if (context.loader == null) throw new TemplateException(caller, line, "no loader for " + template);
+            if (++context.includes > MAX_INCLUDE_DEPTH) {
+                throw new TemplateException(caller, line, "includes nested too deeply at " + template);
+            }
+            try {
+                Template included = context.loader.load(template);
+                if (included == null) throw new TemplateException(caller, line, "template not found: " + template);
+                included.render(context);
+            } finally {
+                context.includes--;
+            }
+        }
+    }
+
+    /** A dotted path, segments split and numeric indexes parsed at compile time. */
+    private static final class Path {
+        private final String[] segments;
+        private final int[] indexes;
+
+        Path(String expression) {
+            segments = expression.split("\\.");
+            indexes = new int[segments.length];
+            for (int i = 0; i < segments.length; i++) indexes[i] = index(segments[i]);
+        }
+
+        private static int index(String segment) {
+            if (segment.isEmpty() || segment.length() > 9) return -1;
+            for (int i = 0; i < segment.length(); i++) {
+                if (segment.charAt(i) < '0' || segment.charAt(i) > '9') return -1;
+            }
+            return Integer.parseInt(segment);
+        }
+
+        Object resolve(Context context) {
+            Object value = context.variable(segments[0]);
+            for (int i = 1; i < segments.length && value != null; i++) {
+                value = property(value, segments[i], indexes[i]);
+            }
+            return value;
+        }
+
+        private static Object property(Object target, String name, int index) {
+            if (target instanceof Map) {
+                Map<?, ?> map = (Map<?, ?>) target;
+                Object value = map.get(name);
+                if (value == null && "size".equals(name) && !map.containsKey(name)) return map.size();
+                return value;
+            }
+            if (target instanceof Map.Entry) {
+                if ("key".equals(name)) return ((Map.Entry<?, ?>) target).getKey();
+                if ("value".equals(name)) return ((Map.Entry<?, ?>) target).getValue();
+                return null;
+            }
+            if (target instanceof List && index >= 0) {
+                List<?> list = (List<?>) target;
+                return index < list.size() ? list.get(index) : null;
+            }
+            if (target instanceof Collection && "size".equals(name)) return ((Collection<?>) target).size();
+            if (target.getClass().isArray()) {
+                int length = Array.getLength(target);
+                if ("length".equals(name)) return length;
+                return index >= 0 && index < length ? Array.get(target, index) : null;
+            }
+            BeanProperty property = BeanInfo.of(target.getClass()).getProperty(name);
+            return property == null ? null : property.get(target);
+        }
+    }
+
+    // --------------------------------------------------------------------
+    // Parsing
+    // --------------------------------------------------------------------
+
+    private static final class Parser {
+        private static final Node[] NONE = new Node[0];
+
+        private final String name;
+        private final String source;
+        private int position;
+        private boolean sawElse;
+
+        Parser(String name, String source) {
+            this.name = name;
+            this.source = source;
+        }
+
+        /** Nodes up to the closing tag (or the end when null); stops early at {{#else}}. */
+        Node[] parseUntil(String closing) throws TemplateException {
+            List<Node> nodes = new ArrayList<>();
+            int start = position;
+            while (position < source.length()) {
+                int open = source.indexOf("{{", position);
+                if (open < 0) break;
+                if (open > position) nodes.add(new Text(source.substring(position, open)));
+
+                int line = line(open);
+                if (source.startsWith("{{--", open)) {
+                    position = end(open, "--}}", line);
+                    continue;
+                }
+                if (source.startsWith("{{{", open)) {
+                    int close = find(open, "}}}", line);
+                    nodes.add(new Value(path(source.substring(open + 3, close), line), false));
+                    position = close + 3;
+                    continue;
+                }
+
+                int close = find(open, "}}", line);
+                String tag = source.substring(open + 2, close).trim();
+                position = close + 2;
+
+                if (tag.startsWith("/")) {
+                    String block = tag.substring(1).trim();
+                    if (!block.equals(closing)) throw new TemplateException(name, line, "unexpected {{/" + block + "}}");
+                    return nodes.toArray(NONE);
+                } else if (tag.equals("#else")) {
+                    if (closing == null) throw new TemplateException(name, line, "{{#else}} outside a block");
+                    sawElse = true;
+                    return nodes.toArray(NONE);
+                } else if (tag.startsWith("#each ")) {
+                    nodes.add(each(tag.substring(6).trim(), line));
+                } else if (tag.startsWith("#if ")) {
+                    nodes.add(condition(tag.substring(4).trim(), line));
+                } else if (tag.startsWith(">")) {
+                    nodes.add(new Include(tag.substring(1).trim(), name, line));
+                } else if (tag.startsWith("#")) {
+                    throw new TemplateException(name, line, "unknown tag {{" + tag + "}}");
+                } else {
+                    nodes.add(new Value(path(tag, line), true));
+                }
+            }
+            if (position < source.length()) nodes.add(new Text(source.substring(position)));
+            position = source.length();
+            if (closing != null) throw new TemplateException(name, line(start), "missing {{/" + closing + "}}");
+            return nodes.toArray(NONE);
+        }
+
+        private Node each(String expression, int line) throws TemplateException {
+            int as = expression.indexOf(" as ");
+            if (as < 0) throw new TemplateException(name, line, "expected {{#each items as item}}");
+            Path source = path(expression.substring(0, as), line);
+            String[] variables = expression.substring(as + 4).split(",");
+            String item = identifier(variables[0], line);
+            String index = variables.length > 1 ? identifier(variables[1], line) : null;
+
+            Node[][] branches = branches("each");
+            return new Each(source, item, index, branches[0], branches[1]);
+        }
+
+        private Node condition(String expression, int line) throws TemplateException {
+            boolean negated = expression.startsWith("!");
+            Path path = path(negated ? expression.substring(1) : expression, line);
+            Node[][] branches = branches("if");
+            return new If(path, negated, branches[0], branches[1]);
+        }
+
+        /** Body of a block and the part after its {{#else}}, if any. */
+        private Node[][] branches(String block) throws TemplateException {
+            sawElse = false;
+            Node[] body = parseUntil(block);
+            Node[] otherwise = NONE;
+            if (sawElse) {
+                sawElse = false;
+                otherwise = parseUntil(block);
+                if (sawElse) throw new TemplateException(name, line(position), "second {{#else}} in {{#" + block + "}}");
+            }
+            return new Node[][] {body, otherwise};
+        }
+
+        private Path path(String expression, int line) throws TemplateException {
+            String trimmed = expression.trim();
+            if (trimmed.isEmpty()) throw new TemplateException(name, line, "empty expression");
+            for (int i = 0; i < trimmed.length(); i++) {
+                char c = trimmed.charAt(i);
+                if (!Character.isJavaIdentifierPart(c) && c != '.') {
+                    throw new TemplateException(name, line, "invalid expression '" + trimmed + "'");
+                }
+            }
+            return new Path(trimmed);
+        }
+
+        private String identifier(String variable, int line) throws TemplateException {
+            String trimmed = variable.trim();
+            if (trimmed.isEmpty() || !Character.isJavaIdentifierStart(trimmed.charAt(0))) {
+                throw new TemplateException(name, line, "invalid variable name '" + trimmed + "'");
+            }
+            return trimmed;
+        }
+
+        private int find(int open, String token, int line) throws TemplateException {
+            int close = source.indexOf(token, open + 2);
+            if (close < 0) throw new TemplateException(name, line, "unclosed tag");
+            return close;
+        }
+
+        private int end(int open, String token, int line) throws TemplateException {
+            return find(open, token, line) + token.length();
+        }
+
+        private int line(int offset) {
+            int line = 1;
+            for (int i = 0; i < offset; i++) {
+                if (source.charAt(i) == '\n') line++;
+            }
+            return line;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.util;
+
+import java.io.IOException;
+
+public class TemplateException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public TemplateException(String template, int line, String message) {
+        super(template + ":" + line + ": " + message);
+    }
+
+    public TemplateException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,317 @@
+package com.example.util;
+
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * String to value conversion for form fields, path variables and request params.
+ * Parsers validate their input instead of relying on exceptions and return
+ * {@link #INVALID} for anything they cannot read.
+ */
+public class TypeConverter {
+
+    public static final Object INVALID = new Object();
+
+    @FunctionalInterface
+    public interface Parser {
+        Object parse(String value);
+    }
+
+    private static final Parser NONE = value -> INVALID;
+
+    private static final ClassValue<Parser> PARSERS = new ClassValue<Parser>() {
+        @Override
+        protected Parser computeValue(Class<?> type) {
+            Parser parser = createParser(type);
+            return parser != null ? parser : NONE;
+        }
+    };
+
+    /** Cached parser for the type, or null when the type is not a scalar. */
+    public static Parser parserFor(Class<?> type) {
+        Parser parser = PARSERS.get(type);
+        return parser == NONE ? null : parser;
+    }
+
+    public static boolean isScalar(Class<?> type) {
+        return parserFor(type) != null;
+    }
+
+    /** Converts a value, returning null when it is missing or malformed. */
+    public static Object convert(String value, Class<?> type) {
+        if (value == null) return null;
+        Parser parser = parserFor(type);
+        if (parser == null) return null;
+        Object result = parser.parse(value);
+        return result == INVALID ? null : result;
+    }
+
+    /** Converts every value into an array of the component type, skipping malformed ones. */
+    public static Object toArray(String[] values, Class<?> componentType) {
+        Parser parser = parserFor(componentType);
+        if (values == null || parser == null) return Array.newInstance(componentType, 0);
+
+        Object array = Array.newInstance(componentType, values.length);
+        int size = 0;
+        for (String value : values) {
+            Object parsed = parser.parse(value);
+            if (parsed != INVALID) Array.set(array, size++, parsed);
+        }
+        if (size == values.length) return array;
+
+        Object trimmed = Array.newInstance(componentType, size);
+        System.arraycopy(array, 0, trimmed, 0, size);
+        return trimmed;
+    }
+
+    public static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive()) return null;
+        if (type == boolean.class) return false;
+        if (type == char.class) return '\0';
+        if (type == long.class) return 0L;
+        if (type == double.class) return 0d;
+        if (type == float.class) return 0f;
+        if (type == short.class) return (short) 0;
+        if (type == byte.class) return (byte) 0;
+        return 0;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Parser createParser(Class<?> type) {
+        if (type == String.class || type == Object.class || type == CharSequence.class) return value -> value;
+        if (type == int.class || type == Integer.class) {
+            return value -> {
+                Object v = parseIntegral(value, Integer.MIN_VALUE, Integer.MAX_VALUE);
+                return v == INVALID ? v : (Object) ((Long) v).intValue();
+            };
+        }
+        if (type == long.class || type == Long.class) {
+            return value -> parseIntegral(value, Long.MIN_VALUE, Long.MAX_VALUE);
+        }
+        if (type == short.class || type == Short.class) {
+            return value -> {
+                Object v = parseIntegral(value, Short.MIN_VALUE, Short.MAX_VALUE);
+                return v == INVALID ? v : (Object) ((Long) v).shortValue();
+            };
+        }
+        if (type == byte.class || type == Byte.class) {
+            return value -> {
+                Object v = parseIntegral(value, Byte.MIN_VALUE, Byte.MAX_VALUE);
+                return v == INVALID ? v : (Object) ((Long) v).byteValue();
+            };
+        }
+        if (type == double.class || type == Double.class) {
+            return value -> {
+                String s = value.trim();
+                return isDecimal(s) ? (Object) Double.parseDouble(s) : INVALID;
+            };
+        }
+        if (type == float.class || type == Float.class) {
+            return value -> {
+                String s = value.trim();
+                return isDecimal(s) ? (Object) Float.parseFloat(s) : INVALID;
+            };
+        }
+        if (type == boolean.class || type == Boolean.class) return TypeConverter::parseBoolean;
+        if (type == char.class || type == Character.class) {
+            return value -> value.length() == 1 ? (Object) value.charAt(0) : INVALID;
+        }
+        if (type == BigDecimal.class) {
+            return value -> {
+                String s = value.trim();
+                return isDecimal(s) ? new BigDecimal(s) : INVALID;
+            };
+        }
+        if (type == BigInteger.class) {
+            return value -> {
+                String s = value.trim();
+                return isInteger(s) ? new BigInteger(s) : INVALID;
+            };
+        }
+        if (type == LocalDate.class) return value -> parseDate(value.trim());
+        if (type == LocalTime.class) return value -> parseTime(value.trim(), 0);
+        if (type == LocalDateTime.class) return value -> parseDateTime(value.trim());
+        if (type == UUID.class) return value -> parseUuid(value.trim());
+        if (type.isEnum()) {
+            Map<String, Object> constants = new HashMap<>();
+            for (Object constant : type.getEnumConstants()) {
+                String name = ((Enum) constant).name();
+                constants.put(name, constant);
+                constants.putIfAbsent(name.toUpperCase(Locale.ROOT), constant);
+            }
+            return value -> {
+                Object constant = constants.get(value);
+                if (constant == null) constant = constants.get(value.trim().toUpperCase(Locale.ROOT));
+                return constant != null ? constant : INVALID;
+            };
+        }
+        return null;
+    }
+
+    private static Object parseIntegral(String raw, long min, long max) {
+        String s = raw.trim();
+        int len = s.length();
+        if (len == 0) return INVALID;
+
+        int i = 0;
+        boolean negative = false;
+        char first = s.charAt(0);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            if (++i == len) return INVALID;
+        }
+
+        // accumulated negatively, the wider side, so Long.MIN_VALUE parses too
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long value = 0;
+        for (; i < len; i++) {
+            int digit = s.charAt(i) - '0';
+            if (digit < 0 || digit > 9) return INVALID;
+            if (value < limit / 10) return INVALID;
+            value *= 10;
+            if (value < limit + digit) return INVALID;
+            value -= digit;
+        }
+        if (!negative) value = -value;
+        return value < min || value > max ? INVALID : (Object) value;
+    }
+
+    private static boolean isInteger(String s) {
+        int len = s.length();
+        int i = len > 0 && (s.charAt(0) == '-' || s.charAt(0) == '+') ? 1 : 0;
+        if (i == len) return false;
+        for (; i < len; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return false;
+        }
+        return true;
+    }
+
+    /** Plain decimal notation with optional sign, fraction and exponent. */
+    private static boolean isDecimal(String s) {
+        int len = s.length();
+        int i = 0;
+        if (i < len && (s.charAt(i) == '-' || s.charAt(i) == '+')) i++;
+
+        int digits = 0;
+        while (i < len && isDigit(s.charAt(i))) { i++; digits++; }
+        if (i < len && s.charAt(i) == '.') {
+            i++;
+            while (i < len && isDigit(s.charAt(i))) { i++; digits++; }
+        }
+        if (digits == 0) return false;
+
+        if (i < len && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+            i++;
+            if (i < len && (s.charAt(i) == '-' || s.charAt(i) == '+')) i++;
+            int exponentDigits = 0;
+            while (i < len && isDigit(s.charAt(i))) { i++; exponentDigits++; }
+            if (exponentDigits == 0 || exponentDigits > 4) return false;
+        }
+        return i == len;
+    }
+
+    private static Object parseBoolean(String value) {
+        String s = value.trim();
+        if (s.equalsIgnoreCase("true") || s.equalsIgnoreCase("on") || s.equals("1") || s.equalsIgnoreCase("yes")) {
+            return Boolean.TRUE;
+        }
+        if (s.equalsIgnoreCase("false") || s.equalsIgnoreCase("off") || s.equals("0") || s.equalsIgnoreCase("no")) {
+            return Boolean.FALSE;
+        }
+        return INVALID;
+    }
+
+    /** yyyy-MM-dd */
+    private static Object parseDate(String s) {
+        if (s.length() != 10 || s.charAt(4) != '-' || s.charAt(7) != '-') return INVALID;
+        int year = digits(s, 0, 4);
+        int month = digits(s, 5, 7);
+        int day = digits(s, 8, 10);
+        if (year < 0 || month < 1 || month > 12 || day < 1) return INVALID;
+        if (day > YearMonth.of(year, month).lengthOfMonth()) return INVALID;
+        return LocalDate.of(year, month, day);
+    }
+
+    /** HH:mm, HH:mm:ss or HH:mm:ss.fraction starting at offset; the whole rest of the string must match. */
+    private static Object parseTime(String s, int offset) {
+        int len = s.length() - offset;
+        if (len < 5 || s.charAt(offset + 2) != ':') return INVALID;
+        int hour = digits(s, offset, offset + 2);
+        int minute = digits(s, offset + 3, offset + 5);
+        int second = 0;
+        int nanos = 0;
+
+        if (len > 5) {
+            if (len < 8 || s.charAt(offset + 5) != ':') return INVALID;
+            second = digits(s, offset + 6, offset + 8);
+            if (len > 8) {
+                int fractionDigits = len - 9;
+                if (s.charAt(offset + 8) != '.' || fractionDigits < 1 || fractionDigits > 9) return INVALID;
+                nanos = digits(s, offset + 9, offset + len);
+                if (nanos < 0) return INVALID;
+                for (int i = fractionDigits; i < 9; i++) nanos *= 10;
+            }
+        }
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) return INVALID;
+        return LocalTime.of(hour, minute, second, nanos);
+    }
+
+    /** yyyy-MM-ddTHH:mm[:ss[.fraction]], also accepting a space as separator. */
+    private static Object parseDateTime(String s) {
+        if (s.length() < 16 || (s.charAt(10) != 'T' && s.charAt(10) != ' ')) return INVALID;
+        Object date = parseDate(s.substring(0, 10));
+        if (date == INVALID) return INVALID;
+        Object time = parseTime(s, 11);
+        if (time == INVALID) return INVALID;
+        return LocalDateTime.of((LocalDate) date, (LocalTime) time);
+    }
+
+    /** The canonical 8-4-4-4-12 hex form. */
+    private static Object parseUuid(String s) {
+        if (s.length() != 36 || s.charAt(8) != '-' || s.charAt(13) != '-' || s.charAt(18) != '-' || s.charAt(23) != '-') {
+            return INVALID;
+        }
+        long most = 0;
+        long least = 0;
+        int nibbles = 0;
+        for (int i = 0; i < 36; i++) {
+            if (i == 8 || i == 13 || i == 18 || i == 23) continue;
+            int nibble = hex(s.charAt(i));
+            if (nibble < 0) return INVALID;
+            if (nibbles++ < 16) most = most << 4 | nibble;
+            else least = least << 4 | nibble;
+        }
+        return new UUID(most, least);
+    }
+
+    private static int digits(String s, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (!isDigit(c)) return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static int hex(char c) {
+        if (c >= '0' && c <= '9') return c - '0';
+        if (c >= 'a' && c <= 'f') return c - 'a' + 10;
+        if (c >= 'A' && c <= 'F') return c - 'A' + 10;
+        return -1;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
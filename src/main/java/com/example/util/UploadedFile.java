@@ -0,0 +1,67 @@
+package com.example.util;
+
+import javax.servlet.http.Part;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * A file field of a multipart request. The content stays where the container
+ * put it (memory below the multipart file-size threshold, a temp file above it)
+ * until the handler streams it or transfers it somewhere.
+ */
+public class UploadedFile {
+
+    private final Part part;
+
+    public UploadedFile(Part part) {
+        this.part = part;
+    }
+
+    /** Name of the form field. */
+    public String getName() {
+        return part.getName();
+    }
+
+    /** Client-supplied file name reduced to its last path segment. */
+    public String getFileName() {
+        return MultipartHelper.safeFileName(part.getSubmittedFileName());
+    }
+
+    public String getContentType() {
+        return part.getContentType();
+    }
+
+    public long getSize() {
+        return part.getSize();
+    }
+
+    public InputStream getInputStream() throws IOException {
+        return part.getInputStream();
+    }
+
+    /**
+     * Moves the content to the target. When the container spooled it to disk the
+     * temp file is renamed; otherwise it is streamed across without loading it
+     * into the heap.
+     */
+    public void transferTo(Path target) throws IOException {
+        Path absolute = target.toAbsolutePath();
+        if (absolute.getParent() != null) Files.createDirectories(absolute.getParent());
+        try {
+            part.write(absolute.toString());
+            if (Files.exists(absolute) && Files.size(absolute) == part.getSize()) return;
+        } catch (IOException | RuntimeException ignored) {
+            // fall back to copying the stream
+        }
+        try (InputStream in = part.getInputStream()) {
+            Files.copy(in, absolute, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    public void delete() throws IOException {
+        part.delete();
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.web;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+@FunctionalInterface
+public interface ArgumentResolver {
+
+    Object resolve(HttpServletRequest request, HttpServletResponse response, String[] pathValues)
+            throws Exception;
+}
@@ -0,0 +1,46 @@
+package com.example.web;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Builds the executor that runs @Async handlers, from the "async.executor"
+ * setting: "virtual" for a virtual thread per task (JDK 21+), otherwise a fixed
+ * pool of "async.poolSize" platform threads.
+ */
+public class AsyncExecutors {
+
+    public static final String EXECUTOR = "async.executor";
+    public static final String POOL_SIZE = "async.poolSize";
+    public static final String TIMEOUT_MS = "async.timeoutMs";
+
+    public static ExecutorService create(FrameworkConfig config) {
+        if ("virtual".equalsIgnoreCase(config.get(EXECUTOR, "fixed"))) {
+            ExecutorService virtual = virtualThreads();
+            if (virtual != null) return virtual;
+            Log.warn("Virtual threads need JDK 21+; falling back to a fixed pool.");
+        }
+        int size = Math.max(1, config.getInt(POOL_SIZE, 64));
+        return Executors.newFixedThreadPool(size, daemonThreads("handler-"));
+    }
+
+    /** Executors.newVirtualThreadPerTaskExecutor() when the running JDK has it. */
+    public static ExecutorService virtualThreads() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    public static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return task -> {
+            Thread thread = new Thread(task, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,275 @@
+package com.example.web;
+
+import java.io.InputStreamReader;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.example.annotation.PathVariable;
+import com.example.annotation.RequestParam;
+import com.example.util.FormBinder;
+import com.example.util.JsonConverter;
+import com.example.util.JsonException;
+import com.example.util.MessagePack;
+import com.example.util.MessagePackException;
+import com.example.util.MultipartHelper;
+import com.example.util.TypeConverter;
+import com.example.util.UploadedFile;
+
+/**
+ * Resolvers for each parameter of a handler, worked out once when the route is
+ * registered so a request only allocates the argument array.
+ */
+public class BindingPlan {
+
+    private final ArgumentResolver[] resolvers;
+
+    private BindingPlan(ArgumentResolver[] resolvers) {
+        this.resolvers = resolvers;
+    }
+
+    public Object[] bind(HttpServletRequest request, HttpServletResponse response, String[] pathValues)
+            throws Exception {
+        Object[] args = new Object[resolvers.length];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = resolvers[i].resolve(request, response, pathValues);
+        }
+        return args;
+    }
+
+    public static BindingPlan of(Method method, String[] pathVariables, String httpMethod, FrameworkConfig config) {
+        Parameter[] parameters = method.getParameters();
+        ArgumentResolver[] resolvers = new ArgumentResolver[parameters.length];
+        boolean acceptsBody = "POST".equals(httpMethod) || "PUT".equals(httpMethod) || "PATCH".equals(httpMethod);
+
+        for (int i = 0; i < parameters.length; i++) {
+            ArgumentResolver resolver = resolverFor(parameters[i], pathVariables);
+            if (acceptsBody && isBodyTarget(resolver)) {
+                resolver = jsonBody(resolver, parameters[i].getParameterizedType(), config.getMaxJsonBodySize());
+                acceptsBody = false;
+            }
+            resolvers[i] = resolver;
+        }
+        return new BindingPlan(resolvers);
+    }
+
+    private static ArgumentResolver resolverFor(Parameter parameter, String[] pathVariables) {
+        Class<?> type = parameter.getType();
+
+        if (type == HttpServletRequest.class || type == ServletRequest.class) {
+            return (req, res, path) -> req;
+        }
+        if (type == HttpServletResponse.class || type == ServletResponse.class) {
+            return (req, res, path) -> res;
+        }
+        if (type == EventSink.class) {
+            return (req, res, path) -> req.getAttribute(EventSink.ATTRIBUTE);
+        }
+
+        PathVariable pathVariable = parameter.getAnnotation(PathVariable.class);
+        if (pathVariable != null) return pathVariable(parameter, pathVariable, pathVariables);
+
+        RequestParam requestParam = parameter.getAnnotation(RequestParam.class);
+        String name = requestParam != null ? requestParam.value()
+                : parameter.isNamePresent() ? parameter.getName() : null;
+
+        TypeConverter.Parser parser = TypeConverter.parserFor(type);
+        if (name == null && (parser != null || type.isArray() && TypeConverter.isScalar(type.getComponentType()))) {
+            Method method = (Method) parameter.getDeclaringExecutable();
+            Log.warn("Parameter " + parameter.getName() + " of " + method.getDeclaringClass().getSimpleName() + "."
+                    + method.getName() + " has no name to bind; compile with -parameters or add @RequestParam.");
+        }
+
+        if (name != null && parser != null) {
+            int index = indexOf(pathVariables, name);
+            if (index >= 0) {
+                return (req, res, path) -> scalar(parser, path[index], type);
+            }
+        }
+
+        if (type == UploadedFile.class) {
+            if (name == null) {
+                return (req, res, path) -> {
+                    List<UploadedFile> files = upload(() -> MultipartHelper.files(req));
+                    return files.isEmpty() ? null : files.get(0);
+                };
+            }
+            return (req, res, path) -> upload(() -> MultipartHelper.file(req, name));
+        }
+        if (type == UploadedFile[].class) {
+            return (req, res, path) -> upload(() -> MultipartHelper.files(req)).toArray(new UploadedFile[0]);
+        }
+        if (type.isAssignableFrom(List.class) && typeArgument(parameter.getParameterizedType(), 0) == UploadedFile.class) {
+            return (req, res, path) -> upload(() -> MultipartHelper.files(req));
+        }
+
+        if (Map.class.isAssignableFrom(type)) {
+            Type valueType = typeArgument(parameter.getParameterizedType(), 1);
+            if (valueType == byte[].class) {
+                return (req, res, path) -> upload(() -> MultipartHelper.saveOnTomcat(req));
+            }
+            if (valueType == UploadedFile.class) {
+                return (req, res, path) -> {
+                    Map<String, UploadedFile> files = new LinkedHashMap<>();
+                    for (UploadedFile file : upload(() -> MultipartHelper.files(req))) {
+                        files.putIfAbsent(file.getName(), file);
+                    }
+                    return files;
+                };
+            }
+            return FORM_MAP;
+        }
+
+        if (parser != null) {
+            if (name == null) return (req, res, path) -> TypeConverter.defaultValue(type);
+            return (req, res, path) -> scalar(parser, req.getParameter(name), type);
+        }
+
+        if (type.isArray() && name != null && TypeConverter.isScalar(type.getComponentType())) {
+            Class<?> componentType = type.getComponentType();
+            return (req, res, path) -> TypeConverter.toArray(req.getParameterValues(name), componentType);
+        }
+
+        return new BeanResolver(type);
+    }
+
+    private static ArgumentResolver pathVariable(Parameter parameter, PathVariable annotation, String[] pathVariables) {
+        String name = !annotation.value().isEmpty() ? annotation.value()
+                : parameter.isNamePresent() ? parameter.getName() : null;
+        Class<?> type = parameter.getType();
+        Method method = (Method) parameter.getDeclaringExecutable();
+        if (name == null) {
+            throw new IllegalArgumentException("@PathVariable on " + method.getDeclaringClass().getSimpleName() + "."
+                    + method.getName() + " has no name: give it a value or compile with -parameters");
+        }
+
+        int index = indexOf(pathVariables, name);
+        if (index < 0) {
+            throw new IllegalArgumentException("No path variable {" + name + "} in the route of "
+                    + method.getDeclaringClass().getSimpleName() + "." + method.getName());
+        }
+        TypeConverter.Parser parser = TypeConverter.parserFor(type);
+        if (parser == null) {
+            throw new IllegalArgumentException("Path variable {" + name + "} cannot be converted to " + type.getName());
+        }
+
+        return (req, res, path) -> {
+            Object value = parser.parse(path[index]);
+            if (value == TypeConverter.INVALID) {
+                throw new HttpStatusException(400, "Invalid value for path variable " + name);
+            }
+            return value;
+        };
+    }
+
+    private static final ArgumentResolver FORM_MAP = (req, res, path) -> FormBinder.toMap(req);
+
+    private static class BeanResolver implements ArgumentResolver {
+        private final Class<?> type;
+
+        BeanResolver(Class<?> type) {
+            this.type = type;
+        }
+
+        @Override
+        public Object resolve(HttpServletRequest request, HttpServletResponse response, String[] pathValues) {
+            return FormBinder.bind(type, request);
+        }
+    }
+
+    private static boolean isBodyTarget(ArgumentResolver resolver) {
+        return resolver == FORM_MAP || resolver instanceof BeanResolver;
+    }
+
+    /**
+     * Binds application/json and application/msgpack bodies straight from the
+     * request, other content types from the form.
+     */
+    private static ArgumentResolver jsonBody(ArgumentResolver form, Type type, long maxBodySize) {
+        return (req, res, path) -> {
+            boolean msgpack = MessagePack.isMessagePack(req.getContentType());
+            if (!msgpack && !isJson(req.getContentType())) return form.resolve(req, res, path);
+
+            if (req.getContentLengthLong() > maxBodySize) {
+                throw new HttpStatusException(413, "Request body exceeds " + maxBodySize + " bytes");
+            }
+            if (msgpack) {
+                try {
+                    return MessagePack.read(new BoundedInputStream(req.getInputStream(), maxBodySize), type, maxBodySize);
+                } catch (MessagePackException e) {
+                    throw new HttpStatusException(400, "Malformed MessagePack body: " + e.getMessage(), e);
+                }
+            }
+            try {
+                return JsonConverter.read(new InputStreamReader(
+                        new BoundedInputStream(req.getInputStream(), maxBodySize), charset(req)), type);
+            } catch (JsonException e) {
+                throw new HttpStatusException(400, "Malformed JSON body: " + e.getMessage(), e);
+            }
+        };
+    }
+
+    /** The declared body encoding, UTF-8 when there is none or it is unknown. */
+    private static Charset charset(ServletRequest req) {
+        String encoding = req.getCharacterEncoding();
+        if (encoding == null) return StandardCharsets.UTF_8;
+        try {
+            return Charset.forName(encoding);
+        } catch (IllegalArgumentException e) {
+            return StandardCharsets.UTF_8;
+        }
+    }
+
+    private static boolean isJson(String contentType) {
+        if (contentType == null) return false;
+        String type = contentType.toLowerCase(Locale.ROOT);
+        int end = type.indexOf(';');
+        if (end >= 0) type = type.substring(0, end);
+        type = type.trim();
+        return type.equals("application/json") || type.endsWith("+json");
+    }
+
+    private static Type typeArgument(Type type, int index) {
+        if (!(type instanceof ParameterizedType)) return null;
+        Type[] arguments = ((ParameterizedType) type).getActualTypeArguments();
+        return index < arguments.length ? arguments[index] : null;
+    }
+
+    /** Parses multipart content on demand, mapping container limit violations to 413. */
+    private static <T> T upload(Callable<T> parse) throws Exception {
+        try {
+            return parse.call();
+        } catch (IllegalStateException e) {
+            throw new HttpStatusException(413, "Upload exceeds the configured size limits", e);
+        } catch (ServletException e) {
+            throw new HttpStatusException(400, "Malformed multipart request", e);
+        }
+    }
+
+    private static Object scalar(TypeConverter.Parser parser, String value, Class<?> type) {
+        if (value == null) return TypeConverter.defaultValue(type);
+        Object parsed = parser.parse(value);
+        return parsed == TypeConverter.INVALID ? TypeConverter.defaultValue(type) : parsed;
+    }
+
+    private static int indexOf(String[] names, String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) return i;
+        }
+        return -1;
+    }
+}
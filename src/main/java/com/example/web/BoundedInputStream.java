@@ -0,0 +1,45 @@
+package com.example.web;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/** Fails with 413 once more than {@code limit} bytes have been read. */
+class BoundedInputStream extends FilterInputStream {
+
+    private final long limit;
+    private long count;
+
+    BoundedInputStream(InputStream in, long limit) {
+        super(in);
+        this.limit = limit;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) count(1);
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int n = super.read(buffer, offset, length);
+        if (n > 0) count(n);
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        if (skipped > 0) count(skipped);
+        return skipped;
+    }
+
+    private void count(long n) {
+        count += n;
+        if (count > limit) {
+            throw new HttpStatusException(413, "Request body exceeds " + limit + " bytes");
+        }
+    }
+}
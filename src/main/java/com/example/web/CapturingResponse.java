@@ -0,0 +1,189 @@
+package com.example.web;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+/** Buffers status, headers and body of a response so they can be stored and replayed. */
+class CapturingResponse extends HttpServletResponseWrapper {
+
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream(1024);
+    private final List<String[]> headers = new ArrayList<>();
+    private int status = SC_OK;
+    private String errorMessage;
+    private boolean error;
+    private boolean cookies;
+    private ServletOutputStream stream;
+    private PrintWriter writer;
+
+    CapturingResponse(HttpServletResponse response) {
+        super(response);
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+        if (stream == null) {
+            stream = new ServletOutputStream() {
+                @Override
+                public void write(int b) {
+                    body.write(b);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                    body.write(b, off, len);
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setWriteListener(WriteListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+        return stream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+        }
+        return writer;
+    }
+
+    @Override
+    public void flushBuffer() {
+        if (writer != null) writer.flush();
+    }
+
+    @Override
+    public void resetBuffer() {
+        if (writer != null) writer.flush();
+        body.reset();
+    }
+
+    @Override
+    public void reset() {
+        resetBuffer();
+        headers.clear();
+        status = SC_OK;
+    }
+
+    @Override
+    public boolean isCommitted() {
+        return false;
+    }
+
+    @Override
+    public void setStatus(int sc) {
+        status = sc;
+    }
+
+    @Override
+    public void sendError(int sc, String msg) {
+        status = sc;
+        errorMessage = msg;
+        error = true;
+    }
+
+    @Override
+    public void sendError(int sc) {
+        sendError(sc, null);
+    }
+
+    @Override
+    public void sendRedirect(String location) {
+        status = SC_FOUND;
+        setHeader("Location", location);
+    }
+
+    @Override
+    public int getStatus() {
+        return status;
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        headers.removeIf(h -> h[0].equalsIgnoreCase(name));
+        addHeader(name, value);
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        headers.add(new String[] {name, value});
+    }
+
+    /** Cookies go straight to the real response; a response that sets one is not cached. */
+    @Override
+    public void addCookie(Cookie cookie) {
+        cookies = true;
+        super.addCookie(cookie);
+    }
+
+    @Override
+    public void setDateHeader(String name, long date) {
+        setHeader(name, httpDate(date));
+    }
+
+    @Override
+    public void addDateHeader(String name, long date) {
+        addHeader(name, httpDate(date));
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+        setHeader(name, Integer.toString(value));
+    }
+
+    @Override
+    public void addIntHeader(String name, int value) {
+        addHeader(name, Integer.toString(value));
+    }
+
+    @Override
+    public boolean containsHeader(String name) {
+        for (String[] header : headers) {
+            if (header[0].equalsIgnoreCase(name)) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void setContentLength(int len) {
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+    }
+
+    private static String httpDate(long date) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(date).atZone(ZoneOffset.UTC));
+    }
+
+    boolean isError() { return error; }
+    boolean setsCookies() { return cookies || containsHeader("Set-Cookie"); }
+    String getErrorMessage() { return errorMessage; }
+    List<String[]> getHeaders() { return headers; }
+
+    byte[] toByteArray() {
+        if (writer != null) writer.flush();
+        return body.toByteArray();
+    }
+}
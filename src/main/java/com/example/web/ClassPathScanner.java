@@ -0,0 +1,236 @@
+package com.example.web;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import com.example.processor.RouteIndexProcessor;
+
+/**
+ * Finds controller classes without loading every class of a package: first from
+ * the index written by {@link RouteIndexProcessor}, otherwise by reading the
+ * RuntimeVisibleAnnotations attribute straight from the class files, in
+ * directories and JARs alike.
+ */
+public class ClassPathScanner {
+
+    /**
+     * Class names listed in the generated indexes under the package, or null when
+     * no index lists any, e.g. when the only index comes from a library JAR.
+     */
+    public static List<String> fromIndex(ClassLoader loader, String basePackage) throws IOException {
+        Enumeration<URL> indexes = loader.getResources(RouteIndexProcessor.INDEX_RESOURCE);
+        if (!indexes.hasMoreElements()) return null;
+
+        Set<String> names = new LinkedHashSet<>();
+        while (indexes.hasMoreElements()) {
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(indexes.nextElement().openStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (line.isEmpty() || line.startsWith("#")) continue;
+                    if (line.startsWith(basePackage + ".")) names.add(line);
+                }
+            }
+        }
+        return names.isEmpty() ? null : new ArrayList<>(names);
+    }
+
+    /** Names of the classes under the package whose class files carry the annotation. */
+    public static List<String> findAnnotated(ClassLoader loader, String basePackage, Class<?> annotation)
+            throws IOException {
+        String path = basePackage.replace('.', '/');
+        String descriptor = "L" + annotation.getName().replace('.', '/') + ";";
+        List<String> names = new ArrayList<>();
+
+        Enumeration<URL> roots = loader.getResources(path);
+        while (roots.hasMoreElements()) {
+            URL root = roots.nextElement();
+            if ("file".equals(root.getProtocol())) {
+                scanDirectory(new File(URLDecoder.decode(root.getPath(), "UTF-8")), basePackage, descriptor, names);
+            } else if ("jar".equals(root.getProtocol())) {
+                URLConnection connection = root.openConnection();
+                if (connection instanceof JarURLConnection) {
+                    connection.setUseCaches(false);
+                    try (JarFile jar = ((JarURLConnection) connection).getJarFile()) {
+                        scanJar(jar, path, descriptor, names);
+                    }
+                }
+            }
+        }
+        return names;
+    }
+
+    /** Names of the annotated classes under the package in one class directory. */
+    public static List<String> findAnnotated(File classRoot, String basePackage, Class<?> annotation)
+            throws IOException {
+        String descriptor = "L" + annotation.getName().replace('.', '/') + ";";
+        List<String> names = new ArrayList<>();
+        scanDirectory(new File(classRoot, basePackage.replace('.', File.separatorChar)), basePackage, descriptor, names);
+        return names;
+    }
+
+    private static void scanDirectory(File directory, String packageName, String descriptor, List<String> names)
+            throws IOException {
+        File[] files = directory.listFiles();
+        if (files == null) return;
+
+        for (File file : files) {
+            String fileName = file.getName();
+            if (file.isDirectory()) {
+                scanDirectory(file, packageName + "." + fileName, descriptor, names);
+            } else if (fileName.endsWith(".class")) {
+                try (InputStream in = new FileInputStream(file)) {
+                    if (hasClassAnnotation(in, descriptor)) {
+                        names.add(packageName + "." + fileName.substring(0, fileName.length() - 6));
+                    }
+                }
+            }
+        }
+    }
+
+    private static void scanJar(JarFile jar, String path, String descriptor, List<String> names) throws IOException {
+        Enumeration<JarEntry> entries = jar.entries();
+        while (entries.hasMoreElements()) {
+            JarEntry entry = entries.nextElement();
+            String name = entry.getName();
+            if (!name.startsWith(path + "/") || !name.endsWith(".class")) continue;
+            try (InputStream in = jar.getInputStream(entry)) {
+                if (hasClassAnnotation(in, descriptor)) {
+                    names.add(name.substring(0, name.length() - 6).replace('/', '.'));
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads just enough of a class file to tell whether the class itself (not a
+     * member) carries a runtime-visible annotation with the given descriptor.
+     */
+    static boolean hasClassAnnotation(InputStream stream, String descriptor) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+        if (in.readInt() != 0xCAFEBABE) return false;
+        in.readUnsignedShort();
+        in.readUnsignedShort();
+
+        int count = in.readUnsignedShort();
+        String[] utf8 = new String[count];
+        boolean mentioned = false;
+        for (int i = 1; i < count; i++) {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case 1:
+                    utf8[i] = in.readUTF();
+                    if (utf8[i].equals(descriptor)) mentioned = true;
+                    break;
+                case 5:
+                case 6:
+                    skip(in, 8);
+                    i++;
+                    break;
+                case 3: case 4: case 9: case 10: case 11: case 12: case 17: case 18:
+                    skip(in, 4);
+                    break;
+                case 15:
+                    skip(in, 3);
+                    break;
+                case 7: case 8: case 16: case 19: case 20:
+                    skip(in, 2);
+                    break;
+                default:
+                    return false;
+            }
+        }
+        if (!mentioned) return false;
+
+        skip(in, 6);
+        skip(in, 2L * in.readUnsignedShort());
+        for (int members = 0; members < 2; members++) {
+            int memberCount = in.readUnsignedShort();
+            for (int m = 0; m < memberCount; m++) {
+                skip(in, 6);
+                skipAttributes(in);
+            }
+        }
+
+        int attributes = in.readUnsignedShort();
+        for (int a = 0; a < attributes; a++) {
+            String name = utf8[in.readUnsignedShort()];
+            int length = in.readInt();
+            if (!"RuntimeVisibleAnnotations".equals(name)) {
+                skip(in, length);
+                continue;
+            }
+            int annotations = in.readUnsignedShort();
+            for (int n = 0; n < annotations; n++) {
+                if (descriptor.equals(utf8[in.readUnsignedShort()])) return true;
+                skipElementValuePairs(in);
+            }
+        }
+        return false;
+    }
+
+    private static void skipAttributes(DataInputStream in) throws IOException {
+        int count = in.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            in.readUnsignedShort();
+            skip(in, in.readInt() & 0xFFFFFFFFL);
+        }
+    }
+
+    private static void skipElementValuePairs(DataInputStream in) throws IOException {
+        int pairs = in.readUnsignedShort();
+        for (int p = 0; p < pairs; p++) {
+            in.readUnsignedShort();
+            skipElementValue(in);
+        }
+    }
+
+    private static void skipElementValue(DataInputStream in) throws IOException {
+        int tag = in.readUnsignedByte();
+        switch (tag) {
+            case 'e':
+                skip(in, 4);
+                break;
+            case '@':
+                in.readUnsignedShort();
+                skipElementValuePairs(in);
+                break;
+            case '[':
+                int values = in.readUnsignedShort();
+                for (int i = 0; i < values; i++) skipElementValue(in);
+                break;
+            default:
+                skip(in, 2);
+        }
+    }
+
+    private static void skip(DataInputStream in, long bytes) throws IOException {
+        while (bytes > 0) {
+            long skipped = in.skip(bytes);
+            if (skipped <= 0) {
+                if (in.read() < 0) throw new IOException("Truncated class file");
+                skipped = 1;
+            }
+            bytes -= skipped;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.web;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.util.zip.Deflater;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Compresses the body while it is written. The first minSize bytes are held
+ * back; if the body grows past them (or flushBuffer() is called) and its
+ * Content-Type is on the allowlist, the rest streams through a Deflater,
+ * otherwise everything is passed through unchanged. {@link #finish()} must be
+ * called once rendering is done, and {@link #release()} when rendering failed.
+ */
+class CompressingResponse extends HttpServletResponseWrapper {
+
+    private final Compression compression;
+    private final String coding;
+    private CompressingStream stream;
+    private PrintWriter writer;
+    private long contentLength = -1;
+
+    CompressingResponse(HttpServletResponse response, Compression compression, String coding) {
+        super(response);
+        this.compression = compression;
+        this.coding = coding;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+        if (writer != null) throw new IllegalStateException("getWriter() has already been called");
+        if (stream == null) stream = new CompressingStream();
+        return stream;
+    }
+
+    @Override
+    public PrintWriter getWriter() {
+        if (writer == null) {
+            if (stream != null) throw new IllegalStateException("getOutputStream() has already been called");
+            stream = new CompressingStream();
+            writer = new PrintWriter(new OutputStreamWriter(stream, Charset.forName(getCharacterEncoding())));
+        }
+        return writer;
+    }
+
+    @Override
+    public void setContentLength(int length) {
+        setContentLengthLong(length);
+    }
+
+    @Override
+    public void setContentLengthLong(long length) {
+        if (stream != null && stream.state == CompressingStream.IDENTITY) {
+            super.setContentLengthLong(length);
+        } else {
+            contentLength = length;
+        }
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null) writer.flush();
+        if (stream != null) stream.commit();
+        super.flushBuffer();
+    }
+
+    @Override
+    public void resetBuffer() {
+        if (stream != null && stream.state == CompressingStream.UNDECIDED) {
+            stream.pendingLength = 0;
+            return;
+        }
+        super.resetBuffer();
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        if (stream != null && stream.state == CompressingStream.UNDECIDED) stream.pendingLength = 0;
+        contentLength = -1;
+    }
+
+    /** Writes what is still held back and ends the compressed stream. */
+    void finish() throws IOException {
+        if (writer != null) writer.flush();
+        if (stream != null) stream.finish();
+    }
+
+    /** Returns the Deflater of an unfinished stream to the pool, e.g. after the handler threw. */
+    void release() {
+        if (stream != null) stream.release();
+    }
+
+    private boolean shouldCompress() {
+        int status = getStatus();
+        return compression.isCompressible(getContentType())
+                && getHeader("Content-Encoding") == null
+                && getHeader("Content-Range") == null
+                && status != SC_NO_CONTENT && status != SC_NOT_MODIFIED && status != SC_PARTIAL_CONTENT;
+    }
+
+    private final class CompressingStream extends ServletOutputStream {
+        static final int UNDECIDED = 0;
+        static final int IDENTITY = 1;
+        static final int COMPRESSING = 2;
+        static final int FINISHED = 3;
+
+        int state = UNDECIDED;
+        final byte[] pending = new byte[compression.getMinSize()];
+        int pendingLength;
+        private final byte[] single = new byte[1];
+        private ServletOutputStream out;
+        private Compression.Compressor compressor;
+
+        @Override
+        public void write(int b) throws IOException {
+            single[0] = (byte) b;
+            write(single, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            switch (state) {
+                case UNDECIDED:
+                    if (pendingLength + len <= pending.length) {
+                        System.arraycopy(b, off, pending, pendingLength, len);
+                        pendingLength += len;
+                        return;
+                    }
+                    decide(true);
+                    write(b, off, len);
+                    return;
+                case IDENTITY:
+                    out.write(b, off, len);
+                    return;
+                case COMPRESSING:
+                    if (compressor.gzip) compressor.crc.update(b, off, len);
+                    compressor.deflater.setInput(b, off, len);
+                    while (!compressor.deflater.needsInput()) drain(Deflater.NO_FLUSH);
+                    return;
+                default:
+                    throw new IOException("Response already finished");
+            }
+        }
+
+        /** Chooses compression (when large enough and allowed) or identity, then writes what was held back. */
+        private void decide(boolean large) throws IOException {
+            boolean compressible = shouldCompress();
+            if (compression.isCompressible(getContentType())) Compression.addVary(CompressingResponse.this);
+            out = getResponse().getOutputStream();
+
+            if (large && compressible) {
+                setHeader("Content-Encoding", coding);
+                compressor = compression.acquire("gzip".equals(coding));
+                state = COMPRESSING;
+                if (compressor.gzip) out.write(Compression.GZIP_HEADER);
+            } else {
+                state = IDENTITY;
+                if (contentLength >= 0) {
+                    getResponse().setContentLengthLong(contentLength);
+                } else if (!large) {
+                    getResponse().setContentLength(pendingLength);
+                }
+            }
+            int length = pendingLength;
+            pendingLength = 0;
+            if (length > 0) write(pending, 0, length);
+        }
+
+        private void drain(int flush) throws IOException {
+            int n = compressor.deflater.deflate(compressor.buffer, 0, compressor.buffer.length, flush);
+            if (n > 0) out.write(compressor.buffer, 0, n);
+        }
+
+        /** Writer flushes keep a small body held back; flushBuffer() commits it. */
+        @Override
+        public void flush() throws IOException {
+            if (state == UNDECIDED) return;
+            flushCompressed();
+        }
+
+        void commit() throws IOException {
+            if (state == UNDECIDED && pendingLength > 0) decide(true);
+            flushCompressed();
+        }
+
+        private void flushCompressed() throws IOException {
+            if (state == COMPRESSING) {
+                int n;
+                do {
+                    n = compressor.deflater.deflate(compressor.buffer, 0, compressor.buffer.length, Deflater.SYNC_FLUSH);
+                    if (n > 0) out.write(compressor.buffer, 0, n);
+                } while (n == compressor.buffer.length);
+            }
+            if (out != null) out.flush();
+        }
+
+        void finish() throws IOException {
+            if (state == UNDECIDED) decide(false);
+            if (state != COMPRESSING) return;
+            state = FINISHED;
+            try {
+                compressor.deflater.finish();
+                while (!compressor.deflater.finished()) drain(Deflater.NO_FLUSH);
+                if (compressor.gzip) out.write(Compression.trailer(compressor));
+            } finally {
+                compression.release(compressor);
+                compressor = null;
+            }
+        }
+
+        void release() {
+            if (compressor == null) return;
+            state = FINISHED;
+            compression.release(compressor);
+            compressor = null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            finish();
+        }
+
+        @Override
+        public boolean isReady() {
+            return out == null || out.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener listener) {
+            try {
+                getResponse().getOutputStream().setWriteListener(listener);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.web;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Response compression settings and codecs: Accept-Encoding negotiation, the
+ * minimum size and content-type allowlist, and a bounded pool of Deflaters so
+ * compressing a response does not allocate native zlib state, e.g.
+ * <pre>
+ * compression.minSize = 1024
+ * compression.mimeTypes = text/html,application/json
+ * compression.poolSize = 16
+ * </pre>
+ * The pool is shared rather than per thread: with virtual or short-lived
+ * threads a per-thread Deflater would be created for every response and
+ * linger until collected. Deflaters that do not fit back into the pool are
+ * ended at once.
+ */
+public class Compression {
+
+    public static final String ENABLED = "compression.enabled";
+    public static final String MIN_SIZE = "compression.minSize";
+    public static final String MIME_TYPES = "compression.mimeTypes";
+    public static final String LEVEL = "compression.level";
+    public static final String POOL_SIZE = "compression.poolSize";
+
+    private static final String DEFAULT_MIME_TYPES = "text/html,text/plain,text/css,text/javascript,text/xml,text/csv,"
+            + "application/javascript,application/json,application/x-ndjson,application/xml,application/xhtml+xml,"
+            + "image/svg+xml";
+
+    static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    /** Deflater, CRC and output buffer of one encoding, reused across responses. */
+    static final class Compressor {
+        final boolean gzip;
+        final Deflater deflater;
+        final CRC32 crc = new CRC32();
+        final byte[] buffer = new byte[8192];
+
+        Compressor(boolean gzip, int level) {
+            this.gzip = gzip;
+            this.deflater = new Deflater(level, gzip);
+        }
+    }
+
+    private final boolean enabled;
+    private final int minSize;
+    private final int level;
+    private final Set<String> mimeTypes = new HashSet<>();
+    private final BlockingQueue<Compressor> gzipCompressors;
+    private final BlockingQueue<Compressor> deflateCompressors;
+    private volatile boolean closed;
+
+    public Compression(FrameworkConfig config) {
+        this.enabled = config.getBoolean(ENABLED, true);
+        this.minSize = Math.max(1, config.getInt(MIN_SIZE, 1024));
+        this.level = config.getInt(LEVEL, 6);
+        int poolSize = Math.max(1, config.getInt(POOL_SIZE, 2 * Runtime.getRuntime().availableProcessors()));
+        this.gzipCompressors = new ArrayBlockingQueue<>(poolSize);
+        this.deflateCompressors = new ArrayBlockingQueue<>(poolSize);
+        for (String type : config.get(MIME_TYPES, DEFAULT_MIME_TYPES).split(",")) {
+            if (!type.trim().isEmpty()) mimeTypes.add(type.trim().toLowerCase(Locale.ROOT));
+        }
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    /** "gzip", "deflate" or null when the response should not be compressed. */
+    public String negotiate(HttpServletRequest request) {
+        if (!enabled || "HEAD".equals(request.getMethod())) return null;
+        String header = request.getHeader("Accept-Encoding");
+        if (header == null) return null;
+        if (accepts(header, "gzip")) return "gzip";
+        if (accepts(header, "deflate")) return "deflate";
+        return null;
+    }
+
+    /** Whether a response of this Content-Type is worth compressing. */
+    public boolean isCompressible(String contentType) {
+        if (!enabled || contentType == null) return false;
+        int semicolon = contentType.indexOf(';');
+        String type = (semicolon < 0 ? contentType : contentType.substring(0, semicolon)).trim().toLowerCase(Locale.ROOT);
+        return mimeTypes.contains(type) || type.endsWith("+json") || type.endsWith("+xml");
+    }
+
+    /** The response wrapped so that its body is compressed as it is written, or the response itself. */
+    public HttpServletResponse wrap(HttpServletRequest request, HttpServletResponse response) {
+        String coding = negotiate(request);
+        return coding == null ? response : new CompressingResponse(response, this, coding);
+    }
+
+    /** Gzipped copy of a body, for caches that keep both forms. */
+    public byte[] gzip(byte[] body) {
+        Compressor compressor = acquire(true);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 3 + 32);
+            out.write(GZIP_HEADER, 0, GZIP_HEADER.length);
+            compressor.crc.update(body, 0, body.length);
+            compressor.deflater.setInput(body);
+            compressor.deflater.finish();
+            while (!compressor.deflater.finished()) {
+                int n = compressor.deflater.deflate(compressor.buffer);
+                out.write(compressor.buffer, 0, n);
+            }
+            byte[] trailer = trailer(compressor);
+            out.write(trailer, 0, trailer.length);
+            return out.toByteArray();
+        } finally {
+            release(compressor);
+        }
+    }
+
+    /** CRC-32 and input size modulo 2^32, little-endian. */
+    static byte[] trailer(Compressor compressor) {
+        long crc = compressor.crc.getValue();
+        long size = compressor.deflater.getBytesRead();
+        return new byte[] {
+                (byte) crc, (byte) (crc >> 8), (byte) (crc >> 16), (byte) (crc >> 24),
+                (byte) size, (byte) (size >> 8), (byte) (size >> 16), (byte) (size >> 24)
+        };
+    }
+
+    /** Takes a pooled compressor, or a new one when the pool is empty. */
+    Compressor acquire(boolean gzip) {
+        Compressor compressor = (gzip ? gzipCompressors : deflateCompressors).poll();
+        return compressor != null ? compressor : new Compressor(gzip, level);
+    }
+
+    /** Resets the compressor and returns it to the pool, or ends it when full; must be called even on failure. */
+    void release(Compressor compressor) {
+        compressor.deflater.reset();
+        compressor.crc.reset();
+        BlockingQueue<Compressor> pool = compressor.gzip ? gzipCompressors : deflateCompressors;
+        if (closed || !pool.offer(compressor)) {
+            compressor.deflater.end();
+        } else if (closed && pool.remove(compressor)) {
+            compressor.deflater.end();
+        }
+    }
+
+    /** Frees the native state of every pooled compressor; compressors in use are freed on release. */
+    public void close() {
+        closed = true;
+        for (BlockingQueue<Compressor> pool : Arrays.asList(gzipCompressors, deflateCompressors)) {
+            Compressor compressor;
+            while ((compressor = pool.poll()) != null) compressor.deflater.end();
+        }
+    }
+
+    /** Adds Accept-Encoding to Vary, keeping what is already there. */
+    static void addVary(HttpServletResponse response) {
+        String vary = response.getHeader("Vary");
+        if (vary == null || vary.isEmpty()) {
+            response.setHeader("Vary", "Accept-Encoding");
+        } else if (!vary.toLowerCase(Locale.ROOT).contains("accept-encoding") && !vary.trim().equals("*")) {
+            response.setHeader("Vary", vary + ", Accept-Encoding");
+        }
+    }
+
+    /** Whether an Accept-Encoding header allows the coding, honouring q=0 and "*". */
+    static boolean accepts(String header, String coding) {
+        Boolean wildcard = null;
+        for (String part : header.split(",")) {
+            String[] tokens = part.trim().split(";");
+            String name = tokens[0].trim();
+            boolean allowed = true;
+            for (int i = 1; i < tokens.length; i++) {
+                String param = tokens[i].trim();
+                if (param.startsWith("q=") && param.substring(2).trim().matches("0(\\.0*)?")) allowed = false;
+            }
+            if (name.equalsIgnoreCase(coding)) return allowed;
+            if (name.equals("*")) wildcard = allowed;
+        }
+        return wildcard != null && wildcard;
+    }
+}
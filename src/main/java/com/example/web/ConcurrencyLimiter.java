@@ -0,0 +1,159 @@
+package com.example.web;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.example.annotation.ConcurrencyLimit;
+
+/**
+ * Admission control for one @ConcurrencyLimit. A permit is a single CAS on a
+ * semaphore when one is free; otherwise the request waits in a bounded queue
+ * for at most maxWaitMs. When adaptive, the limit follows observed latency:
+ * it shrinks by 10% when a window's average latency exceeds twice the best
+ * seen, and grows by one when the window ran close to the limit.
+ */
+public class ConcurrencyLimiter {
+
+    private static final ClassValue<ConcurrencyLimiter> CONTROLLER_LIMITERS = new ClassValue<ConcurrencyLimiter>() {
+        @Override
+        protected ConcurrencyLimiter computeValue(Class<?> type) {
+            ConcurrencyLimit limit = type.getAnnotation(ConcurrencyLimit.class);
+            return limit == null ? null : new ConcurrencyLimiter(limit);
+        }
+    };
+
+    private static final int WINDOW_SAMPLES = 50;
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final int WINDOWS_PER_BASELINE = 100;
+
+    private static final class Permits extends Semaphore {
+        private static final long serialVersionUID = 1L;
+
+        Permits(int permits) {
+            super(permits);
+        }
+
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+
+    private final Permits permits;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final int queue;
+    private final long maxWaitNanos;
+    private final int retryAfter;
+    private final boolean adaptive;
+    private final int minLimit;
+    private final int maxLimit;
+    private volatile int limit;
+
+    private final ReentrantLock sampling = new ReentrantLock();
+    private long baselineNanos = Long.MAX_VALUE;
+    private long windowStart = System.nanoTime();
+    private long windowSum;
+    private long windowMin = Long.MAX_VALUE;
+    private int windowCount;
+    private int windowPeak;
+    private int windows;
+
+    ConcurrencyLimiter(ConcurrencyLimit annotation) {
+        this.limit = Math.max(1, annotation.value());
+        this.permits = new Permits(limit);
+        this.queue = Math.max(0, annotation.queue());
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, annotation.maxWaitMs()));
+        this.retryAfter = Math.max(0, annotation.retryAfter());
+        this.adaptive = annotation.adaptive();
+        this.minLimit = Math.max(1, Math.min(annotation.minLimit(), limit));
+        this.maxLimit = annotation.maxLimit() > 0 ? Math.max(limit, annotation.maxLimit()) : limit * 4;
+    }
+
+    /** The limiter of the handler: its own @ConcurrencyLimit, else the one shared by its controller, else null. */
+    static ConcurrencyLimiter of(Method method) {
+        ConcurrencyLimit limit = method.getAnnotation(ConcurrencyLimit.class);
+        if (limit != null) return new ConcurrencyLimiter(limit);
+        return CONTROLLER_LIMITERS.get(method.getDeclaringClass());
+    }
+
+    /**
+     * Takes a permit, waiting in the queue if there is room. Returns false, and
+     * counts the rejection, when the request should be shed.
+     */
+    boolean acquire(RouteMetrics metrics) throws InterruptedException {
+        if (permits.tryAcquire()) return true;
+        if (queue == 0 || maxWaitNanos == 0) return reject(metrics);
+
+        if (waiting.incrementAndGet() > queue) {
+            waiting.decrementAndGet();
+            return reject(metrics);
+        }
+        try {
+            return permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS) || reject(metrics);
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    private static boolean reject(RouteMetrics metrics) {
+        metrics.rejected();
+        return false;
+    }
+
+    /** Returns the permit; the latency drives the adaptive limit. */
+    void release(long latencyNanos) {
+        int inFlight = limit - permits.availablePermits();
+        permits.release();
+        if (adaptive) sample(latencyNanos, inFlight);
+    }
+
+    private void sample(long latencyNanos, int inFlight) {
+        if (!sampling.tryLock()) return;
+        try {
+            windowSum += latencyNanos;
+            windowMin = Math.min(windowMin, latencyNanos);
+            windowPeak = Math.max(windowPeak, inFlight);
+            windowCount++;
+
+            long now = System.nanoTime();
+            if (windowCount < WINDOW_SAMPLES && now - windowStart < WINDOW_NANOS) return;
+
+            if (++windows % WINDOWS_PER_BASELINE == 0) baselineNanos = windowMin;
+            baselineNanos = Math.min(baselineNanos, windowMin);
+            long average = windowSum / windowCount;
+
+            int current = limit;
+            int next = current;
+            if (average > 2 * baselineNanos) {
+                next = Math.max(minLimit, (int) (current * 0.9));
+            } else if (windowPeak * 10 >= current * 8) {
+                next = Math.min(maxLimit, current + 1);
+            }
+            if (next > current) {
+                permits.release(next - current);
+            } else if (next < current) {
+                permits.reducePermits(current - next);
+            }
+            limit = next;
+
+            windowStart = now;
+            windowSum = 0;
+            windowMin = Long.MAX_VALUE;
+            windowCount = 0;
+            windowPeak = 0;
+        } finally {
+            sampling.unlock();
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -2,188 +2,187 @@ package com.example.web;
 
 import java.io.File;
 import java.lang.reflect.Method;
+import java.net.URL;
 import java.util.*;
-import java.util.regex.Pattern;
+import java.util.concurrent.atomic.AtomicReference;
 
 import com.example.annotation.*;
 
-import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
 
 public class ControllerScanner {
 
-    private static final Map<String, Map<String, Method>> routes = new HashMap<>();
-    private static final Map<Method, Object> instances = new HashMap<>();
-
-    public static final List<DynamicRouteEntry> dynamicRoutes = new ArrayList<>();
-
-
-    public static void initialize(String basePackage, ServletContext context) {
+    private static final AtomicReference<RouteTable> table = new AtomicReference<>();
+    private static FrameworkConfig config = new FrameworkConfig(Collections.emptyMap());
+    private static String basePackage;
+    private static ClassLoader parentLoader;
+
+    /**
+     * Scans and registers the controllers. A controller that cannot be registered,
+     * e.g. a misdeclared @PathVariable, fails the deployment rather than leaving
+     * the application up without routes.
+     */
+    public static void initialize(String basePackage, FrameworkConfig frameworkConfig) throws ServletException {
+        config = frameworkConfig;
+        ControllerScanner.basePackage = basePackage;
+        parentLoader = Thread.currentThread().getContextClassLoader();
         try {
-            scanAndRegister(basePackage);
-
-            context.setAttribute("routes", routes);
-            context.setAttribute("instances", instances);
-            context.setAttribute("dynamicRoutes", dynamicRoutes);
-
-            System.out.println("Routes and dynamic routes stored in ServletContext.");
+            publish(build(parentLoader, scan(parentLoader, basePackage)));
+            Log.info("Published " + table.get().getRoutes().size() + " routes.");
         } catch (Exception e) {
-            e.printStackTrace();
+            Log.error("Cannot register the controllers of " + basePackage, e);
+            throw new ServletException("Cannot register the controllers of " + basePackage + ": " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Loads the controllers again from the class directories through a fresh
+     * child-first loader and swaps the route table. On failure the current table
+     * stays in place.
+     */
+    public static synchronized RouteTable reload(List<File> classRoots) throws Exception {
+        URL[] urls = new URL[classRoots.size()];
+        for (int i = 0; i < urls.length; i++) urls[i] = classRoots.get(i).toURI().toURL();
+        ClassLoader loader = new ReloadingClassLoader(urls, parentLoader, basePackage);
+
+        List<String> classNames = new ArrayList<>();
+        for (File root : classRoots) {
+            classNames.addAll(ClassPathScanner.findAnnotated(root, basePackage, AnnotationController.class));
+        }
+        RouteTable reloaded = build(loader, classNames);
+        publish(reloaded);
+        Log.info("Reloaded " + reloaded.getRoutes().size() + " routes (generation "
+                + reloaded.getGeneration() + ").");
+        return reloaded;
+    }
 
-    private static void scanAndRegister(String packageName) throws Exception {
+    /**
+     * Swaps in a table built elsewhere, e.g. a benchmark's. Like a reload it
+     * replaces the table whole; requests already running keep theirs.
+     */
+    public static void publish(RouteTable routeTable) {
+        table.set(routeTable);
+    }
 
-        String path = packageName.replace('.', '/');
-        File directory = new File(
-                Objects.requireNonNull(
-                        Thread.currentThread().getContextClassLoader().getResource(path)
-                ).toURI()
-        );
+    private static List<String> scan(ClassLoader loader, String packageName) throws Exception {
+        List<String> classNames = ClassPathScanner.fromIndex(loader, packageName);
+        if (classNames != null) {
+            Log.info("Loaded " + classNames.size() + " controllers from the route index.");
+        } else {
+            classNames = ClassPathScanner.findAnnotated(loader, packageName, AnnotationController.class);
+            Log.info("No route index found; scanned class files for " + classNames.size() + " controllers.");
+        }
+        return classNames;
+    }
 
-        for (File file : Objects.requireNonNull(directory.listFiles())) {
+    private static RouteTable build(ClassLoader loader, List<String> classNames) throws Exception {
+        List<RouteEntry> routes = new ArrayList<>();
+        for (String className : classNames) {
+            Class<?> cls = Class.forName(className, false, loader);
+            if (cls.isAnnotationPresent(AnnotationController.class)) {
+                registerController(cls, routes);
+            }
+        }
+        RouteTable current = table.get();
+        return new RouteTable(routes, loader, current == null ? 1 : current.getGeneration() + 1);
+    }
 
-            if (file.isDirectory()) {
-                scanAndRegister(packageName + "." + file.getName());
+    private static void registerController(Class<?> cls, List<RouteEntry> routes) throws Exception {
+        AnnotationController ctrlAnno = cls.getAnnotation(AnnotationController.class);
+        String baseRoute = ctrlAnno.value();
+
+        Object instance = cls.getDeclaredConstructor().newInstance();
+        boolean foundAnnotatedMethod = false;
+
+        for (Method method : cls.getDeclaredMethods()) {
+
+            String httpMethod = null;
+            String routeValue = null;
+
+            if (method.isAnnotationPresent(GetMethode.class)) {
+                httpMethod = "GET";
+                routeValue = method.getAnnotation(GetMethode.class).value();
+            } else if (method.isAnnotationPresent(PostMethode.class)) {
+                httpMethod = "POST";
+                routeValue = method.getAnnotation(PostMethode.class).value();
+            } else if (method.isAnnotationPresent(PutMethode.class)) {
+                httpMethod = "PUT";
+                routeValue = method.getAnnotation(PutMethode.class).value();
+            } else if (method.isAnnotationPresent(DeleteMethode.class)) {
+                httpMethod = "DELETE";
+                routeValue = method.getAnnotation(DeleteMethode.class).value();
+            } else if (method.isAnnotationPresent(PatchMethode.class)) {
+                httpMethod = "PATCH";
+                routeValue = method.getAnnotation(PatchMethode.class).value();
+            } else {
+                // no HTTP annotation → skip
                 continue;
             }
 
-            if (!file.getName().endsWith(".class")) continue;
-
-            String className = packageName + "." + file.getName().replace(".class", "");
-            Class<?> cls = Class.forName(className);
-
-            if (!cls.isAnnotationPresent(AnnotationController.class)) continue;
-
-            AnnotationController ctrlAnno = cls.getAnnotation(AnnotationController.class);
-            String baseRoute = ctrlAnno.value();
-
-            Object instance = cls.getDeclaredConstructor().newInstance();
-            boolean foundAnnotatedMethod = false;
-
-            for (Method method : cls.getDeclaredMethods()) {
-
-                String httpMethod = null;
-                String routeValue = null;
-
-                if (method.isAnnotationPresent(GetMethode.class)) {
-                    httpMethod = "GET";
-                    routeValue = method.getAnnotation(GetMethode.class).value();
-                } else if (method.isAnnotationPresent(PostMethode.class)) {
-                    httpMethod = "POST";
-                    routeValue = method.getAnnotation(PostMethode.class).value();
-                } else if (method.isAnnotationPresent(PutMethode.class)) {
-                    httpMethod = "PUT";
-                    routeValue = method.getAnnotation(PutMethode.class).value();
-                } else if (method.isAnnotationPresent(DeleteMethode.class)) {
-                    httpMethod = "DELETE";
-                    routeValue = method.getAnnotation(DeleteMethode.class).value();
-                } else if (method.isAnnotationPresent(PatchMethode.class)) {
-                    httpMethod = "PATCH";
-                    routeValue = method.getAnnotation(PatchMethode.class).value();
-                } else {
-                    // no HTTP annotation → skip
-                    continue;
-                }
-
-                foundAnnotatedMethod = true;
-                String fullRoute = baseRoute + routeValue;  
-
+            foundAnnotatedMethod = true;
+            String fullRoute = baseRoute + routeValue;
 
-                if (fullRoute.contains("{")) {
+            register(httpMethod, fullRoute, method, instance, routes);
+            Log.debug("Registered route [" + httpMethod + "]: " + fullRoute);
+        }
 
-                    String regex = fullRoute.replaceAll("\\{([^/]+)}", "(?<$1>[^/]+)");
-                    regex = "^" + regex + "$";
 
-                    DynamicRouteEntry entry = findOrCreateDynamicEntry(regex, instance);
-                    entry.methods.put(httpMethod, method);
-                    instances.put(method, instance);
+        if (!foundAnnotatedMethod) {
+            try {
+                Method defaultMethod = cls.getMethod("handle",
+                        javax.servlet.http.HttpServletRequest.class,
+                        javax.servlet.http.HttpServletResponse.class
+                );
 
-                    System.out.println(" Registered dynamic route [" + httpMethod + "]: " + fullRoute + " → " + regex);
-                }
+                register("GET", baseRoute, defaultMethod, instance, routes);
 
-                else {
-                    routes.computeIfAbsent(fullRoute, k -> new HashMap<>())
-                          .put(httpMethod, method);
-                    instances.put(method, instance);
 
-                    System.out.println(" Registered static route [" + httpMethod + "]: " + fullRoute);
-                }
+                Log.debug("Default controller registered for: " + baseRoute);
             }
-
-
-            if (!foundAnnotatedMethod) {
-                try {
-                    Method defaultMethod = cls.getMethod("handle",
-                            javax.servlet.http.HttpServletRequest.class,
-                            javax.servlet.http.HttpServletResponse.class
-                    );
-
-                    routes.computeIfAbsent(baseRoute, k -> new HashMap<>())
-                        .put("GET", defaultMethod);
-                    instances.put(defaultMethod, instance);
-
-
-                    System.out.println(" Default controller registered for: " + baseRoute);
-                }
-                catch (NoSuchMethodException ignored) {
-                    System.out.println(" No @GetMethode and no handle() in " + cls.getSimpleName());
-                }
+            catch (NoSuchMethodException ignored) {
+                Log.warn("No @GetMethode and no handle() in " + cls.getSimpleName());
             }
         }
     }
 
-    private static DynamicRouteEntry findOrCreateDynamicEntry(String regex, Object instance) {
-        for (DynamicRouteEntry e : dynamicRoutes) {
-            if (e.pattern.pattern().equals(regex)) {
-                return e;
-            }
-        }
-        DynamicRouteEntry newEntry = new DynamicRouteEntry(Pattern.compile(regex), instance);
-        dynamicRoutes.add(newEntry);
-        return newEntry;
-    }
-    public static Method getStaticMethod(String path, String httpMethod) {
-        Map<String, Method> methods = routes.get(path);
-        if (methods == null) return null;
-        return methods.get(httpMethod);
+    private static void register(String httpMethod, String route, Method method, Object instance,
+                                 List<RouteEntry> routes) throws IllegalAccessException {
+        String[] pathVariables = RouteTrie.pathVariables(route);
+        routes.add(new RouteEntry(httpMethod, route, method, instance, pathVariables,
+                RouteInvoker.bind(method, instance), BindingPlan.of(method, pathVariables, httpMethod, config)));
     }
 
-    public static Object getController(Method method) {
-        return instances.get(method);
+    /** The current route table; read once per request. */
+    public static RouteTable getTable() {
+        return table.get();
     }
 
-    public static List<DynamicRouteEntry> getDynamicRoutes() {
-        return dynamicRoutes;
+    public static List<RouteEntry> getRoutes() {
+        return table.get().getRoutes();
     }
 
     public static Set<String> getAllowedMethodsForPath(String path) {
-        Map<String, Method> methods = routes.get(path);
-        return methods == null ? Collections.emptySet() : methods.keySet();
+        RouteMatch match = table.get().match(path, "");
+        return match == null ? Collections.emptySet() : match.getAllowedMethods();
     }
 
     // --------------------------------------------------------------------
     // DEBUGGING TOOLS
     // --------------------------------------------------------------------
     public static void printAllRoutes() {
-        System.out.println("\n===== STATIC ROUTES =====");
-        for (Map.Entry<String, Map<String, Method>> kv : routes.entrySet()) {
-            String path = kv.getKey();
-            String methodsList = String.join(", ", kv.getValue().keySet());
-            System.out.println(" - " + path + " -> [" + methodsList + "]");
-        }
-
-        System.out.println("\n===== DYNAMIC ROUTES =====");
-        for (DynamicRouteEntry e : dynamicRoutes) {
-            String methodsList = String.join(", ", e.methods.keySet());
-            System.out.println(" - " + e.pattern.pattern() + " -> [" + methodsList + "]");
+        StringBuilder routes = new StringBuilder("===== ROUTES =====");
+        for (RouteEntry e : getRoutes()) {
+            routes.append("\n - [").append(e.getHttpMethod()).append("] ").append(e.getRoute())
+                    .append(" -> ").append(e.getMethod().getDeclaringClass().getSimpleName())
+                    .append('.').append(e.getMethod().getName());
         }
+        Log.info(routes.toString());
     }
     public static void listMethods(String basePackage) {
     try {
         scanAndList(basePackage);
     } catch (Exception e) {
-        e.printStackTrace();
+        Log.error("Cannot list the methods of " + basePackage, e);
     }
 }
 
@@ -202,14 +201,14 @@ private static void scanAndList(String packageName) throws Exception {
             String className = packageName + "." + file.getName().replace(".class", "");
             Class<?> cls = Class.forName(className);
 
-            System.out.println("\nClass: " + cls.getName());
+            Log.info("Class: " + cls.getName());
             Method[] methods = cls.getDeclaredMethods();
             if (methods.length == 0) {
-                System.out.println("   (No methods found)");
+                Log.info("   (No methods found)");
             } else {
                 for (Method m : methods) {
                     String annotation = m.isAnnotationPresent(com.example.annotation.GetMethode.class) ? " @GetMethode" : "";
-                    System.out.println("   → " + m.getName() + annotation);
+                    Log.info("   → " + m.getName() + annotation);
                 }
             }
         }
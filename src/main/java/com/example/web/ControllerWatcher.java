@@ -0,0 +1,143 @@
+package com.example.web;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.ServletContext;
+
+/**
+ * Opt-in watcher over the controller class directories. Once class files stop
+ * changing for the debounce delay it rebuilds the route table through
+ * {@link ControllerScanner#reload}; in-flight requests finish on the old one.
+ * Meant for development and canary deployments, e.g.
+ * <pre>
+ * controllers.hotReload = true
+ * controllers.reloadDirs = /WEB-INF/classes
+ * </pre>
+ */
+public class ControllerWatcher implements Runnable, AutoCloseable {
+
+    public static final String HOT_RELOAD = "controllers.hotReload";
+    public static final String RELOAD_DIRS = "controllers.reloadDirs";
+    public static final String DEBOUNCE_MS = "controllers.reloadDebounceMs";
+
+    private final List<File> classRoots;
+    private final long debounceMs;
+    private final WatchService watcher;
+    private final Thread thread;
+
+    public ControllerWatcher(List<File> classRoots, String basePackage, long debounceMs) throws IOException {
+        this.classRoots = classRoots;
+        this.debounceMs = debounceMs;
+        this.watcher = FileSystems.getDefault().newWatchService();
+        for (File root : classRoots) {
+            Path packageDir = root.toPath().resolve(basePackage.replace('.', File.separatorChar));
+            Files.createDirectories(packageDir);
+            registerTree(packageDir);
+        }
+        this.thread = new Thread(this, "controller-watcher");
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    @Override
+    public void run() {
+        boolean dirty = false;
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = dirty ? watcher.poll(debounceMs, TimeUnit.MILLISECONDS) : watcher.take();
+                if (key == null) {
+                    dirty = false;
+                    reload();
+                    continue;
+                }
+                dirty |= drain(key);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    /** Handles the events of a key; true when a class file changed. */
+    private boolean drain(WatchKey key) {
+        boolean changed = false;
+        Path dir = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                changed = true;
+                continue;
+            }
+            Path child = dir.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(child)) {
+                try {
+                    registerTree(child);
+                } catch (IOException e) {
+                    Log.warn("Cannot watch " + child, e);
+                }
+                changed = true;
+            } else if (child.toString().endsWith(".class")) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    private void reload() {
+        try {
+            ControllerScanner.reload(classRoots);
+        } catch (Throwable e) {
+            Log.error("Controller reload failed, keeping the current routes", e);
+        }
+    }
+
+    private void registerTree(Path start) throws IOException {
+        Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /** The directories named by controllers.reloadDirs, resolved against the web application. */
+    static List<File> classRoots(ServletContext context, FrameworkConfig config) {
+        List<File> roots = new ArrayList<>();
+        for (String dir : config.get(RELOAD_DIRS, "/WEB-INF/classes").split(",")) {
+            String path = dir.trim();
+            if (path.isEmpty()) continue;
+            File file = new File(path);
+            if (!file.isAbsolute() || !file.isDirectory()) {
+                String real = context.getRealPath(path);
+                if (real != null) file = new File(real);
+            }
+            if (file.isDirectory()) roots.add(file);
+        }
+        return roots;
+    }
+
+    @Override
+    public void close() throws IOException {
+        thread.interrupt();
+        watcher.close();
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.web;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Counts the body bytes handed to the container, for the access log. Wraps the
+ * response outside compression, so compressed bodies count as sent. Characters
+ * written through the writer are counted in their UTF-8 length (one byte each
+ * for other encodings), which keeps the container's own writer in place.
+ */
+final class CountingResponse extends HttpServletResponseWrapper {
+
+    private long count;
+    private boolean written;
+    private ServletOutputStream stream;
+    private PrintWriter writer;
+
+    CountingResponse(HttpServletResponse response) {
+        super(response);
+    }
+
+    /** Bytes written, or the Content-Length header when the body did not go through this wrapper. */
+    long getBytesWritten() {
+        if (written) return count;
+        String header = getHeader("Content-Length");
+        if (header == null) return -1;
+        try {
+            return Long.parseLong(header);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (stream == null) stream = new CountingStream(getResponse().getOutputStream());
+        return stream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            boolean utf8 = StandardCharsets.UTF_8.name().equalsIgnoreCase(getCharacterEncoding());
+            writer = new PrintWriter(new CountingWriter(getResponse().getWriter(), utf8));
+        }
+        return writer;
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        count = 0;
+        written = false;
+    }
+
+    @Override
+    public void resetBuffer() {
+        super.resetBuffer();
+        count = 0;
+        written = false;
+    }
+
+    private void add(long bytes) {
+        count += bytes;
+        written = true;
+    }
+
+    private final class CountingStream extends ServletOutputStream {
+        private final ServletOutputStream out;
+
+        CountingStream(ServletOutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            add(1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            add(len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return out.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener listener) {
+            out.setWriteListener(listener);
+        }
+    }
+
+    private final class CountingWriter extends FilterWriter {
+        private final boolean utf8;
+
+        CountingWriter(PrintWriter out, boolean utf8) {
+            super(out);
+            this.utf8 = utf8;
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            out.write(c);
+            add(utf8 ? utf8Length((char) c) : 1);
+        }
+
+        @Override
+        public void write(char[] buffer, int off, int len) throws IOException {
+            out.write(buffer, off, len);
+            if (!utf8) {
+                add(len);
+                return;
+            }
+            long bytes = 0;
+            for (int i = off; i < off + len; i++) bytes += utf8Length(buffer[i]);
+            add(bytes);
+        }
+
+        @Override
+        public void write(String s, int off, int len) throws IOException {
+            out.write(s, off, len);
+            if (!utf8) {
+                add(len);
+                return;
+            }
+            long bytes = 0;
+            for (int i = off; i < off + len; i++) bytes += utf8Length(s.charAt(i));
+            add(bytes);
+        }
+    }
+
+    /** UTF-8 bytes per char; each half of a surrogate pair counts for two of its four bytes. */
+    private static int utf8Length(char c) {
+        return c < 0x80 ? 1 : c < 0x800 ? 2 : Character.isSurrogate(c) ? 2 : 3;
+    }
+}
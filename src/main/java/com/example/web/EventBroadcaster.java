@@ -0,0 +1,72 @@
+package com.example.web;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fans events out to subscribed {@link EventSink}s. Each event is serialized
+ * and encoded once, and the same frame is queued for every subscriber. The last
+ * replaySize events are kept so a client reconnecting with Last-Event-ID gets
+ * what it missed. Closed sinks unsubscribe themselves.
+ */
+public class EventBroadcaster {
+
+    private final Object lock = new Object();
+    private final Set<EventSink> subscribers = ConcurrentHashMap.newKeySet();
+    private final long[] replayIds;
+    private final byte[][] replayFrames;
+    private int replayNext;
+    private long lastId;
+
+    public EventBroadcaster() {
+        this(64);
+    }
+
+    public EventBroadcaster(int replaySize) {
+        replayIds = new long[Math.max(0, replaySize)];
+        replayFrames = new byte[replayIds.length][];
+    }
+
+    /** Adds the sink after replaying the retained events newer than its Last-Event-ID. */
+    public void subscribe(EventSink sink) {
+        synchronized (lock) {
+            long after = sink.getLastEventId();
+            if (after >= 0) {
+                for (int i = 0; i < replayFrames.length; i++) {
+                    int slot = (replayNext + i) % replayFrames.length;
+                    if (replayFrames[slot] != null && replayIds[slot] > after) sink.offer(replayFrames[slot]);
+                }
+            }
+            subscribers.add(sink);
+        }
+        sink.onClose(() -> subscribers.remove(sink));
+    }
+
+    public void unsubscribe(EventSink sink) {
+        subscribers.remove(sink);
+    }
+
+    /**
+     * Sends an event to every subscriber and returns its id. Data other than a
+     * String is written as JSON. Queuing never blocks: a subscriber that is
+     * behind is handled by its overflow policy.
+     */
+    public long publish(String event, Object data) {
+        String payload = EventSink.payload(data);
+        synchronized (lock) {
+            long id = ++lastId;
+            byte[] frame = EventSink.frame(id, event, payload);
+            if (replayFrames.length > 0) {
+                replayIds[replayNext] = id;
+                replayFrames[replayNext] = frame;
+                replayNext = (replayNext + 1) % replayFrames.length;
+            }
+            for (EventSink sink : subscribers) sink.offer(frame);
+            return id;
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+}
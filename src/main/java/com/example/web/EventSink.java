@@ -0,0 +1,268 @@
+package com.example.web;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.example.annotation.EventStream;
+import com.example.util.JsonConverter;
+
+/**
+ * One Server-Sent Events subscriber. Events are encoded into frames and queued;
+ * the queue is drained with non-blocking writes whenever the connection can
+ * take more, so neither publishers nor an idle stream hold a thread. When a slow
+ * client lets the queue fill up, the @EventStream overflow policy applies.
+ */
+public class EventSink {
+
+    static final String ATTRIBUTE = EventSink.class.getName();
+
+    private static final byte[] HEARTBEAT = ":\n\n".getBytes(StandardCharsets.US_ASCII);
+    private static final Set<EventSink> OPEN = ConcurrentHashMap.newKeySet();
+
+    private static ScheduledExecutorService heartbeats;
+
+    /** One daemon thread sends the heartbeats of all open sinks; started with the first sink needing it. */
+    private static synchronized void startHeartbeats() {
+        if (heartbeats != null) return;
+        heartbeats = Executors.newSingleThreadScheduledExecutor(AsyncExecutors.daemonThreads("sse-heartbeat-"));
+        heartbeats.scheduleWithFixedDelay(() -> {
+            long now = System.nanoTime();
+            for (EventSink sink : OPEN) sink.heartbeat(now);
+        }, 1, 1, TimeUnit.SECONDS);
+    }
+
+    private final AsyncContext async;
+    private final ServletOutputStream out;
+    private final ArrayBlockingQueue<byte[]> queue;
+    private final EventStream.Overflow overflow;
+    private final long heartbeatNanos;
+    private final long lastEventId;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final List<Runnable> closeListeners = new CopyOnWriteArrayList<>();
+    private final LongAdder dropped = new LongAdder();
+    private volatile boolean started;
+    private volatile boolean signalled;
+    private volatile long lastWrite = System.nanoTime();
+
+    EventSink(AsyncContext async, ServletOutputStream out, EventStream settings, long lastEventId) {
+        this.async = async;
+        this.out = out;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, settings.queue()));
+        this.overflow = settings.overflow();
+        this.heartbeatNanos = TimeUnit.MILLISECONDS.toNanos(settings.heartbeatMs());
+        this.lastEventId = lastEventId;
+    }
+
+    /** Puts the request in async mode with the event-stream headers and returns its sink. */
+    static EventSink open(HttpServletRequest request, HttpServletResponse response, EventStream settings)
+            throws IOException {
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType("text/event-stream;charset=UTF-8");
+        response.setHeader("Cache-Control", "no-cache");
+        response.setHeader("X-Accel-Buffering", "no");
+
+        AsyncContext async = request.startAsync(request, response);
+        async.setTimeout(settings.timeoutMs());
+        EventSink sink = new EventSink(async, response.getOutputStream(), settings, lastEventId(request));
+        async.addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+                sink.close();
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                sink.close();
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                sink.close();
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+        return sink;
+    }
+
+    private static long lastEventId(HttpServletRequest request) {
+        String value = request.getHeader("Last-Event-ID");
+        if (value == null) value = request.getParameter("lastEventId");
+        if (value == null) return -1;
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /** Starts writing; frames queued before this are sent first. */
+    void start() {
+        OPEN.add(this);
+        if (heartbeatNanos > 0) startHeartbeats();
+        out.setWriteListener(new WriteListener() {
+            @Override
+            public void onWritePossible() {
+                started = true;
+                signalled = true;
+                drain();
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                close();
+            }
+        });
+    }
+
+    /** Id from the client's Last-Event-ID header, or -1 for a fresh subscription. */
+    public long getLastEventId() {
+        return lastEventId;
+    }
+
+    public boolean isOpen() {
+        return !closed.get();
+    }
+
+    /** Events discarded because this subscriber fell behind. */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /** Sends an event to this subscriber only; data other than a String is written as JSON. */
+    public boolean send(String event, Object data) {
+        return offer(frame(-1, event, payload(data)));
+    }
+
+    /** Runs the listener once when the stream closes, or right away if it already has. */
+    public void onClose(Runnable listener) {
+        closeListeners.add(listener);
+        if (closed.get() && closeListeners.remove(listener)) listener.run();
+    }
+
+    public void close() {
+        if (!closed.compareAndSet(false, true)) return;
+        OPEN.remove(this);
+        queue.clear();
+        try {
+            async.complete();
+        } catch (IllegalStateException ignored) {
+            // already completed by the container
+        }
+        for (Runnable listener : closeListeners) {
+            if (!closeListeners.remove(listener)) continue;
+            try {
+                listener.run();
+            } catch (RuntimeException e) {
+                Log.warn("Event stream close listener failed", e);
+            }
+        }
+    }
+
+    /** Queues an encoded frame; false when it was dropped or the sink is closed. */
+    boolean offer(byte[] frame) {
+        if (closed.get()) return false;
+        if (!queue.offer(frame)) {
+            switch (overflow) {
+                case DROP_NEWEST:
+                    dropped.increment();
+                    return false;
+                case DISCONNECT:
+                    close();
+                    return false;
+                default:
+                    while (!queue.offer(frame)) {
+                        if (queue.poll() != null) dropped.increment();
+                    }
+            }
+        }
+        drain();
+        return true;
+    }
+
+    private void heartbeat(long now) {
+        if (heartbeatNanos <= 0 || now - lastWrite < heartbeatNanos) return;
+        lastWrite = now;
+        if (queue.isEmpty()) queue.offer(HEARTBEAT);
+        drain();
+    }
+
+    /**
+     * Writes queued frames while the connection is ready. Only one thread writes
+     * at a time; when the connection is not ready the container calls
+     * onWritePossible later, which resumes here.
+     */
+    private void drain() {
+        while (started && !closed.get() && draining.compareAndSet(false, true)) {
+            boolean blocked = false;
+            try {
+                signalled = false;
+                boolean wrote = false;
+                while (true) {
+                    if (!out.isReady()) {
+                        blocked = true;
+                        break;
+                    }
+                    byte[] frame = queue.poll();
+                    if (frame == null) break;
+                    out.write(frame);
+                    wrote = true;
+                }
+                if (wrote) {
+                    lastWrite = System.nanoTime();
+                    if (!blocked) out.flush();
+                }
+            } catch (IOException | RuntimeException e) {
+                draining.set(false);
+                close();
+                return;
+            }
+            draining.set(false);
+            if (blocked ? !signalled : queue.isEmpty()) return;
+        }
+    }
+
+    static String payload(Object data) {
+        if (data == null) return "";
+        if (data instanceof CharSequence) return data.toString();
+        return JsonConverter.toJson(data);
+    }
+
+    /** The wire form of an event: optional id and name, one data line per payload line. */
+    static byte[] frame(long id, String event, String data) {
+        StringBuilder frame = new StringBuilder(data.length() + 32);
+        if (id >= 0) frame.append("id: ").append(id).append('\n');
+        if (event != null && !event.isEmpty()) frame.append("event: ").append(event).append('\n');
+        int start = 0;
+        for (int i = 0; i <= data.length(); i++) {
+            if (i == data.length() || data.charAt(i) == '\n') {
+                int end = i > start && data.charAt(i - 1) == '\r' ? i - 1 : i;
+                frame.append("data: ").append(data, start, end).append('\n');
+                start = i + 1;
+            }
+        }
+        frame.append('\n');
+        return frame.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.web;
+
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletContext;
+
+/**
+ * Framework settings read from the FrontController init-params, falling back to
+ * context-params of the same name, e.g.
+ * <pre>
+ * &lt;init-param&gt;
+ *     &lt;param-name&gt;json.maxBodySize&lt;/param-name&gt;
+ *     &lt;param-value&gt;2097152&lt;/param-value&gt;
+ * &lt;/init-param&gt;
+ * </pre>
+ */
+public class FrameworkConfig {
+
+    public static final String JSON_MAX_BODY_SIZE = "json.maxBodySize";
+
+    private final Map<String, String> values;
+
+    public FrameworkConfig(Map<String, String> values) {
+        this.values = new HashMap<>(values);
+    }
+
+    public static FrameworkConfig from(ServletConfig config) {
+        Map<String, String> values = new HashMap<>();
+        ServletContext context = config.getServletContext();
+        if (context != null) copy(context.getInitParameterNames(), context::getInitParameter, values);
+        copy(config.getInitParameterNames(), config::getInitParameter, values);
+        return new FrameworkConfig(values);
+    }
+
+    private static void copy(Enumeration<String> names, Function<String, String> getter,
+                             Map<String, String> values) {
+        if (names == null) return;
+        while (names.hasMoreElements()) {
+            String name = names.nextElement();
+            values.put(name, getter.apply(name));
+        }
+    }
+
+    public String get(String name, String defaultValue) {
+        String value = values.get(name);
+        return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+    }
+
+    public long getLong(String name, long defaultValue) {
+        String value = get(name, null);
+        if (value == null) return defaultValue;
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    public int getInt(String name, int defaultValue) {
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, getLong(name, defaultValue)));
+    }
+
+    public boolean getBoolean(String name, boolean defaultValue) {
+        String value = get(name, null);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+
+    public long getMaxJsonBodySize() {
+        return getLong(JSON_MAX_BODY_SIZE, 1024 * 1024);
+    }
+}
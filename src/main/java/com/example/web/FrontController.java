@@ -1,9 +1,16 @@
 package com.example.web;
 
 import java.io.*;
-import java.lang.reflect.Method;
-import java.util.List;
+import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.servlet.*;
 import javax.servlet.http.*;
@@ -11,18 +18,68 @@ import javax.servlet.annotation.MultipartConfig;
 
 import com.example.util.MultipartHelper;
 import com.example.util.JsonConverter;
+import com.example.util.MessagePack;
 import com.example.util.ModelView;
-import com.example.annotation.*;
 
-@MultipartConfig
+@MultipartConfig(
+        fileSizeThreshold = 1024 * 1024,
+        maxFileSize = 512L * 1024 * 1024,
+        maxRequestSize = 1024L * 1024 * 1024)
 public class FrontController extends HttpServlet {
 
+    private StaticResourceHandler staticResources;
+    private ExecutorService handlerExecutor;
+    private long asyncTimeoutMs;
+    private boolean metricsEnabled;
+    private String metricsPath;
+    private ControllerWatcher controllerWatcher;
+    private Compression compression;
+    private TemplateViews templates;
+    private ViewIndex views;
+    private ResultStreamer streamer;
+
     @Override
     public void init() throws ServletException {
-        ControllerScanner.initialize("com.example.controller", getServletContext());
+        FrameworkConfig config = FrameworkConfig.from(getServletConfig());
+        Log.configure(config);
+        ControllerScanner.initialize("com.example.controller", config);
+        compression = new Compression(config);
+        templates = new TemplateViews(getServletContext(), config);
+        views = new ViewIndex(getServletContext(), config, ".html", ".jsp", templates.getExtension());
+        streamer = new ResultStreamer(config);
+        staticResources = new StaticResourceHandler(getServletContext(), config, compression);
+        handlerExecutor = AsyncExecutors.create(config);
+        asyncTimeoutMs = config.getLong(AsyncExecutors.TIMEOUT_MS, 30_000);
+        metricsEnabled = config.getBoolean(Metrics.ENABLED, true);
+        metricsPath = config.get(Metrics.PATH, "/metrics");
 
         ControllerScanner.printAllRoutes();
+
+        if (config.getBoolean(ControllerWatcher.HOT_RELOAD, false)) {
+            try {
+                controllerWatcher = new ControllerWatcher(ControllerWatcher.classRoots(getServletContext(), config),
+                        "com.example.controller", config.getLong(ControllerWatcher.DEBOUNCE_MS, 300));
+                controllerWatcher.start();
+            } catch (IOException e) {
+                throw new ServletException("Cannot watch the controller classes", e);
+            }
+        }
     }
+
+    @Override
+    public void destroy() {
+        if (handlerExecutor != null) handlerExecutor.shutdown();
+        if (controllerWatcher != null) {
+            try {
+                controllerWatcher.close();
+            } catch (IOException ignored) {
+                // shutting down
+            }
+        }
+        if (compression != null) compression.close();
+        Log.shutdown();
+    }
+
     @Override
     protected void doPut(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
@@ -41,293 +98,449 @@ public class FrontController extends HttpServlet {
 
         response.setContentType("text/html;charset=UTF-8");
 
-        Map<String, Map<String, Method>> routes =
-                (Map<String, Map<String, Method>>) getServletContext().getAttribute("routes");
-
-        Map<Method, Object> instances =
-                (Map<Method, Object>) getServletContext().getAttribute("instances");
-
-        List<DynamicRouteEntry> dynamicRoutes =
-                (List<DynamicRouteEntry>) getServletContext().getAttribute("dynamicRoutes");
-
-        if (routes == null || instances == null || dynamicRoutes == null) {
-            throw new ServletException("Routes not initialized in ServletContext");
+        RouteTable routeTable = ControllerScanner.getTable();
+        if (routeTable == null) {
+            throw new ServletException("Routes not initialized");
         }
 
         String path = request.getRequestURI().substring(request.getContextPath().length());
+        boolean external = request.getDispatcherType() == DispatcherType.REQUEST;
+        if (metricsEnabled && external && path.equals(metricsPath)) {
+            writeMetrics(request, response);
+            return;
+        }
         if (path.isEmpty() || path.equals("/")) path = "/index";
 
-        String httpMethod = request.getMethod();
-        if ("POST".equalsIgnoreCase(httpMethod)) {
-            String override = request.getParameter("_method");
-            if (override != null && !override.isEmpty()) {
-                httpMethod = override.toUpperCase();
-            }
+        if (!external || !(metricsEnabled || Log.isAccessEnabled())) {
+            dispatch(routeTable, request, response, path, null);
+            return;
         }
 
-        boolean isMultipart = request.getContentType() != null
-        && request.getContentType().toLowerCase().startsWith("multipart/");
-        Map<String, byte[]> uploadedFiles = null;
-        if (isMultipart) {
-            try {
-                uploadedFiles = MultipartHelper.saveOnTomcat(request);
-                request.setAttribute("__files__", uploadedFiles);
-            } catch (Exception e) {
-                throw new ServletException("Multipart upload failed", e);
+        RequestTrace trace = RequestTrace.begin();
+        if (Log.isAccessEnabled()) response = new CountingResponse(response);
+        boolean failed = true;
+        try {
+            dispatch(routeTable, request, response, path, trace);
+            failed = false;
+        } finally {
+            if (MultipartHelper.isMultipart(request)) Metrics.addMultipartBytes(request.getContentLengthLong());
+            if (!request.isAsyncStarted()) {
+                trace.finish(failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : response.getStatus(),
+                        request, response);
             }
         }
+    }
 
+    private void dispatch(RouteTable routeTable, HttpServletRequest request, HttpServletResponse response,
+                          String path, RequestTrace trace) throws ServletException, IOException {
 
-        DynamicRouteEntry matched = null;
-        java.util.regex.Matcher matcher = null;
-        boolean pathExists = false;
-
-        for (DynamicRouteEntry entry : dynamicRoutes) {
-            matcher = entry.pattern.matcher(path);
-            if (matcher.matches()) {
-                pathExists = true; 
-                if (entry.methods.containsKey(httpMethod)) {
-                    matched = entry;
-                    break; 
-                }
+        String httpMethod = request.getMethod();
+        if ("POST".equalsIgnoreCase(httpMethod)) {
+            String override = methodOverride(request);
+            if (override != null && !override.isEmpty()) {
+                httpMethod = override.toUpperCase();
             }
         }
 
-        if (matched != null) {
-            invokeDynamicRoute(matched, matcher, request, response, httpMethod);
-            return;
-        } else if (pathExists) {
-            response.setStatus(405);
-            response.getWriter().println("HTTP 405: Method Not Allowed");
-            return;
-        }
-
-        Map<String, Method> httpMethods = routes.get(path);
+        RouteMatch match = routeTable.match(path, httpMethod);
 
-        if (httpMethods != null) {
-            Method method = httpMethods.get(httpMethod);
+        if (match != null) {
+            RouteEntry entry = match.getEntry();
 
-            if (method == null) {
+            if (entry == null) {
+                if (trace != null) trace.routed(Metrics.UNROUTED);
                 response.setStatus(405);
+                response.setHeader("Allow", String.join(", ", match.getAllowedMethods()));
                 response.getWriter().println("HTTP 405: Method Not Allowed");
                 return;
             }
 
-            Object controller = instances.get(method);
-            invokeMethod(controller, method, request, response);
+            String[] names = entry.getPathVariables();
+            String[] values = match.getPathValues();
+            for (int i = 0; i < names.length; i++) {
+                request.setAttribute(names[i], values[i]);
+            }
+
+            if (trace != null) trace.routed(entry.getMetrics());
+            invokeMethod(entry, values, request, response, trace);
             return;
         }
+        if (trace != null) trace.routed(Metrics.UNROUTED);
         handleFileRequest(request, response, path);
     }
 
-    private void invokeDynamicRoute(DynamicRouteEntry matched, java.util.regex.Matcher matcher,
-                                    HttpServletRequest request, HttpServletResponse response,
-                                    String httpMethod)
-            throws ServletException, IOException {
-
-        Method method = matched.methods.get(httpMethod);
-        Object controller = matched.instance;
-
-        if (method == null) {
-            response.setStatus(405);
-            response.getWriter().println("HTTP 405: Method Not Allowed");
-            return;
+    /**
+     * The _method form field. Multipart bodies are only parsed once a handler asks
+     * for its files, so for those the override is read from the query string.
+     */
+    private String methodOverride(HttpServletRequest request) {
+        if (!MultipartHelper.isMultipart(request)) return request.getParameter("_method");
+
+        String query = request.getQueryString();
+        if (query == null) return null;
+        for (String pair : query.split("&")) {
+            if (pair.startsWith("_method=")) return pair.substring("_method=".length());
         }
-
-        java.util.regex.Pattern groupPattern =
-                java.util.regex.Pattern.compile("\\(\\?<([a-zA-Z0-9_]+)>");
-
-        java.util.regex.Matcher gm = groupPattern.matcher(matched.pattern.pattern());
-
-        while (gm.find()) {
-            String name = gm.group(1);
-            String value = matcher.group(name);
-            if (value != null) {
-                request.setAttribute(name, value); 
-            }
-        }
-
-        invokeMethod(controller, method, request, response);
+        return null;
     }
 
-    private void invokeMethod(Object controller, Method method,
-                          HttpServletRequest request, HttpServletResponse response)
+    private void invokeMethod(RouteEntry entry, String[] pathValues,
+                              HttpServletRequest request, HttpServletResponse response, RequestTrace trace)
         throws ServletException, IOException {
+        ConcurrencyLimiter limiter = entry.getLimiter();
+        if (limiter != null) {
+            if (!admit(limiter, entry, response)) return;
+            if (trace != null) trace.phase(RouteMetrics.QUEUE);
+        }
+        long admitted = limiter != null ? System.nanoTime() : 0;
+        boolean handedOff = false;
         try {
-            Object[] args = buildMethodArguments(method, request, response);
-            Object result = method.invoke(controller, args);
-
-            if (method.isAnnotationPresent(RESTapi.class)) {
-                handleRESTResponse(result, response);
+            if (entry.getEventStream() != null) {
+                openEventStream(entry, pathValues, request, response, trace);
+                return;
+            }
+            if (entry.getCache() != null) {
+                entry.getCache().serve(request, response, pathValues, entry.getPathVariables().length, compression,
+                        (req, res) -> invokeAndRender(entry, pathValues, req, res, trace));
                 return;
             }
 
-            if (result instanceof ModelView) {
-                ModelView mv = (ModelView) result;
-                for (Map.Entry<String, Object> entry : mv.getData().entrySet()) {
-                    request.setAttribute(entry.getKey(), entry.getValue());
+            if (entry.isAsync()) {
+                Object[] args = entry.getPlan().bind(request, response, pathValues);
+                if (trace != null) trace.phase(RouteMetrics.BINDING);
+                if (request.isAsyncSupported()) {
+                    invokeAsync(entry, args, request, response, trace, limiter, admitted);
+                    handedOff = true;
+                    return;
                 }
-                String view = mv.getView();
-                if (!view.startsWith("/views/")) view = "/views/" + view;
-                request.getRequestDispatcher(view).forward(request, response);
-            } else if (result instanceof String) {
-                try (PrintWriter out = response.getWriter()) {
-                    out.println((String) result);
+                Object result = awaitResult(entry, args);
+                if (trace != null) trace.phase(RouteMetrics.INVOCATION);
+                HttpServletResponse out = compression.wrap(request, response);
+                try {
+                    render(entry, result, request, out, null);
+                    finish(out);
+                } finally {
+                    release(out);
                 }
+                if (trace != null) trace.phase(RouteMetrics.RENDERING);
+                return;
+            }
+
+            HttpServletResponse out = compression.wrap(request, response);
+            try {
+                invokeAndRender(entry, pathValues, request, out, trace);
+                finish(out);
+            } finally {
+                release(out);
             }
-        } catch (Exception e) {
+        } catch (HttpStatusException e) {
+            response.sendError(e.getStatus(), e.getMessage());
+        } catch (Throwable e) {
             throw new ServletException("Failed to invoke controller method", e);
+        } finally {
+            if (limiter != null && !handedOff) limiter.release(System.nanoTime() - admitted);
         }
     }
 
-    private Object[] buildMethodArguments(Method method,
-                                          HttpServletRequest request,
-                                          HttpServletResponse response) {
-
-        Class<?>[] paramTypes = method.getParameterTypes();
-        java.lang.annotation.Annotation[][] paramAnnotations = method.getParameterAnnotations();
+    /**
+     * Starts a Server-Sent Events stream and lets the handler subscribe its sink.
+     * The request is recorded when the stream closes.
+     */
+    private void openEventStream(RouteEntry entry, String[] pathValues, HttpServletRequest request,
+                                 HttpServletResponse response, RequestTrace trace) throws Throwable {
+        if (!request.isAsyncSupported()) {
+            response.sendError(HttpServletResponse.SC_NOT_IMPLEMENTED, "Event streams need async support");
+            return;
+        }
+        RouteMetrics metrics = trace != null ? trace.metrics : null;
+        long start = trace != null ? trace.start : 0;
 
-        Object[] args = new Object[paramTypes.length];
+        EventSink sink = EventSink.open(request, response, entry.getEventStream());
+        sink.onClose(() -> {
+            if (metrics != null) RequestTrace.finished(metrics, HttpServletResponse.SC_OK, start, request, response);
+        });
+        try {
+            request.setAttribute(EventSink.ATTRIBUTE, sink);
+            Object[] args = entry.getPlan().bind(request, response, pathValues);
+            if (trace != null) trace.phase(RouteMetrics.BINDING);
+            entry.getInvoker().invoke(args);
+            if (trace != null) trace.phase(RouteMetrics.INVOCATION);
+            sink.start();
+        } catch (Throwable e) {
+            Log.error("Event stream handler failed", e);
+            sink.close();
+        }
+    }
 
-        for (int i = 0; i < paramTypes.length; i++) {
-        if (paramTypes[i] == HttpServletRequest.class) { args[i] = request; continue; }
-        if (paramTypes[i] == HttpServletResponse.class) { args[i] = response; continue; }
+    /** Takes a permit of the route's concurrency limit, or answers 503 with Retry-After. */
+    private boolean admit(ConcurrencyLimiter limiter, RouteEntry entry, HttpServletResponse response)
+            throws IOException {
+        try {
+            if (limiter.acquire(entry.getMetrics())) return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        response.setHeader("Retry-After", Integer.toString(limiter.getRetryAfter()));
+        response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Too many concurrent requests");
+        return false;
+    }
 
-        if (Map.class.isAssignableFrom(paramTypes[i])
-                && request.getAttribute("__files__") != null) {
+    private void invokeAndRender(RouteEntry entry, String[] pathValues, HttpServletRequest request,
+                                 HttpServletResponse response, RequestTrace trace) throws Throwable {
+        Object[] args = entry.getPlan().bind(request, response, pathValues);
+        if (trace != null) trace.phase(RouteMetrics.BINDING);
+        Object result = entry.getInvoker().invoke(args);
+        if (trace != null) trace.phase(RouteMetrics.INVOCATION);
+        render(entry, result, request, response, null);
+        if (trace != null) trace.phase(RouteMetrics.RENDERING);
+    }
 
-            args[i] = request.getAttribute("__files__");
-            continue;
-        }
+    /**
+     * Releases the container thread: @Async handlers run on the handler executor,
+     * CompletionStage results are rendered whenever they complete. The permit of
+     * the concurrency limit is held until then.
+     */
+    private void invokeAsync(RouteEntry entry, Object[] args, HttpServletRequest request,
+                             HttpServletResponse response, RequestTrace trace,
+                             ConcurrencyLimiter limiter, long admitted) {
+        RouteMetrics metrics = trace != null ? trace.metrics : null;
+        long start = trace != null ? trace.start : 0;
+        long invoked = trace != null ? trace.mark : 0;
+
+        AsyncContext async = request.startAsync(request, response);
+        async.setTimeout(asyncTimeoutMs);
+        AtomicBoolean finished = new AtomicBoolean();
+
+        async.addListener(new AsyncListener() {
+            @Override
+            public void onTimeout(AsyncEvent event) throws IOException {
+                if (finished.compareAndSet(false, true)) {
+                    fail(response, new HttpStatusException(503, "Handler timed out"));
+                    if (metrics != null) RequestTrace.finished(metrics, 503, start, request, response);
+                    if (limiter != null) limiter.release(System.nanoTime() - admitted);
+                    async.complete();
+                }
+            }
 
-        if (Map.class.isAssignableFrom(paramTypes[i])) {
-            args[i] = buildMapFromRequest(request);
-            continue;
-        }
+            @Override
+            public void onError(AsyncEvent event) {
+                if (!finished.compareAndSet(false, true)) return;
+                if (metrics != null) {
+                    RequestTrace.finished(metrics, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, start,
+                            request, response);
+                }
+                if (limiter != null) limiter.release(System.nanoTime() - admitted);
+            }
 
+            @Override
+            public void onComplete(AsyncEvent event) {
+            }
 
-        request.getParameterMap().forEach((k, v) -> 
-        System.out.println("Param: " + k + " = " + String.join(",", v))
-    );
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
 
-        args[i] = buildArgumentForType(paramTypes[i], request);
+        resultOf(entry, args).whenComplete((result, error) -> {
+            if (!finished.compareAndSet(false, true)) return;
+            boolean dispatched = false;
+            long completed = System.nanoTime();
+            HttpServletResponse out = null;
+            try {
+                if (error != null) {
+                    fail(response, error);
+                } else {
+                    out = compression.wrap(request, response);
+                    dispatched = render(entry, result, request, out, async);
+                    if (!dispatched) finish(out);
+                }
+            } catch (Throwable e) {
+                fail(response, e);
+            } finally {
+                if (!dispatched && out != null) release(out);
+                if (metrics != null) {
+                    long now = System.nanoTime();
+                    metrics.phase(RouteMetrics.INVOCATION, completed - invoked);
+                    metrics.phase(RouteMetrics.RENDERING, now - completed);
+                    RequestTrace.finished(metrics, response.getStatus(), start, request, response);
+                }
+                if (limiter != null) limiter.release(System.nanoTime() - admitted);
+                if (!dispatched) async.complete();
+            }
+        });
     }
 
-        return args;
+    /** Ends the compressed stream when the response was wrapped for compression. */
+    private static void finish(HttpServletResponse response) throws IOException {
+        if (response instanceof CompressingResponse) ((CompressingResponse) response).finish();
     }
 
-    private Object convertType(String value, Class<?> type) {
-        if (value == null) return null;
+    /** Returns the Deflater of a compressed response that was not finished, e.g. because rendering threw. */
+    private static void release(HttpServletResponse response) {
+        if (response instanceof CompressingResponse) ((CompressingResponse) response).release();
+    }
 
+    private CompletableFuture<Object> resultOf(RouteEntry entry, Object[] args) {
+        if (entry.isOffloaded()) {
+            return CompletableFuture.supplyAsync(() -> invoke(entry, args), handlerExecutor)
+                    .thenCompose(FrontController::flatten);
+        }
         try {
-            if (type == int.class || type == Integer.class) return Integer.parseInt(value);
-            if (type == double.class || type == Double.class) return Double.parseDouble(value);
-            if (type == float.class  || type == Float.class)  return Float.parseFloat(value);
-            if (type == boolean.class || type == Boolean.class) return Boolean.parseBoolean(value);
-
-        } catch (Exception e) {
-            return null;
+            return flatten(invoke(entry, args));
+        } catch (Throwable e) {
+            CompletableFuture<Object> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
         }
-
-        return value; 
     }
 
-    private void handleFileRequest(HttpServletRequest request, HttpServletResponse response, String path)
-            throws IOException, ServletException {
-        if (path.startsWith("/")) path = path.substring(1);
-        if (path.isEmpty()) path = "index.html";
-
-        if (!path.endsWith(".html") && !path.endsWith(".jsp")) {
-            if (fileExists(request, "/views/" + path + ".html")) path += ".html";
-            else if (fileExists(request, "/views/" + path + ".jsp")) path += ".jsp";
+    private Object awaitResult(RouteEntry entry, Object[] args) throws Throwable {
+        try {
+            return flatten(invoke(entry, args)).get(asyncTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        } catch (TimeoutException e) {
+            throw new HttpStatusException(503, "Handler timed out");
         }
+    }
 
-        String fullPath = "/views/" + path;
-
-        if (fileExists(request, fullPath)) {
-            if (path.endsWith(".jsp"))
-                request.getRequestDispatcher(fullPath).forward(request, response);
-            else
-                serveHtml(request, response, fullPath);
-        } else {
-            try (PrintWriter out = response.getWriter()) {
-                out.println("<h2>Requested resource not found for URL: " + path + "</h2>");
-            }
+    private static Object invoke(RouteEntry entry, Object[] args) {
+        try {
+            return entry.getInvoker().invoke(args);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new CompletionException(e);
         }
     }
 
-    private boolean fileExists(HttpServletRequest request, String relativePath) {
-        String realPath = getServletContext().getRealPath(relativePath);
-        return realPath != null && new File(realPath).exists();
+    @SuppressWarnings("unchecked")
+    private static CompletableFuture<Object> flatten(Object result) {
+        if (result instanceof CompletionStage) {
+            return ((CompletionStage<Object>) result).toCompletableFuture();
+        }
+        return CompletableFuture.completedFuture(result);
     }
 
-    private void serveHtml(HttpServletRequest request, HttpServletResponse response, String relativePath)
-            throws IOException {
-        File file = new File(getServletContext().getRealPath(relativePath));
-        try (BufferedReader reader = new BufferedReader(new FileReader(file));
-             PrintWriter out = response.getWriter()) {
-            String line;
-            while ((line = reader.readLine()) != null) out.println(line);
+    private void fail(HttpServletResponse response, Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+            error = error.getCause();
+        }
+        try {
+            if (response.isCommitted()) return;
+            if (error instanceof HttpStatusException) {
+                response.sendError(((HttpStatusException) error).getStatus(), error.getMessage());
+            } else {
+                Log.error("Handler failed", error);
+                response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Failed to invoke controller method");
+            }
+        } catch (IOException | IllegalStateException ignored) {
+            // client went away
         }
     }
 
-    private Map<String, Object> buildMapFromRequest(HttpServletRequest request) {
-
-        Map<String, Object> data = new java.util.HashMap<>();
-
-        Map<String, String[]> parameterMap = request.getParameterMap();
-
-        for (Map.Entry<String, String[]> entry : parameterMap.entrySet()) {
-
-            String key = entry.getKey();
-            String[] values = entry.getValue();
-
-            if (values == null) continue;
+    /**
+     * Writes the handler result. Returns true when the request was dispatched to a
+     * view through the async context, which then completes it.
+     */
+    private boolean render(RouteEntry entry, Object result, HttpServletRequest request,
+                           HttpServletResponse response, AsyncContext async)
+            throws ServletException, IOException {
+        if (entry.isRest()) {
+            handleRESTResponse(result, request, response);
+            return false;
+        }
 
-            if (values.length == 1) {
-                data.put(key, values[0]);
+        if (result instanceof ModelView) {
+            ModelView mv = (ModelView) result;
+            String view = views.resolve(mv.getView());
+            if (view == null) {
+                notFound(response, mv.getView());
+                return false;
             }
-            else {
-                data.put(key, values);
+            if (templates.handles(view)) {
+                templates.render(view, mv.getData(), response);
+                return false;
+            }
+            for (Map.Entry<String, Object> item : mv.getData().entrySet()) {
+                request.setAttribute(item.getKey(), item.getValue());
+            }
+            if (async != null) {
+                async.dispatch(view);
+                return true;
+            }
+            request.getRequestDispatcher(view).forward(request, response);
+        } else if (result instanceof String) {
+            try (PrintWriter out = response.getWriter()) {
+                out.println((String) result);
             }
         }
-
-        return data;
+        return false;
     }
-        private Object buildArgumentForType(Class<?> type, HttpServletRequest request) {
-        try {
-            Object obj = type.getDeclaredConstructor().newInstance();
 
-            // Loop through all fields
-            for (java.lang.reflect.Field field : type.getDeclaredFields()) {
-                field.setAccessible(true);
-                String paramName = field.getName();
-                String paramValue = request.getParameter(paramName);
+    private void writeMetrics(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String accept = request.getHeader("Accept");
+        boolean json = "json".equals(request.getParameter("format"))
+                || (accept != null && accept.contains("application/json"));
+        response.setHeader("Cache-Control", "no-store");
+        if (json) {
+            response.setContentType("application/json;charset=UTF-8");
+            Metrics.writeJson(ControllerScanner.getRoutes(), response.getWriter());
+        } else {
+            response.setContentType("text/plain;version=0.0.4;charset=UTF-8");
+            Metrics.writePrometheus(ControllerScanner.getRoutes(), response.getWriter());
+        }
+    }
 
-                if (paramValue != null) {
-                    Object value = convertType(paramValue, field.getType());
-                    field.set(obj, value);
-                }
-            }
+    private void handleFileRequest(HttpServletRequest request, HttpServletResponse response, String path)
+            throws IOException, ServletException {
+        if (path.contains("..")) {
+            notFound(response, path);
+            return;
+        }
+        if (staticResources.isStaticPath(path)) {
+            if (!staticResources.serve(request, response, path)) notFound(response, path);
+            return;
+        }
 
-            return obj;
+        String name = path.startsWith("/") ? path.substring(1) : path;
+        if (name.isEmpty()) name = "index";
+        String view = views.resolve(name);
+        if (view == null) {
+            notFound(response, name);
+            return;
+        }
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            return null;
+        if (view.endsWith(".jsp")) {
+            request.getRequestDispatcher(view).forward(request, response);
+        } else if (templates.handles(view)) {
+            templates.render(view, Collections.emptyMap(), response);
+        } else if (!staticResources.serve(request, response, view)) {
+            notFound(response, name);
         }
     }
-     private void handleRESTResponse(Object result, HttpServletResponse response) throws IOException {
-        response.setContentType("application/json;charset=UTF-8");
 
-        Map<String, Object> jsonResponse = new java.util.HashMap<>();
-        jsonResponse.put("status", "success");
-        jsonResponse.put("code", 200);
-        jsonResponse.put("message", "OK");
-        jsonResponse.put("data", result);
+    private void notFound(HttpServletResponse response, String path) throws IOException {
+        response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+        try (PrintWriter out = response.getWriter()) {
+            out.println("<h2>Requested resource not found for URL: " + path + "</h2>");
+        }
+    }
 
-        PrintWriter out = response.getWriter();
-        out.println(JsonConverter.toJson(jsonResponse));
+    private void handleRESTResponse(Object result, HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        response.addHeader("Vary", "Accept");
+        if (ResultStreamer.isStreamed(result)) {
+            streamer.write(result, request, response);
+            return;
+        }
+        if (MessagePack.isAccepted(request.getHeader("Accept"))) {
+            response.setContentType(MessagePack.MEDIA_TYPE);
+            MessagePack.writeEnvelope(result, response.getOutputStream());
+            return;
+        }
+        response.setContentType("application/json;charset=UTF-8");
+        JsonConverter.writeEnvelope(result, response.getWriter());
     }
 
 }
@@ -0,0 +1,26 @@
+package com.example.web;
+
+/**
+ * Ends the request with the given status instead of a 500, e.g. a malformed
+ * body (400) or an oversized one (413).
+ */
+public class HttpStatusException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int status;
+
+    public HttpStatusException(int status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public HttpStatusException(int status, String message, Throwable cause) {
+        super(message, cause);
+        this.status = status;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.web;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-bucket latency histogram. Buckets are striped LongAdders, so recording
+ * neither allocates nor contends across cores; counts are cumulated on export.
+ */
+public class LatencyHistogram {
+
+    /** Upper bounds in nanoseconds, from 50µs to 10s; the last bucket is +Inf. */
+    static final long[] BOUNDS = {
+            50_000L, 100_000L, 250_000L, 500_000L,
+            1_000_000L, 2_500_000L, 5_000_000L, 10_000_000L, 25_000_000L, 50_000_000L,
+            100_000_000L, 250_000_000L, 500_000_000L,
+            1_000_000_000L, 2_500_000_000L, 5_000_000_000L, 10_000_000_000L
+    };
+
+    private final LongAdder[] buckets = new LongAdder[BOUNDS.length + 1];
+    private final LongAdder sumNanos = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) buckets[i] = new LongAdder();
+    }
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        int i = 0;
+        while (i < BOUNDS.length && nanos > BOUNDS[i]) i++;
+        buckets[i].increment();
+        sumNanos.add(nanos);
+    }
+
+    /** Cumulative counts per bound, the last element being the total count. */
+    public long[] cumulativeCounts() {
+        long[] counts = new long[buckets.length];
+        long total = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            total += buckets[i].sum();
+            counts[i] = total;
+        }
+        return counts;
+    }
+
+    public long getSumNanos() {
+        return sumNanos.sum();
+    }
+}
@@ -0,0 +1,327 @@
+package com.example.web;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Access and diagnostic log. Request threads copy an entry into a preallocated
+ * ring buffer with one CAS and never block or do I/O: when the ring is full the
+ * entry is dropped and counted. A daemon thread drains the ring in batches to
+ * "log.file" (rolled at "log.maxFileSize", keeping "log.maxFiles"), by default
+ * $catalina.base/logs/framework.log, or stderr outside Tomcat.
+ * <p>
+ * Access entries are written for one request in "log.accessSample" (every
+ * request by default); server errors are always written.
+ */
+public final class Log {
+
+    public static final String FILE = "log.file";
+    public static final String LEVEL = "log.level";
+    public static final String BUFFER_SIZE = "log.bufferSize";
+    public static final String MAX_FILE_SIZE = "log.maxFileSize";
+    public static final String MAX_FILES = "log.maxFiles";
+    public static final String ACCESS = "log.access";
+    public static final String ACCESS_SAMPLE = "log.accessSample";
+
+    public enum Level { DEBUG, INFO, WARN, ERROR, ACCESS }
+
+    private static final int BATCH = 256;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private static final LongAdder dropped = new LongAdder();
+    private static volatile Ring ring = new Ring(8192);
+    private static volatile int threshold = Level.INFO.ordinal();
+    private static volatile boolean accessEnabled = true;
+    private static volatile int accessSample = 1;
+    private static Drainer drainer;
+
+    private Log() {
+    }
+
+    /** Applies the settings and starts the drain thread; a running one is stopped first. */
+    public static synchronized void configure(FrameworkConfig config) {
+        threshold = parseLevel(config.get(LEVEL, "INFO")).ordinal();
+        accessEnabled = config.getBoolean(ACCESS, true);
+        accessSample = Math.max(1, config.getInt(ACCESS_SAMPLE, 1));
+
+        RollingLogFile sink;
+        String path = config.get(FILE, defaultFile());
+        try {
+            sink = path == null ? RollingLogFile.stderr()
+                    : RollingLogFile.open(new File(path), config.getLong(MAX_FILE_SIZE, 10L * 1024 * 1024),
+                            config.getInt(MAX_FILES, 5));
+        } catch (IOException e) {
+            System.err.println("Cannot open log file " + path + ", logging to stderr: " + e);
+            sink = RollingLogFile.stderr();
+        }
+
+        Ring previous = ring;
+        int size = Ring.capacity(config.getInt(BUFFER_SIZE, previous.slots.length));
+        if (size != previous.slots.length) ring = new Ring(size);
+
+        shutdown();
+        drainer = new Drainer(sink, ring != previous ? previous : null);
+        drainer.start();
+    }
+
+    private static String defaultFile() {
+        String base = System.getProperty("catalina.base");
+        return base == null ? null : base + File.separator + "logs" + File.separator + "framework.log";
+    }
+
+    private static Level parseLevel(String value) {
+        try {
+            return Level.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return Level.INFO;
+        }
+    }
+
+    /** Writes what is left in the ring and stops the drain thread. */
+    public static synchronized void shutdown() {
+        if (drainer == null) return;
+        drainer.running = false;
+        LockSupport.unpark(drainer);
+        try {
+            drainer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        drainer = null;
+    }
+
+    public static boolean isEnabled(Level level) {
+        return level.ordinal() >= threshold;
+    }
+
+    public static boolean isAccessEnabled() {
+        return accessEnabled;
+    }
+
+    public static void debug(String message) {
+        log(Level.DEBUG, message, null);
+    }
+
+    public static void info(String message) {
+        log(Level.INFO, message, null);
+    }
+
+    public static void warn(String message) {
+        log(Level.WARN, message, null);
+    }
+
+    public static void warn(String message, Throwable error) {
+        log(Level.WARN, message, error);
+    }
+
+    public static void error(String message, Throwable error) {
+        log(Level.ERROR, message, error);
+    }
+
+    public static void log(Level level, String message, Throwable error) {
+        if (!isEnabled(level)) return;
+        Slot slot = ring.claim();
+        if (slot == null) return;
+        slot.level = level;
+        slot.message = message;
+        slot.error = error;
+        ring.publish(slot);
+    }
+
+    /** One request: route template rather than path, so no request data reaches the log. */
+    public static void access(String httpMethod, String route, int status, long nanos, long bytesIn, long bytesOut) {
+        if (!accessEnabled) return;
+        int sample = accessSample;
+        if (sample > 1 && status < 500 && ThreadLocalRandom.current().nextInt(sample) != 0) return;
+        Slot slot = ring.claim();
+        if (slot == null) return;
+        slot.level = Level.ACCESS;
+        slot.method = httpMethod;
+        slot.route = route;
+        slot.status = status;
+        slot.nanos = nanos;
+        slot.bytesIn = bytesIn;
+        slot.bytesOut = bytesOut;
+        ring.publish(slot);
+    }
+
+    /** Entries lost because the ring was full. */
+    public static long getDropped() {
+        return dropped.sum();
+    }
+
+    private static final class Slot {
+        volatile long sequence;
+        long time;
+        Level level;
+        String message;
+        Throwable error;
+        String method;
+        String route;
+        int status;
+        long nanos;
+        long bytesIn;
+        long bytesOut;
+
+        void clear() {
+            message = null;
+            error = null;
+            method = null;
+            route = null;
+        }
+    }
+
+    /**
+     * Bounded multi-producer, single-consumer queue over reused slots. A slot's
+     * sequence tells whose turn it is: equal to the claim position it is free,
+     * one past it the entry is published.
+     */
+    private static final class Ring {
+        final Slot[] slots;
+        final int mask;
+        final AtomicLong tail = new AtomicLong();
+        long head;
+
+        Ring(int requested) {
+            int size = capacity(requested);
+            slots = new Slot[size];
+            mask = size - 1;
+            for (int i = 0; i < size; i++) {
+                slots[i] = new Slot();
+                slots[i].sequence = i;
+            }
+        }
+
+        /** The requested size rounded up to a power of two, at least 64. */
+        static int capacity(int requested) {
+            return Integer.highestOneBit(Math.max(64, Math.min(requested, 1 << 24) - 1) << 1);
+        }
+
+        Slot claim() {
+            while (true) {
+                long position = tail.get();
+                Slot slot = slots[(int) position & mask];
+                long difference = slot.sequence - position;
+                if (difference == 0) {
+                    if (tail.compareAndSet(position, position + 1)) {
+                        slot.time = System.currentTimeMillis();
+                        return slot;
+                    }
+                } else if (difference < 0) {
+                    dropped.increment();
+                    return null;
+                }
+            }
+        }
+
+        void publish(Slot slot) {
+            slot.sequence = slot.sequence + 1;
+        }
+
+        /** The next published entry, or null; the caller releases it. */
+        Slot poll() {
+            Slot slot = slots[(int) head & mask];
+            return slot.sequence == head + 1 ? slot : null;
+        }
+
+        void release(Slot slot) {
+            slot.clear();
+            slot.sequence = head + slots.length;
+            head++;
+        }
+    }
+
+    private static final class Drainer extends Thread {
+        private final RollingLogFile sink;
+        private final StringBuilder line = new StringBuilder(256);
+        private Ring previous;
+        volatile boolean running = true;
+
+        Drainer(RollingLogFile sink, Ring previous) {
+            super("framework-log");
+            setDaemon(true);
+            this.sink = sink;
+            this.previous = previous;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    boolean stopping = !running;
+                    if (previous != null) {
+                        if (drain(previous) == 0) previous = null;
+                        continue;
+                    }
+                    int written = drain(ring);
+                    if (written == 0) {
+                        if (stopping) break;
+                        LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                    }
+                }
+            } finally {
+                try {
+                    sink.close();
+                } catch (IOException ignored) {
+                    // nowhere left to report it
+                }
+            }
+        }
+
+        private int drain(Ring source) {
+            int written = 0;
+            Slot slot;
+            while (written < BATCH && (slot = source.poll()) != null) {
+                format(slot);
+                source.release(slot);
+                written++;
+            }
+            if (written > 0) {
+                try {
+                    sink.write(line);
+                    sink.flush();
+                } catch (IOException e) {
+                    dropped.add(written);
+                }
+                line.setLength(0);
+            }
+            return written;
+        }
+
+        private void format(Slot slot) {
+            line.append(Instant.ofEpochMilli(slot.time)).append(' ').append(slot.level.name()).append(' ');
+            if (slot.level == Level.ACCESS) {
+                line.append(slot.method).append(' ').append(slot.route).append(' ').append(slot.status).append(' ');
+                line.append(slot.nanos / 1000 / 1000.0).append("ms in=");
+                bytes(slot.bytesIn);
+                line.append(" out=");
+                bytes(slot.bytesOut);
+            } else {
+                line.append(slot.message);
+            }
+            line.append('\n');
+            if (slot.error != null) {
+                StringWriter trace = new StringWriter();
+                slot.error.printStackTrace(new PrintWriter(trace));
+                line.append(trace);
+            }
+        }
+
+        private void bytes(long count) {
+            if (count < 0) {
+                line.append('-');
+            } else {
+                line.append(count);
+            }
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.web;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.example.util.JsonWriter;
+
+/**
+ * Framework-wide metrics and their exposition in the Prometheus text format or
+ * as JSON. Served by the FrontController at metrics.path (default /metrics).
+ */
+public class Metrics {
+
+    public static final String ENABLED = "metrics.enabled";
+    public static final String PATH = "metrics.path";
+
+    /** Requests that matched no controller route: static files, views and 404s. */
+    public static final RouteMetrics UNROUTED = new RouteMetrics("*", "<unrouted>");
+
+    private static final Map<String, RouteMetrics> byRoute = new ConcurrentHashMap<>();
+
+    private static final LongAdder staticBytes = new LongAdder();
+    private static final LongAdder multipartBytes = new LongAdder();
+
+    /** Metrics of a route, shared by the entries of successive route tables so reloads keep the counts. */
+    static RouteMetrics forRoute(String httpMethod, String route) {
+        return byRoute.computeIfAbsent(httpMethod + " " + route, key -> new RouteMetrics(httpMethod, route));
+    }
+
+    public static void addStaticBytes(long bytes) {
+        if (bytes > 0) staticBytes.add(bytes);
+    }
+
+    public static void addMultipartBytes(long bytes) {
+        if (bytes > 0) multipartBytes.add(bytes);
+    }
+
+    public static long getStaticBytes() {
+        return staticBytes.sum();
+    }
+
+    public static long getMultipartBytes() {
+        return multipartBytes.sum();
+    }
+
+    private static List<RouteMetrics> all(List<RouteEntry> routes) {
+        List<RouteMetrics> metrics = new ArrayList<>(routes.size() + 1);
+        for (RouteEntry entry : routes) metrics.add(entry.getMetrics());
+        metrics.add(UNROUTED);
+        return metrics;
+    }
+
+    public static void writePrometheus(List<RouteEntry> routes, Writer out) throws IOException {
+        List<RouteMetrics> metrics = all(routes);
+
+        out.write("# HELP framework_requests_total Requests handled, by route and status code.\n");
+        out.write("# TYPE framework_requests_total counter\n");
+        for (RouteMetrics m : metrics) {
+            for (int status = 0; status < 600; status++) {
+                long count = m.getCount(status);
+                if (count == 0) continue;
+                out.write("framework_requests_total{" + labels(m) + ",code=\"" + status + "\"} " + count + "\n");
+            }
+        }
+
+        out.write("# HELP framework_requests_in_flight Requests currently being handled.\n");
+        out.write("# TYPE framework_requests_in_flight gauge\n");
+        for (RouteMetrics m : metrics) {
+            out.write("framework_requests_in_flight{" + labels(m) + "} " + m.getInFlight() + "\n");
+        }
+
+        out.write("# HELP framework_requests_rejected_total Requests shed by the concurrency limit.\n");
+        out.write("# TYPE framework_requests_rejected_total counter\n");
+        for (RouteMetrics m : metrics) {
+            if (m.getRejected() > 0) {
+                out.write("framework_requests_rejected_total{" + labels(m) + "} " + m.getRejected() + "\n");
+            }
+        }
+
+        out.write("# HELP framework_concurrency_limit Current concurrency limit of the route.\n");
+        out.write("# TYPE framework_concurrency_limit gauge\n");
+        for (RouteMetrics m : metrics) {
+            if (m.getConcurrencyLimit() >= 0) {
+                out.write("framework_concurrency_limit{" + labels(m) + "} " + m.getConcurrencyLimit() + "\n");
+            }
+        }
+
+        out.write("# HELP framework_request_phase_seconds Time spent in each request phase.\n");
+        out.write("# TYPE framework_request_phase_seconds histogram\n");
+        for (RouteMetrics m : metrics) {
+            for (int phase = 0; phase < RouteMetrics.PHASES.length; phase++) {
+                LatencyHistogram histogram = m.getPhase(phase);
+                long[] counts = histogram.cumulativeCounts();
+                long total = counts[counts.length - 1];
+                if (total == 0) continue;
+
+                String labels = labels(m) + ",phase=\"" + RouteMetrics.PHASES[phase] + "\"";
+                for (int i = 0; i < LatencyHistogram.BOUNDS.length; i++) {
+                    out.write("framework_request_phase_seconds_bucket{" + labels + ",le=\""
+                            + seconds(LatencyHistogram.BOUNDS[i]) + "\"} " + counts[i] + "\n");
+                }
+                out.write("framework_request_phase_seconds_bucket{" + labels + ",le=\"+Inf\"} " + total + "\n");
+                out.write("framework_request_phase_seconds_sum{" + labels + "} "
+                        + seconds(histogram.getSumNanos()) + "\n");
+                out.write("framework_request_phase_seconds_count{" + labels + "} " + total + "\n");
+            }
+        }
+
+        out.write("# HELP framework_static_bytes_total Bytes of static files sent.\n");
+        out.write("# TYPE framework_static_bytes_total counter\n");
+        out.write("framework_static_bytes_total " + getStaticBytes() + "\n");
+        out.write("# HELP framework_multipart_bytes_total Bytes of multipart request bodies received.\n");
+        out.write("# TYPE framework_multipart_bytes_total counter\n");
+        out.write("framework_multipart_bytes_total " + getMultipartBytes() + "\n");
+        out.write("# HELP framework_log_dropped_total Log entries dropped because the log buffer was full.\n");
+        out.write("# TYPE framework_log_dropped_total counter\n");
+        out.write("framework_log_dropped_total " + Log.getDropped() + "\n");
+        out.flush();
+    }
+
+    public static void writeJson(List<RouteEntry> routes, Writer writer) throws IOException {
+        JsonWriter out = new JsonWriter(writer);
+        out.writeRaw('{');
+        out.writeName("routes");
+        out.writeRaw('[');
+        boolean firstRoute = true;
+        for (RouteMetrics m : all(routes)) {
+            if (!firstRoute) out.writeRaw(',');
+            firstRoute = false;
+
+            out.writeRaw('{');
+            out.writeName("method");
+            out.writeString(m.getHttpMethod());
+            out.writeRaw(',');
+            out.writeName("route");
+            out.writeString(m.getRoute());
+            out.writeRaw(',');
+            out.writeName("inFlight");
+            out.writeRaw(Long.toString(m.getInFlight()));
+            out.writeRaw(',');
+            out.writeName("rejected");
+            out.writeRaw(Long.toString(m.getRejected()));
+            out.writeRaw(',');
+            if (m.getConcurrencyLimit() >= 0) {
+                out.writeName("concurrencyLimit");
+                out.writeRaw(Integer.toString(m.getConcurrencyLimit()));
+                out.writeRaw(',');
+            }
+            out.writeName("status");
+            out.writeRaw('{');
+            boolean firstStatus = true;
+            for (int status = 0; status < 600; status++) {
+                long count = m.getCount(status);
+                if (count == 0) continue;
+                if (!firstStatus) out.writeRaw(',');
+                firstStatus = false;
+                out.writeName(Integer.toString(status));
+                out.writeRaw(Long.toString(count));
+            }
+            out.writeRaw('}');
+
+            out.writeRaw(',');
+            out.writeName("phases");
+            out.writeRaw('{');
+            for (int phase = 0; phase < RouteMetrics.PHASES.length; phase++) {
+                if (phase > 0) out.writeRaw(',');
+                LatencyHistogram histogram = m.getPhase(phase);
+                long[] counts = histogram.cumulativeCounts();
+
+                out.writeName(RouteMetrics.PHASES[phase]);
+                out.writeRaw('{');
+                out.writeName("count");
+                out.writeRaw(Long.toString(counts[counts.length - 1]));
+                out.writeRaw(',');
+                out.writeName("sumSeconds");
+                out.writeRaw(seconds(histogram.getSumNanos()));
+                out.writeRaw(',');
+                out.writeName("buckets");
+                out.writeRaw('{');
+                for (int i = 0; i < LatencyHistogram.BOUNDS.length; i++) {
+                    out.writeName(seconds(LatencyHistogram.BOUNDS[i]));
+                    out.writeRaw(Long.toString(counts[i]));
+                    out.writeRaw(',');
+                }
+                out.writeName("+Inf");
+                out.writeRaw(Long.toString(counts[counts.length - 1]));
+                out.writeRaw("}}");
+            }
+            out.writeRaw("}}");
+        }
+        out.writeRaw(']');
+        out.writeRaw(',');
+        out.writeName("staticBytes");
+        out.writeRaw(Long.toString(getStaticBytes()));
+        out.writeRaw(',');
+        out.writeName("multipartBytes");
+        out.writeRaw(Long.toString(getMultipartBytes()));
+        out.writeRaw(',');
+        out.writeName("logDropped");
+        out.writeRaw(Long.toString(Log.getDropped()));
+        out.writeRaw('}');
+        out.flush();
+    }
+
+    private static String labels(RouteMetrics m) {
+        return "method=\"" + escape(m.getHttpMethod()) + "\",route=\"" + escape(m.getRoute()) + "\"";
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.6f", nanos / 1e9).replaceAll("0+$", "").replaceAll("\\.$", ".0");
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.web;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+
+/**
+ * Child-first loader for the controller package: classes under it are defined
+ * again from the class directories, so a fresh loader sees recompiled
+ * controllers. Everything else, annotations and framework classes included,
+ * comes from the parent so the loaded controllers stay compatible with it.
+ */
+final class ReloadingClassLoader extends URLClassLoader {
+
+    static {
+        registerAsParallelCapable();
+    }
+
+    private final String prefix;
+
+    ReloadingClassLoader(URL[] classRoots, ClassLoader parent, String basePackage) {
+        super(classRoots, parent);
+        this.prefix = basePackage + ".";
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        if (!name.startsWith(prefix)) return super.loadClass(name, resolve);
+
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> loaded = findLoadedClass(name);
+            if (loaded == null) {
+                try {
+                    loaded = findClass(name);
+                } catch (ClassNotFoundException e) {
+                    loaded = super.loadClass(name, false);
+                }
+            }
+            if (resolve) resolveClass(loaded);
+            return loaded;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.web;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Phase timestamps of the request being handled on the current thread. One
+ * instance per thread is reused, so tracing a request does not allocate.
+ */
+final class RequestTrace {
+
+    private static final ThreadLocal<RequestTrace> CURRENT = ThreadLocal.withInitial(RequestTrace::new);
+
+    long start;
+    long mark;
+    RouteMetrics metrics;
+
+    static RequestTrace begin() {
+        RequestTrace trace = CURRENT.get();
+        trace.start = System.nanoTime();
+        trace.mark = trace.start;
+        trace.metrics = null;
+        return trace;
+    }
+
+    static RequestTrace current() {
+        return CURRENT.get();
+    }
+
+    /** Records the routing phase against the matched route. */
+    void routed(RouteMetrics routeMetrics) {
+        metrics = routeMetrics;
+        metrics.started();
+        phase(RouteMetrics.ROUTING);
+    }
+
+    /** Records the time elapsed since the previous phase. */
+    void phase(int phase) {
+        long now = System.nanoTime();
+        if (metrics != null) metrics.phase(phase, now - mark);
+        mark = now;
+    }
+
+    void finish(int status, HttpServletRequest request, HttpServletResponse response) {
+        if (metrics != null) finished(metrics, status, start, request, response);
+        metrics = null;
+    }
+
+    /** Records a finished request in the route metrics and the access log. */
+    static void finished(RouteMetrics metrics, int status, long start,
+                         HttpServletRequest request, HttpServletResponse response) {
+        long nanos = System.nanoTime() - start;
+        metrics.finished(status, nanos);
+        if (Log.isAccessEnabled()) {
+            String httpMethod = metrics == Metrics.UNROUTED ? request.getMethod() : metrics.getHttpMethod();
+            Log.access(httpMethod, metrics.getRoute(), status, nanos,
+                    request.getContentLengthLong(), contentLength(response));
+        }
+    }
+
+    private static long contentLength(HttpServletResponse response) {
+        if (response instanceof CountingResponse) return ((CountingResponse) response).getBytesWritten();
+        String header = response.getHeader("Content-Length");
+        if (header == null) return -1;
+        try {
+            return Long.parseLong(header);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.web;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.example.annotation.Cacheable;
+import com.example.util.MessagePack;
+
+/**
+ * Stores fully rendered responses of one @Cacheable route. Concurrent misses on
+ * the same key wait for a single handler run; entries expire after the TTL and
+ * the least recently used ones are evicted beyond maxEntries.
+ */
+public class ResponseCache {
+
+    @FunctionalInterface
+    interface Renderer {
+        void render(HttpServletRequest request, HttpServletResponse response) throws Throwable;
+    }
+
+    static class CachedResponse {
+        final int status;
+        final String contentType;
+        final List<String[]> headers;
+        final byte[] body;
+        final long expiresAt;
+        final boolean compressible;
+        volatile long lastAccess;
+        volatile byte[] gzipBody;
+
+        CachedResponse(int status, String contentType, List<String[]> headers, byte[] body, long expiresAt,
+                       boolean compressible) {
+            this.status = status;
+            this.contentType = contentType;
+            this.headers = headers;
+            this.body = body;
+            this.expiresAt = expiresAt;
+            this.compressible = compressible;
+            this.lastAccess = System.nanoTime();
+        }
+    }
+
+    private static final Map<String, ResponseCache> CACHES = new ConcurrentHashMap<>();
+    private static final long LEADER_WAIT_MS = 30_000;
+
+    private final String route;
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final String[] params;
+    private final ConcurrentHashMap<String, CachedResponse> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CompletableFuture<CachedResponse>> loading = new ConcurrentHashMap<>();
+
+    ResponseCache(String route, Cacheable cacheable) {
+        this.route = route;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(cacheable.ttl());
+        this.maxEntries = Math.max(1, cacheable.maxEntries());
+        this.params = cacheable.params();
+        CACHES.put(route, this);
+    }
+
+    /** Drops every cached response of the route template, e.g. "/products/{id}". */
+    public static void invalidate(String route) {
+        ResponseCache cache = CACHES.get(route);
+        if (cache != null) cache.entries.clear();
+    }
+
+    /** Drops the cached responses of the route for the given path variable values. */
+    public static void invalidate(String route, String... pathValues) {
+        ResponseCache cache = CACHES.get(route);
+        if (cache == null) return;
+        String prefix = cache.keyPrefix(pathValues);
+        cache.entries.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    public static void invalidateAll() {
+        for (ResponseCache cache : CACHES.values()) cache.entries.clear();
+    }
+
+    static void clearRegistry() {
+        CACHES.clear();
+    }
+
+    /**
+     * Replays the cached response for the request, or renders and stores it. The
+     * gzipped form of a compressible body is built on first demand and kept with it.
+     */
+    void serve(HttpServletRequest request, HttpServletResponse response, String[] pathValues, int pathCount,
+               Compression compression, Renderer renderer) throws Throwable {
+        String key = key(request, pathValues, pathCount);
+        long now = System.nanoTime();
+
+        CachedResponse cached = entries.get(key);
+        if (cached != null && now - cached.expiresAt < 0) {
+            cached.lastAccess = now;
+            replay(cached, request, response, compression);
+            return;
+        }
+
+        CompletableFuture<CachedResponse> mine = new CompletableFuture<>();
+        CompletableFuture<CachedResponse> leader = loading.putIfAbsent(key, mine);
+        if (leader != null) {
+            CachedResponse loaded = await(leader);
+            if (loaded != null) {
+                replay(loaded, request, response, compression);
+            } else {
+                renderer.render(request, response);
+            }
+            return;
+        }
+
+        CachedResponse loaded = null;
+        try {
+            CapturingResponse capture = new CapturingResponse(response);
+            renderer.render(request, capture);
+            loaded = store(key, capture, compression);
+            if (loaded == null) {
+                replay(capture, response);
+                return;
+            }
+        } finally {
+            loading.remove(key, mine);
+            mine.complete(loaded);
+        }
+        replay(loaded, request, response, compression);
+    }
+
+    private CachedResponse await(CompletableFuture<CachedResponse> leader) throws ServletException {
+        try {
+            return leader.get(LEADER_WAIT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServletException(e);
+        } catch (ExecutionException | TimeoutException e) {
+            return null;
+        }
+    }
+
+    private CachedResponse store(String key, CapturingResponse capture, Compression compression) {
+        if (capture.isError() || capture.getStatus() != HttpServletResponse.SC_OK) return null;
+        // cookies are per client; replaying one to every hit would hand out someone else's state
+        if (capture.setsCookies()) return null;
+
+        long now = System.nanoTime();
+        byte[] body = capture.toByteArray();
+        boolean compressible = compression.isCompressible(capture.getContentType())
+                && body.length >= compression.getMinSize() && !capture.containsHeader("Content-Encoding");
+        CachedResponse cached = new CachedResponse(capture.getStatus(), capture.getContentType(),
+                capture.getHeaders(), body, now + ttlNanos, compressible);
+        entries.put(key, cached);
+        if (entries.size() > maxEntries) evict(now);
+        return cached;
+    }
+
+    /** Removes expired entries, then the least recently used ones until under the bound. */
+    private void evict(long now) {
+        entries.values().removeIf(e -> now - e.expiresAt >= 0);
+        while (entries.size() > maxEntries) {
+            String oldestKey = null;
+            long oldest = Long.MAX_VALUE;
+            for (Iterator<Map.Entry<String, CachedResponse>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<String, CachedResponse> e = it.next();
+                if (oldestKey == null || e.getValue().lastAccess - oldest < 0) {
+                    oldest = e.getValue().lastAccess;
+                    oldestKey = e.getKey();
+                }
+            }
+            if (oldestKey == null) return;
+            entries.remove(oldestKey);
+        }
+    }
+
+    private String keyPrefix(String[] pathValues) {
+        StringBuilder key = new StringBuilder();
+        for (String value : pathValues) key.append(value).append('\u0000');
+        return key.toString();
+    }
+
+    private String key(HttpServletRequest request, String[] pathValues, int pathCount) {
+        StringBuilder key = new StringBuilder(32);
+        for (int i = 0; i < pathCount; i++) key.append(pathValues[i]).append('\u0000');
+        key.append('?');
+        for (String param : params) {
+            String[] values = request.getParameterValues(param);
+            if (values != null) {
+                for (String value : values) key.append(value).append('\u0001');
+            }
+            key.append('\u0000');
+        }
+        // the representations negotiated from Accept are cached apart
+        if (MessagePack.isAccepted(request.getHeader("Accept"))) key.append("msgpack");
+        if (ResultStreamer.wantsNdjson(request)) key.append("ndjson");
+        return key.toString();
+    }
+
+    private static void replay(CachedResponse cached, HttpServletRequest request, HttpServletResponse response,
+                               Compression compression) throws IOException {
+        response.setStatus(cached.status);
+        if (cached.contentType != null) response.setContentType(cached.contentType);
+        for (String[] header : cached.headers) response.addHeader(header[0], header[1]);
+
+        byte[] body = cached.body;
+        if (cached.compressible) {
+            Compression.addVary(response);
+            if ("gzip".equals(compression.negotiate(request))) {
+                byte[] gzipBody = cached.gzipBody;
+                if (gzipBody == null) cached.gzipBody = gzipBody = compression.gzip(cached.body);
+                response.setHeader("Content-Encoding", "gzip");
+                body = gzipBody;
+            }
+        }
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    /** Passes an uncacheable result (error, redirect, non-200) through unchanged. */
+    private static void replay(CapturingResponse capture, HttpServletResponse response) throws IOException {
+        for (String[] header : capture.getHeaders()) response.addHeader(header[0], header[1]);
+        if (capture.isError()) {
+            response.sendError(capture.getStatus(), capture.getErrorMessage());
+            return;
+        }
+        response.setStatus(capture.getStatus());
+        if (capture.getContentType() != null) response.setContentType(capture.getContentType());
+        byte[] body = capture.toByteArray();
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    String getRoute() {
+        return route;
+    }
+}
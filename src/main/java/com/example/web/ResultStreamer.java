@@ -0,0 +1,159 @@
+package com.example.web;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.BaseStream;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.example.util.JsonConverter;
+import com.example.util.JsonException;
+import com.example.util.JsonWriter;
+import com.example.util.RowSink;
+
+/**
+ * Writes REST results that are produced incrementally - a Stream, an Iterator
+ * or a {@link RowSink.Source} - element by element, as a JSON array inside the
+ * standard envelope or, when the client accepts application/x-ndjson, as one
+ * JSON document per line. The response is flushed after the first row and then
+ * every "rest.streamFlushRows" rows or "rest.streamFlushMs", so memory stays
+ * constant. Streams and closeable iterators are closed when done; a client
+ * disconnect ends the result early.
+ */
+public class ResultStreamer {
+
+    public static final String FLUSH_ROWS = "rest.streamFlushRows";
+    public static final String FLUSH_MS = "rest.streamFlushMs";
+
+    static final String NDJSON = "application/x-ndjson";
+
+    private final int flushRows;
+    private final long flushNanos;
+
+    public ResultStreamer(FrameworkConfig config) {
+        this.flushRows = Math.max(1, config.getInt(FLUSH_ROWS, 500));
+        this.flushNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, config.getLong(FLUSH_MS, 200)));
+    }
+
+    public static boolean isStreamed(Object result) {
+        return result instanceof BaseStream || result instanceof Iterator || result instanceof RowSink.Source;
+    }
+
+    static boolean wantsNdjson(HttpServletRequest request) {
+        String accept = request.getHeader("Accept");
+        return accept != null && (accept.contains(NDJSON) || accept.contains("application/ndjson"));
+    }
+
+    @SuppressWarnings("unchecked")
+    public void write(Object result, HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        boolean ndjson = wantsNdjson(request);
+        response.setContentType(ndjson ? NDJSON + ";charset=UTF-8" : "application/json;charset=UTF-8");
+        Sink sink = new Sink(response, ndjson);
+        try {
+            sink.begin();
+            if (result instanceof RowSink.Source) {
+                ((RowSink.Source<Object>) result).produce(sink);
+            } else {
+                Iterator<?> rows = result instanceof BaseStream
+                        ? ((BaseStream<?, ?>) result).iterator() : (Iterator<?>) result;
+                while (rows.hasNext()) sink.write(rows.next());
+            }
+            sink.end();
+        } catch (Exception e) {
+            if (sink.disconnected) {
+                Log.debug("Client disconnected after " + sink.rows + " streamed rows");
+                return;
+            }
+            if (e instanceof IOException) throw (IOException) e;
+            if (e instanceof RuntimeException) throw (RuntimeException) e;
+            throw new ServletException("Streamed result failed after " + sink.rows + " rows", e);
+        } finally {
+            close(result);
+        }
+    }
+
+    private static void close(Object result) {
+        if (!(result instanceof AutoCloseable)) return;
+        try {
+            ((AutoCloseable) result).close();
+        } catch (Exception e) {
+            Log.warn("Cannot close streamed result", e);
+        }
+    }
+
+    private final class Sink implements RowSink<Object> {
+        private final HttpServletResponse response;
+        private final boolean ndjson;
+        private Writer writer;
+        private JsonWriter json;
+        private long rows;
+        private long flushedRows;
+        private long flushedAt;
+        boolean disconnected;
+
+        Sink(HttpServletResponse response, boolean ndjson) {
+            this.response = response;
+            this.ndjson = ndjson;
+        }
+
+        void begin() throws IOException {
+            writer = new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8);
+            json = new JsonWriter(writer);
+            flushedAt = System.nanoTime();
+            if (ndjson) return;
+            try {
+                JsonConverter.beginEnvelope(json);
+                json.writeRaw('[');
+            } catch (IOException e) {
+                throw failed(e);
+            }
+        }
+
+        @Override
+        public void write(Object row) throws IOException {
+            if (disconnected) throw new IOException("Client disconnected");
+            try {
+                if (!ndjson && rows > 0) json.writeRaw(',');
+                json.writeValue(row);
+                if (ndjson) json.writeRaw('\n');
+                rows++;
+
+                if (rows == 1 || rows - flushedRows >= flushRows
+                        || System.nanoTime() - flushedAt >= flushNanos) {
+                    flush();
+                }
+            } catch (IOException e) {
+                throw failed(e);
+            }
+        }
+
+        void end() throws IOException {
+            try {
+                if (!ndjson) json.writeRaw("]}");
+                writer.flush();
+            } catch (IOException e) {
+                throw failed(e);
+            }
+        }
+
+        private void flush() throws IOException {
+            writer.flush();
+            response.flushBuffer();
+            flushedRows = rows;
+            flushedAt = System.nanoTime();
+        }
+
+        /** An I/O failure other than a serialization error means the client is gone. */
+        private IOException failed(IOException e) {
+            if (!(e instanceof JsonException)) disconnected = true;
+            return e;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.web;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Append-only log file that rolls over by size: framework.log becomes
+ * framework.log.1, the previous .1 becomes .2 and so on up to maxFiles. Without
+ * a file it writes to stderr and never rolls. Used from the log drain thread only.
+ */
+final class RollingLogFile {
+
+    private final File file;
+    private final long maxSize;
+    private final int maxFiles;
+    private OutputStream out;
+    private long size;
+
+    private RollingLogFile(File file, long maxSize, int maxFiles) throws IOException {
+        this.file = file;
+        this.maxSize = maxSize;
+        this.maxFiles = maxFiles;
+        open();
+    }
+
+    static RollingLogFile open(File file, long maxSize, int maxFiles) throws IOException {
+        return new RollingLogFile(file, Math.max(1024, maxSize), Math.max(1, maxFiles));
+    }
+
+    static RollingLogFile stderr() {
+        try {
+            return new RollingLogFile(null, Long.MAX_VALUE, 1);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void open() throws IOException {
+        if (file == null) {
+            out = System.err;
+            return;
+        }
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (dir != null && !dir.exists()) dir.mkdirs();
+        out = new FileOutputStream(file, true);
+        size = file.length();
+    }
+
+    void write(CharSequence text) throws IOException {
+        byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        out.write(bytes);
+        size += bytes.length;
+        if (size >= maxSize) roll();
+    }
+
+    void flush() throws IOException {
+        out.flush();
+    }
+
+    private void roll() throws IOException {
+        out.close();
+        new File(file.getPath() + "." + maxFiles).delete();
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            File older = new File(file.getPath() + "." + i);
+            if (older.exists()) older.renameTo(new File(file.getPath() + "." + (i + 1)));
+        }
+        file.renameTo(new File(file.getPath() + ".1"));
+        open();
+    }
+
+    void close() throws IOException {
+        if (file == null) {
+            out.flush();
+        } else {
+            out.close();
+        }
+    }
+}
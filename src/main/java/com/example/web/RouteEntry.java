@@ -1,26 +1,74 @@
 package com.example.web;
 
 import java.lang.reflect.Method;
-import java.util.regex.Pattern;
+
+import java.util.concurrent.CompletionStage;
+
+import com.example.annotation.Async;
+import com.example.annotation.Cacheable;
+import com.example.annotation.EventStream;
+import com.example.annotation.RESTapi;
 
 public class RouteEntry {
-    private String httpMethod;   
-    private String route; 
-    private Pattern pattern;
-    private Method method;
-    private Object instance;
+    private final String httpMethod;
+    private final String route;
+    private final Method method;
+    private final Object instance;
+    private final String[] pathVariables;
+    private final RouteInvoker invoker;
+    private final BindingPlan plan;
+    private final boolean rest;
+    private final boolean async;
+    private final boolean offloaded;
+    private final ResponseCache cache;
+    private final RouteMetrics metrics;
+    private final ConcurrencyLimiter limiter;
+    private final EventStream eventStream;
 
-    public RouteEntry(String httpMethod, String route, Pattern pattern, Method method, Object instance) {
+    public RouteEntry(String httpMethod, String route, Method method, Object instance,
+                      String[] pathVariables, RouteInvoker invoker, BindingPlan plan) {
         this.httpMethod = httpMethod;
         this.route = route;
-        this.pattern = pattern;
         this.method = method;
         this.instance = instance;
+        this.pathVariables = pathVariables;
+        this.invoker = invoker;
+        this.plan = plan;
+        this.rest = method.isAnnotationPresent(RESTapi.class);
+        this.eventStream = method.getAnnotation(EventStream.class);
+        this.offloaded = method.isAnnotationPresent(Async.class);
+        this.async = offloaded || CompletionStage.class.isAssignableFrom(method.getReturnType());
+        Cacheable cacheable = method.getAnnotation(Cacheable.class);
+        this.metrics = Metrics.forRoute(httpMethod, route);
+        // a stream would hold its permit, and report its lifetime as latency, until the client leaves
+        this.limiter = eventStream == null ? ConcurrencyLimiter.of(method) : null;
+        metrics.setLimiter(limiter);
+        this.cache = cacheable != null && !async && eventStream == null && "GET".equals(httpMethod) ? new ResponseCache(route, cacheable) : null;
     }
 
     public String getHttpMethod() { return httpMethod; }
     public String getRoute() { return route; }
-    public Pattern getPattern() { return pattern; }
     public Method getMethod() { return method; }
     public Object getInstance() { return instance; }
+    public String[] getPathVariables() { return pathVariables; }
+    public RouteInvoker getInvoker() { return invoker; }
+    public BindingPlan getPlan() { return plan; }
+    public boolean isRest() { return rest; }
+
+    /** Returns a CompletionStage or is annotated @Async, so it completes off the request thread. */
+    public boolean isAsync() { return async; }
+
+    /** Annotated @Async: invoked on the handler executor rather than the container thread. */
+    public boolean isOffloaded() { return offloaded; }
+
+    /** Response cache of a synchronous @Cacheable GET route, otherwise null. */
+    public ResponseCache getCache() { return cache; }
+
+    public RouteMetrics getMetrics() { return metrics; }
+
+    /** Server-Sent Events settings of an @EventStream handler, otherwise null. */
+    public EventStream getEventStream() { return eventStream; }
+
+    /** Admission control from @ConcurrencyLimit on the method or its controller; null for event streams. */
+    public ConcurrencyLimiter getLimiter() { return limiter; }
 }
@@ -0,0 +1,29 @@
+package com.example.web;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+@FunctionalInterface
+public interface RouteInvoker {
+
+    Object invoke(Object[] args) throws Throwable;
+
+    /**
+     * Binds the handler to its controller once and adapts it to (Object[])Object,
+     * so a request costs one invokeExact instead of a reflective Method.invoke.
+     */
+    static RouteInvoker bind(Method method, Object instance) throws IllegalAccessException {
+        method.setAccessible(true);
+        MethodHandle handle = MethodHandles.lookup().unreflect(method);
+        if (!Modifier.isStatic(method.getModifiers())) {
+            handle = handle.bindTo(instance);
+        }
+        MethodHandle spreader = handle
+                .asSpreader(Object[].class, method.getParameterCount())
+                .asType(MethodType.methodType(Object.class, Object[].class));
+        return args -> (Object) spreader.invokeExact(args);
+    }
+}
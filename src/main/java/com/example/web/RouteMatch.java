@@ -0,0 +1,28 @@
+package com.example.web;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.TreeSet;
+
+public class RouteMatch {
+    RouteEntry entry;
+    final String[] values;
+    Set<String> allowedMethods;
+
+    RouteMatch(int maxPathVariables) {
+        this.values = new String[maxPathVariables];
+    }
+
+    /** The handler for the requested HTTP method, or null when only other methods matched (405). */
+    public RouteEntry getEntry() { return entry; }
+
+    /** Path variable values, by position in the matched route template. */
+    public String[] getPathValues() { return values; }
+
+    public Set<String> getAllowedMethods() { return allowedMethods; }
+
+    void addAllowed(Collection<String> methods) {
+        if (allowedMethods == null) allowedMethods = new TreeSet<>();
+        allowedMethods.addAll(methods);
+    }
+}
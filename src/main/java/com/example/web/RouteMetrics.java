@@ -0,0 +1,94 @@
+package com.example.web;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of one route: requests by status code, requests in flight, requests
+ * shed by its concurrency limit and the latency of each request phase.
+ */
+public class RouteMetrics {
+
+    public static final int ROUTING = 0;
+    public static final int BINDING = 1;
+    public static final int INVOCATION = 2;
+    public static final int RENDERING = 3;
+    public static final int TOTAL = 4;
+    public static final int QUEUE = 5;
+
+    static final String[] PHASES = {"routing", "binding", "invocation", "rendering", "total", "queue"};
+
+    private final String httpMethod;
+    private final String route;
+    private final LongAdder inFlight = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private volatile ConcurrencyLimiter limiter;
+    private final AtomicReferenceArray<LongAdder> statuses = new AtomicReferenceArray<>(600);
+    private final LatencyHistogram[] phases = new LatencyHistogram[PHASES.length];
+
+    public RouteMetrics(String httpMethod, String route) {
+        this.httpMethod = httpMethod;
+        this.route = route;
+        for (int i = 0; i < phases.length; i++) phases[i] = new LatencyHistogram();
+    }
+
+    public String getHttpMethod() { return httpMethod; }
+    public String getRoute() { return route; }
+
+    void started() {
+        inFlight.increment();
+    }
+
+    void phase(int phase, long nanos) {
+        phases[phase].record(nanos);
+    }
+
+    void finished(int status, long totalNanos) {
+        inFlight.decrement();
+        phases[TOTAL].record(totalNanos);
+        status(status).increment();
+    }
+
+    void rejected() {
+        rejected.increment();
+    }
+
+    void setLimiter(ConcurrencyLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    private LongAdder status(int status) {
+        int index = status < 0 || status >= statuses.length() ? 0 : status;
+        LongAdder counter = statuses.get(index);
+        if (counter == null) {
+            statuses.compareAndSet(index, null, new LongAdder());
+            counter = statuses.get(index);
+        }
+        return counter;
+    }
+
+    public long getInFlight() {
+        return inFlight.sum();
+    }
+
+    /** Requests answered 503 by the concurrency limit. */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /** Current concurrency limit, or -1 when the route has none. */
+    public int getConcurrencyLimit() {
+        ConcurrencyLimiter current = limiter;
+        return current == null ? -1 : current.getLimit();
+    }
+
+    /** Request count of the status code; index 0 collects out-of-range codes. */
+    public long getCount(int status) {
+        LongAdder counter = statuses.get(status);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    public LatencyHistogram getPhase(int phase) {
+        return phases[phase];
+    }
+}
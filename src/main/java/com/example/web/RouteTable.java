@@ -0,0 +1,45 @@
+package com.example.web;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable snapshot of the registered routes. A new table is built off to the
+ * side and published whole by {@link ControllerScanner}, so request threads
+ * read it without locks and requests already running keep the table, handler
+ * instances and class loader they started with.
+ */
+public final class RouteTable {
+
+    private final RouteTrie router;
+    private final List<RouteEntry> routes;
+    private final ClassLoader loader;
+    private final long generation;
+
+    /** A table over the given routes, outside the scanner, e.g. for benchmarks. */
+    public static RouteTable of(List<RouteEntry> routes) {
+        return new RouteTable(routes, RouteTable.class.getClassLoader(), 0);
+    }
+
+    RouteTable(List<RouteEntry> routes, ClassLoader loader, long generation) {
+        RouteTrie trie = new RouteTrie();
+        for (RouteEntry entry : routes) trie.add(entry);
+        this.router = trie;
+        this.routes = Collections.unmodifiableList(new ArrayList<>(routes));
+        this.loader = loader;
+        this.generation = generation;
+    }
+
+    public RouteMatch match(String path, String httpMethod) {
+        return router.match(path, httpMethod);
+    }
+
+    public List<RouteEntry> getRoutes() { return routes; }
+
+    /** Loader the controllers of this table were defined by. */
+    public ClassLoader getLoader() { return loader; }
+
+    /** 1 for the table built at startup, incremented by every reload; 0 for tables built with {@link #of}. */
+    public long getGeneration() { return generation; }
+}
@@ -0,0 +1,142 @@
+package com.example.web;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Segment trie over route templates. Static segments are tried before {param}
+ * segments at every level, so "/users/new" wins over "/users/{id}", and
+ * constrained variables such as {id:\d+} before unconstrained ones. Constraints
+ * are checked while walking, so a path that violates them simply does not match.
+ */
+public class RouteTrie {
+
+    private static class Node {
+        Map<String, Node> staticChildren;
+        ParamChild[] paramChildren;
+        Map<String, RouteEntry> handlers;
+    }
+
+    private static class ParamChild {
+        final String constraintSource;
+        final SegmentConstraint constraint;
+        final Node node = new Node();
+
+        ParamChild(String constraintSource) {
+            this.constraintSource = constraintSource;
+            this.constraint = constraintSource == null ? null : SegmentConstraint.of(constraintSource);
+        }
+    }
+
+    private final Node root = new Node();
+    private int maxPathVariables;
+
+    void add(RouteEntry entry) {
+        Node node = root;
+        for (String segment : segments(entry.getRoute())) {
+            if (isVariable(segment)) {
+                node = paramChild(node, constraint(segment));
+            } else {
+                if (node.staticChildren == null) node.staticChildren = new HashMap<>();
+                node = node.staticChildren.computeIfAbsent(segment, k -> new Node());
+            }
+        }
+
+        if (node.handlers == null) node.handlers = new LinkedHashMap<>();
+        node.handlers.put(entry.getHttpMethod(), entry);
+        maxPathVariables = Math.max(maxPathVariables, entry.getPathVariables().length);
+    }
+
+    /** The child for the constraint, created in order: constrained children first, the unconstrained one last. */
+    private static Node paramChild(Node node, String constraintSource) {
+        ParamChild[] children = node.paramChildren == null ? new ParamChild[0] : node.paramChildren;
+        for (ParamChild child : children) {
+            if (Objects.equals(child.constraintSource, constraintSource)) return child.node;
+        }
+
+        ParamChild created = new ParamChild(constraintSource);
+        List<ParamChild> ordered = new ArrayList<>(Arrays.asList(children));
+        int position = ordered.size();
+        if (constraintSource != null) {
+            while (position > 0 && ordered.get(position - 1).constraintSource == null) position--;
+        }
+        ordered.add(position, created);
+        node.paramChildren = ordered.toArray(new ParamChild[0]);
+        return created.node;
+    }
+
+    /** Names of the {param} segments of a template, in path order. */
+    public static String[] pathVariables(String template) {
+        List<String> variables = new ArrayList<>();
+        for (String segment : segments(template)) {
+            if (!isVariable(segment)) continue;
+            int colon = segment.indexOf(':');
+            variables.add(segment.substring(1, colon < 0 ? segment.length() - 1 : colon));
+        }
+        return variables.toArray(new String[0]);
+    }
+
+    /** The text after ':' in {name:constraint}, or null. */
+    private static String constraint(String segment) {
+        int colon = segment.indexOf(':');
+        return colon < 0 ? null : segment.substring(colon + 1, segment.length() - 1);
+    }
+
+    /**
+     * Returns null when no template matches the path, a match without entry when
+     * the path exists but not for this HTTP method, or the matched handler.
+     */
+    public RouteMatch match(String path, String httpMethod) {
+        RouteMatch match = new RouteMatch(maxPathVariables);
+        int start = path.startsWith("/") ? 1 : 0;
+        if (find(root, path, start, 0, httpMethod, match)) return match;
+        return match.allowedMethods == null ? null : match;
+    }
+
+    private boolean find(Node node, String path, int start, int variableIndex,
+                         String httpMethod, RouteMatch match) {
+        if (start > path.length()) {
+            if (node.handlers == null) return false;
+            RouteEntry entry = node.handlers.get(httpMethod);
+            if (entry != null) {
+                match.entry = entry;
+                return true;
+            }
+            match.addAllowed(node.handlers.keySet());
+            return false;
+        }
+
+        int end = path.indexOf('/', start);
+        if (end < 0) end = path.length();
+
+        if (node.staticChildren != null) {
+            Node child = node.staticChildren.get(path.substring(start, end));
+            if (child != null && find(child, path, end + 1, variableIndex, httpMethod, match)) return true;
+        }
+
+        if (node.paramChildren != null && end > start) {
+            String value = null;
+            for (ParamChild child : node.paramChildren) {
+                if (child.constraint != null && !child.constraint.test(path, start, end)) continue;
+                if (value == null) value = path.substring(start, end);
+                match.values[variableIndex] = value;
+                if (find(child.node, path, end + 1, variableIndex + 1, httpMethod, match)) return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isVariable(String segment) {
+        return segment.length() > 2 && segment.charAt(0) == '{' && segment.charAt(segment.length() - 1) == '}';
+    }
+
+    private static String[] segments(String template) {
+        String trimmed = template.startsWith("/") ? template.substring(1) : template;
+        return trimmed.split("/", -1);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.web;
+
+import java.util.regex.Pattern;
+
+/**
+ * Check applied to a path segment while matching a {name:constraint} variable.
+ * Common shapes are tested char by char without allocating; anything else is
+ * compiled once into a Pattern at registration.
+ */
+@FunctionalInterface
+interface SegmentConstraint {
+
+    /** Whether path[start, end) is an acceptable value. */
+    boolean test(String path, int start, int end);
+
+    static SegmentConstraint of(String source) {
+        switch (source) {
+            case "\\d+":
+            case "[0-9]+":
+            case "digits":
+                return (path, start, end) -> allMatch(path, start, end, CharKind.DIGIT);
+            case "int":
+                return (path, start, end) -> isInteger(path, start, end, 10);
+            case "long":
+                return (path, start, end) -> isInteger(path, start, end, 19);
+            case "[a-zA-Z]+":
+            case "alpha":
+                return (path, start, end) -> allMatch(path, start, end, CharKind.ALPHA);
+            case "[a-zA-Z0-9]+":
+            case "alnum":
+                return (path, start, end) -> allMatch(path, start, end, CharKind.ALNUM);
+            case "\\w+":
+                return (path, start, end) -> allMatch(path, start, end, CharKind.WORD);
+            case "[a-z0-9-]+":
+            case "slug":
+                return (path, start, end) -> allMatch(path, start, end, CharKind.SLUG);
+            case "uuid":
+                return SegmentConstraint::isUuid;
+            default:
+                Pattern pattern = Pattern.compile(source);
+                return (path, start, end) -> pattern.matcher(path).region(start, end).matches();
+        }
+    }
+
+    enum CharKind {
+        DIGIT, ALPHA, ALNUM, WORD, SLUG;
+
+        boolean accepts(char c) {
+            boolean digit = c >= '0' && c <= '9';
+            boolean lower = c >= 'a' && c <= 'z';
+            boolean upper = c >= 'A' && c <= 'Z';
+            switch (this) {
+                case DIGIT: return digit;
+                case ALPHA: return lower || upper;
+                case ALNUM: return digit || lower || upper;
+                case WORD: return digit || lower || upper || c == '_';
+                default: return digit || lower || c == '-';
+            }
+        }
+    }
+
+    static boolean allMatch(String path, int start, int end, CharKind kind) {
+        if (start >= end) return false;
+        for (int i = start; i < end; i++) {
+            if (!kind.accepts(path.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    /** Optional minus and at most maxDigits digits, range-checked for 10 (int) and 19 (long) digits. */
+    static boolean isInteger(String path, int start, int end, int maxDigits) {
+        boolean negative = start < end && path.charAt(start) == '-';
+        int from = negative ? start + 1 : start;
+        int digits = end - from;
+        if (digits < 1 || digits > maxDigits || !allMatch(path, from, end, CharKind.DIGIT)) return false;
+        if (digits < maxDigits) return true;
+        String limit = maxDigits == 10 ? (negative ? "2147483648" : "2147483647")
+                : (negative ? "9223372036854775808" : "9223372036854775807");
+        for (int i = 0; i < digits; i++) {
+            char c = path.charAt(from + i);
+            if (c != limit.charAt(i)) return c < limit.charAt(i);
+        }
+        return true;
+    }
+
+    static boolean isUuid(String path, int start, int end) {
+        if (end - start != 36) return false;
+        for (int i = 0; i < 36; i++) {
+            char c = path.charAt(start + i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') return false;
+            } else if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,382 @@
+package com.example.web;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Serves files from the web application with validators, conditional GET,
+ * single byte ranges and pre-gzipped ".gz" siblings. Small files are kept in a
+ * byte-bounded LRU cache; larger ones are sent with Tomcat's sendfile when the
+ * connector supports it, otherwise copied through a FileChannel.
+ */
+public class StaticResourceHandler {
+
+    public static final String STATIC_ROOT = "static.root";
+    public static final String CACHE_MAX_BYTES = "static.cacheMaxBytes";
+    public static final String CACHE_MAX_FILE_SIZE = "static.cacheMaxFileSize";
+
+    private static final long SENDFILE_THRESHOLD = 48 * 1024;
+
+    private static final Map<String, String> MIME_TYPES = new HashMap<>();
+
+    static {
+        MIME_TYPES.put("html", "text/html");
+        MIME_TYPES.put("htm", "text/html");
+        MIME_TYPES.put("css", "text/css");
+        MIME_TYPES.put("js", "text/javascript");
+        MIME_TYPES.put("mjs", "text/javascript");
+        MIME_TYPES.put("json", "application/json");
+        MIME_TYPES.put("map", "application/json");
+        MIME_TYPES.put("txt", "text/plain");
+        MIME_TYPES.put("xml", "application/xml");
+        MIME_TYPES.put("svg", "image/svg+xml");
+        MIME_TYPES.put("png", "image/png");
+        MIME_TYPES.put("jpg", "image/jpeg");
+        MIME_TYPES.put("jpeg", "image/jpeg");
+        MIME_TYPES.put("gif", "image/gif");
+        MIME_TYPES.put("webp", "image/webp");
+        MIME_TYPES.put("ico", "image/x-icon");
+        MIME_TYPES.put("pdf", "application/pdf");
+        MIME_TYPES.put("woff", "font/woff");
+        MIME_TYPES.put("woff2", "font/woff2");
+        MIME_TYPES.put("wasm", "application/wasm");
+    }
+
+    static class CachedFile {
+        final byte[] body;
+        final long lastModified;
+        final long size;
+        byte[] gzipBody;
+
+        CachedFile(byte[] body, long lastModified) {
+            this.body = body;
+            this.lastModified = lastModified;
+            this.size = body.length;
+        }
+
+        long footprint() {
+            return size + (gzipBody == null ? 0 : gzipBody.length);
+        }
+    }
+
+    private final ServletContext context;
+    private final Compression compression;
+    private final String staticRoot;
+    private final long cacheMaxBytes;
+    private final long cacheMaxFileSize;
+    private final LinkedHashMap<String, CachedFile> cache = new LinkedHashMap<>(64, 0.75f, true);
+    private long cachedBytes;
+
+    public StaticResourceHandler(ServletContext context, FrameworkConfig config) {
+        this(context, config, new Compression(config));
+    }
+
+    public StaticResourceHandler(ServletContext context, FrameworkConfig config, Compression compression) {
+        this.context = context;
+        this.compression = compression;
+        String root = config.get(STATIC_ROOT, "/static");
+        this.staticRoot = root.endsWith("/") ? root.substring(0, root.length() - 1) : root;
+        this.cacheMaxBytes = config.getLong(CACHE_MAX_BYTES, 16L * 1024 * 1024);
+        this.cacheMaxFileSize = config.getLong(CACHE_MAX_FILE_SIZE, 64L * 1024);
+    }
+
+    /** True when the path lies under the configured static root, e.g. "/static/app.css". */
+    public boolean isStaticPath(String path) {
+        return path.startsWith(staticRoot + "/");
+    }
+
+    /**
+     * Serves the resource at the given context-relative path. Returns false,
+     * without touching the response, when there is no such file.
+     */
+    public boolean serve(HttpServletRequest request, HttpServletResponse response, String resourcePath)
+            throws IOException {
+        String realPath = context.getRealPath(resourcePath);
+        if (realPath == null) return false;
+
+        Path file = Paths.get(realPath);
+        BasicFileAttributes attributes = attributesOrNull(file);
+        if (attributes == null || !attributes.isRegularFile()) return false;
+
+        long size = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis() / 1000 * 1000;
+        String contentType = contentType(resourcePath);
+        boolean compressible = compression.isCompressible(contentType);
+        boolean head = "HEAD".equals(request.getMethod());
+
+        boolean acceptsGzip = acceptsGzip(request);
+        Path gzip = Paths.get(realPath + ".gz");
+        BasicFileAttributes gzipAttributes = acceptsGzip ? attributesOrNull(gzip) : null;
+        boolean precompressed = gzipAttributes != null && gzipAttributes.isRegularFile();
+        boolean compressOnTheFly = !precompressed && acceptsGzip && compressible && size >= compression.getMinSize()
+                && "gzip".equals(compression.negotiate(request)) && request.getHeader("Range") == null;
+
+        String etag = "\"" + Long.toHexString(size) + "-" + Long.toHexString(lastModified)
+                + (precompressed || compressOnTheFly ? "-gzip\"" : "\"");
+
+        response.setContentType(contentType);
+        response.setHeader("ETag", etag);
+        response.setDateHeader("Last-Modified", lastModified);
+        response.setHeader("Accept-Ranges", "bytes");
+        if (precompressed || compressible) Compression.addVary(response);
+
+        if (notModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return true;
+        }
+
+        if (precompressed) {
+            long gzipSize = gzipAttributes.size();
+            response.setHeader("Content-Encoding", "gzip");
+            response.setContentLengthLong(gzipSize);
+            if (!head) {
+                send(request, response, gzip, realPath + ".gz", 0, gzipSize, gzipSize,
+                        gzipAttributes.lastModifiedTime().toMillis());
+                Metrics.addStaticBytes(gzipSize);
+            }
+            return true;
+        }
+
+        if (compressOnTheFly) {
+            sendCompressed(request, response, file, realPath, size, attributes.lastModifiedTime().toMillis(), head);
+            return true;
+        }
+
+        long start = 0;
+        long end = size - 1;
+        String range = request.getHeader("Range");
+        if (range != null && ifRangeMatches(request, etag, lastModified)) {
+            long[] bounds = parseRange(range, size);
+            if (bounds == null) {
+                response.setHeader("Content-Range", "bytes */" + size);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return true;
+            }
+            if (bounds.length == 2) {
+                start = bounds[0];
+                end = bounds[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader("Content-Range", "bytes " + start + "-" + end + "/" + size);
+            }
+        }
+
+        long length = end - start + 1;
+        response.setContentLengthLong(length);
+        if (!head && length > 0) {
+            send(request, response, file, realPath, start, length, size, attributes.lastModifiedTime().toMillis());
+            Metrics.addStaticBytes(length);
+        }
+        return true;
+    }
+
+    private static BasicFileAttributes attributesOrNull(Path file) throws IOException {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private void send(HttpServletRequest request, HttpServletResponse response, Path file, String key,
+                      long start, long length, long size, long lastModified) throws IOException {
+        if (size <= cacheMaxFileSize) {
+            CachedFile cached = cached(file, key, lastModified);
+            if (cached != null && cached.size == size) {
+                response.getOutputStream().write(cached.body, (int) start, (int) length);
+                return;
+            }
+        }
+
+        if (length >= SENDFILE_THRESHOLD && Boolean.TRUE.equals(request.getAttribute("org.apache.tomcat.sendfile.support"))) {
+            request.setAttribute("org.apache.tomcat.sendfile.filename", file.toAbsolutePath().toString());
+            request.setAttribute("org.apache.tomcat.sendfile.start", start);
+            request.setAttribute("org.apache.tomcat.sendfile.end", start + length);
+            return;
+        }
+
+        OutputStream out = response.getOutputStream();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, target);
+                if (sent <= 0) break;
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    /**
+     * Gzipped body from the cache for small files, compressed once and kept next
+     * to the plain bytes; larger files are streamed through a Deflater.
+     */
+    private void sendCompressed(HttpServletRequest request, HttpServletResponse response, Path file, String key,
+                                long size, long lastModified, boolean head) throws IOException {
+        if (size <= cacheMaxFileSize) {
+            CachedFile cached = cached(file, key, lastModified);
+            if (cached != null) {
+                byte[] gzipBody = gzipBody(cached, key);
+                response.setHeader("Content-Encoding", "gzip");
+                response.setContentLength(gzipBody.length);
+                if (!head) {
+                    response.getOutputStream().write(gzipBody);
+                    Metrics.addStaticBytes(gzipBody.length);
+                }
+                return;
+            }
+        }
+
+        CompressingResponse compressing = new CompressingResponse(response, compression, "gzip");
+        try {
+            if (!head) {
+                OutputStream out = compressing.getOutputStream();
+                try (InputStream in = Files.newInputStream(file)) {
+                    byte[] buffer = new byte[8192];
+                    int n;
+                    while ((n = in.read(buffer)) > 0) out.write(buffer, 0, n);
+                }
+            }
+            compressing.finish();
+        } finally {
+            compressing.release();
+        }
+        Metrics.addStaticBytes(size);
+    }
+
+    private byte[] gzipBody(CachedFile cached, String key) {
+        synchronized (cache) {
+            if (cached.gzipBody != null) return cached.gzipBody;
+        }
+        byte[] gzipBody = compression.gzip(cached.body);
+        synchronized (cache) {
+            if (cached.gzipBody == null) {
+                cached.gzipBody = gzipBody;
+                if (cache.get(key) == cached) cachedBytes += gzipBody.length;
+            }
+            return cached.gzipBody;
+        }
+    }
+
+    private CachedFile cached(Path file, String key, long lastModified) throws IOException {
+        CachedFile cached;
+        synchronized (cache) {
+            cached = cache.get(key);
+        }
+        if (cached != null && cached.lastModified == lastModified) return cached;
+
+        byte[] body = Files.readAllBytes(file);
+        if (body.length > cacheMaxFileSize) return null;
+        cached = new CachedFile(body, lastModified);
+
+        synchronized (cache) {
+            CachedFile previous = cache.put(key, cached);
+            if (previous != null) cachedBytes -= previous.footprint();
+            cachedBytes += cached.size;
+            Iterator<CachedFile> eldest = cache.values().iterator();
+            while (cachedBytes > cacheMaxBytes && eldest.hasNext()) {
+                cachedBytes -= eldest.next().footprint();
+                eldest.remove();
+            }
+        }
+        return cached;
+    }
+
+    private static boolean notModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/")) tag = tag.substring(2);
+                if (tag.equals("*") || tag.equals(etag)) return true;
+            }
+            return false;
+        }
+        long ifModifiedSince = dateHeader(request, "If-Modified-Since");
+        return ifModifiedSince >= 0 && lastModified <= ifModifiedSince;
+    }
+
+    private static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader("If-Range");
+        if (ifRange == null) return true;
+        if (ifRange.startsWith("\"")) return ifRange.equals(etag);
+        long date = dateHeader(request, "If-Range");
+        return date >= 0 && lastModified <= date;
+    }
+
+    private static long dateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Parses a single "bytes=" range. Returns {start, end}, an empty array when the
+     * header should be ignored (multiple ranges, other units), or null when unsatisfiable.
+     */
+    static long[] parseRange(String header, long size) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) return new long[0];
+        String spec = header.substring(6).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) return new long[0];
+
+        long start;
+        long end;
+        try {
+            if (dash == 0) {
+                long suffix = Long.parseLong(spec.substring(1));
+                if (suffix <= 0) return null;
+                start = Math.max(0, size - suffix);
+                end = size - 1;
+            } else {
+                start = Long.parseLong(spec.substring(0, dash));
+                end = dash == spec.length() - 1 ? size - 1 : Math.min(size - 1, Long.parseLong(spec.substring(dash + 1)));
+            }
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+        if (start >= size || start > end) return null;
+        return new long[] {start, end};
+    }
+
+    static boolean acceptsGzip(HttpServletRequest request) {
+        String header = request.getHeader("Accept-Encoding");
+        return header != null && Compression.accepts(header, "gzip");
+    }
+
+    private String contentType(String path) {
+        String mime = context.getMimeType(path);
+        if (mime == null) {
+            int dot = path.lastIndexOf('.');
+            mime = dot < 0 ? null : MIME_TYPES.get(path.substring(dot + 1).toLowerCase(Locale.ROOT));
+        }
+        if (mime == null) return "application/octet-stream";
+        if (mime.startsWith("text/") || mime.equals("application/json") || mime.equals("application/javascript")
+                || mime.equals("image/svg+xml") || mime.equals("application/xml")) {
+            return mime + ";charset=UTF-8";
+        }
+        return mime;
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.web;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletResponse;
+
+import com.example.util.Template;
+import com.example.util.TemplateException;
+
+/**
+ * Renders ModelView results whose view ends with "templates.extension" (.tpl by
+ * default) through {@link Template}, without a JSP forward. Each template is
+ * compiled on first use and cached; with "templates.reload" on, a cached
+ * template is recompiled when its file changed, checked at most every
+ * "templates.checkIntervalMs".
+ */
+public class TemplateViews implements Template.Loader {
+
+    public static final String EXTENSION = "templates.extension";
+    public static final String RELOAD = "templates.reload";
+    public static final String CHECK_INTERVAL_MS = "templates.checkIntervalMs";
+
+    private static final class Compiled {
+        final Template template;
+        final long lastModified;
+        volatile long checkedAt;
+
+        Compiled(Template template, long lastModified) {
+            this.template = template;
+            this.lastModified = lastModified;
+            this.checkedAt = System.nanoTime();
+        }
+    }
+
+    private final ServletContext context;
+    private final String root;
+    private final String extension;
+    private final boolean reload;
+    private final long checkIntervalNanos;
+    private final Map<String, Compiled> cache = new ConcurrentHashMap<>();
+
+    public TemplateViews(ServletContext context, FrameworkConfig config) {
+        this.context = context;
+        this.root = ViewIndex.root(config);
+        this.extension = config.get(EXTENSION, ".tpl");
+        this.reload = config.getBoolean(RELOAD, false);
+        this.checkIntervalNanos = TimeUnit.MILLISECONDS.toNanos(config.getLong(CHECK_INTERVAL_MS, 1000));
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public boolean handles(String view) {
+        return view.endsWith(extension);
+    }
+
+    public void render(String view, Map<String, ?> data, HttpServletResponse response) throws IOException {
+        Template template = load(view);
+        if (template == null) throw new TemplateException("Template not found: " + view);
+        template.render(data, response.getWriter(), this);
+    }
+
+    /** The compiled template; names without a leading slash are relative to the views root. */
+    @Override
+    public Template load(String name) throws IOException {
+        String path = name.startsWith("/") ? name : root + "/" + name;
+        Compiled compiled = cache.get(path);
+        if (compiled != null && !(reload && changed(path, compiled))) return compiled.template;
+
+        compiled = compile(path);
+        if (compiled == null) {
+            cache.remove(path);
+            return null;
+        }
+        cache.put(path, compiled);
+        return compiled.template;
+    }
+
+    private boolean changed(String path, Compiled compiled) {
+        long now = System.nanoTime();
+        if (now - compiled.checkedAt < checkIntervalNanos) return false;
+        compiled.checkedAt = now;
+        return lastModified(path) != compiled.lastModified;
+    }
+
+    private Compiled compile(String path) throws IOException {
+        long lastModified = lastModified(path);
+        try (InputStream in = context.getResourceAsStream(path)) {
+            if (in == null) return null;
+            String source = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            return new Compiled(Template.compile(path, source), lastModified);
+        }
+    }
+
+    private long lastModified(String path) {
+        String realPath = context.getRealPath(path);
+        if (realPath != null) return new File(realPath).lastModified();
+        try {
+            URL url = context.getResource(path);
+            if (url == null) return 0;
+            URLConnection connection = url.openConnection();
+            connection.setUseCaches(false);
+            long modified = connection.getLastModified();
+            connection.getInputStream().close();
+            return modified;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
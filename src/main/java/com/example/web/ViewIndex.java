@@ -0,0 +1,186 @@
+package com.example.web;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.servlet.ServletContext;
+
+/**
+ * Resolves view names ("orders/list", "orders/list.html", "/views/orders/list.html")
+ * to the file under the views root, without touching the disk per request. The
+ * root is listed once at startup and again at most every "views.refreshMs" when
+ * a lookup comes in, so added or removed views are picked up without a restart.
+ * <p>
+ * A name without extension resolves to the first of the given extensions that
+ * exists, .html before .jsp before templates. Where the container cannot list
+ * the root (e.g. a packed WAR), names are probed one by one instead, and misses
+ * are remembered in a bounded negative cache so 404 floods do not become stat
+ * floods.
+ */
+public class ViewIndex {
+
+    public static final String ROOT = "views.root";
+    public static final String REFRESH_MS = "views.refreshMs";
+    public static final String NEGATIVE_CACHE_SIZE = "views.negativeCacheSize";
+
+    /** One listing of the root; views is null when the root could not be listed. */
+    private static final class Snapshot {
+        final Map<String, String> views;
+        final long builtAt;
+
+        Snapshot(Map<String, String> views) {
+            this.views = views;
+            this.builtAt = System.nanoTime();
+        }
+    }
+
+    private final ServletContext context;
+    private final String root;
+    private final String[] extensions;
+    private final long refreshNanos;
+    private final int negativeCacheSize;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private final Map<String, String> probed = new ConcurrentHashMap<>();
+    private final Set<String> misses = ConcurrentHashMap.newKeySet();
+    private volatile Snapshot snapshot;
+
+    public ViewIndex(ServletContext context, FrameworkConfig config, String... extensions) {
+        this.context = context;
+        this.root = root(config);
+        this.extensions = extensions;
+        this.refreshNanos = TimeUnit.MILLISECONDS.toNanos(config.getLong(REFRESH_MS, 5000));
+        this.negativeCacheSize = Math.max(0, config.getInt(NEGATIVE_CACHE_SIZE, 10_000));
+        this.snapshot = build();
+        Log.info(snapshot.views == null ? "Views under " + this.root + " cannot be listed; resolving them on demand."
+                : "Indexed " + snapshot.views.size() + " view names under " + this.root + ".");
+    }
+
+    /** The configured views root as a context path without trailing slash, "/views" by default. */
+    static String root(FrameworkConfig config) {
+        String root = config.get(ROOT, "/views");
+        if (!root.startsWith("/")) root = "/" + root;
+        return root.endsWith("/") ? root.substring(0, root.length() - 1) : root;
+    }
+
+    /**
+     * The context-relative path of the view, or null when there is none. Names
+     * are relative to the views root; a path already under the root, as seen on
+     * a forward, resolves to itself.
+     */
+    public String resolve(String name) {
+        Snapshot current = snapshot;
+        if (refreshNanos > 0 && System.nanoTime() - current.builtAt >= refreshNanos) current = refresh(current);
+
+        String key = name.startsWith("/") ? name.substring(1) : name;
+        String view = lookup(current, key);
+        if (view == null && key.startsWith(root.substring(1) + "/")) {
+            view = lookup(current, key.substring(root.length()));
+        }
+        return view;
+    }
+
+    private String lookup(Snapshot current, String key) {
+        if (current.views != null) return current.views.get(key);
+
+        String view = probed.get(key);
+        if (view != null || misses.contains(key)) return view;
+        view = probe(key);
+        if (view != null) {
+            probed.put(key, view);
+        } else if (negativeCacheSize > 0) {
+            if (misses.size() >= negativeCacheSize) misses.clear();
+            misses.add(key);
+        }
+        return view;
+    }
+
+    private String probe(String key) {
+        if (!hasExtension(key)) {
+            for (String extension : extensions) {
+                if (exists(root + "/" + key + extension)) return root + "/" + key + extension;
+            }
+        }
+        return exists(root + "/" + key) ? root + "/" + key : null;
+    }
+
+    private boolean exists(String path) {
+        String realPath = context.getRealPath(path);
+        if (realPath != null) return new File(realPath).isFile();
+        try {
+            return context.getResource(path) != null;
+        } catch (MalformedURLException e) {
+            return false;
+        }
+    }
+
+    private boolean hasExtension(String key) {
+        for (String extension : extensions) {
+            if (key.endsWith(extension)) return true;
+        }
+        return false;
+    }
+
+    /** Rebuilds the snapshot on the calling thread; concurrent callers keep using the current one. */
+    private Snapshot refresh(Snapshot current) {
+        if (!refreshing.compareAndSet(false, true)) return current;
+        try {
+            Snapshot rebuilt = build();
+            probed.clear();
+            misses.clear();
+            snapshot = rebuilt;
+            return rebuilt;
+        } finally {
+            refreshing.set(false);
+        }
+    }
+
+    private Snapshot build() {
+        Set<String> top = context.getResourcePaths(root + "/");
+        if (top == null) {
+            try {
+                // no listing: either there are no views, or the container cannot list them
+                if (context.getResource(root + "/") == null) return new Snapshot(Collections.emptyMap());
+            } catch (MalformedURLException ignored) {
+                // probe instead
+            }
+            return new Snapshot(null);
+        }
+
+        Map<String, String> views = new HashMap<>();
+        Map<String, Integer> aliasRank = new HashMap<>();
+        Deque<Set<String>> pending = new ArrayDeque<>();
+        pending.push(top);
+        while (!pending.isEmpty()) {
+            for (String path : pending.pop()) {
+                if (path.endsWith("/")) {
+                    Set<String> children = context.getResourcePaths(path);
+                    if (children != null) pending.push(children);
+                    continue;
+                }
+                String key = path.substring(root.length() + 1);
+                views.put(key, path);
+                for (int rank = 0; rank < extensions.length; rank++) {
+                    if (!key.endsWith(extensions[rank])) continue;
+                    String alias = key.substring(0, key.length() - extensions[rank].length());
+                    Integer previous = aliasRank.get(alias);
+                    if (previous == null || rank < previous) aliasRank.put(alias, rank);
+                    break;
+                }
+            }
+        }
+        for (Map.Entry<String, Integer> alias : aliasRank.entrySet()) {
+            String key = alias.getKey();
+            views.put(key, views.get(key + extensions[alias.getValue()]));
+        }
+        return new Snapshot(Collections.unmodifiableMap(views));
+    }
+}